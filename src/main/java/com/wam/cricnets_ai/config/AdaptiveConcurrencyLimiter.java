@@ -0,0 +1,140 @@
+package com.wam.cricnets_ai.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit that follows observed latency, after the gradient algorithm: a slow moving
+ * average of response times stands for the unloaded latency, and each sample moves the limit by
+ * the ratio of that average to the sample. While latency holds, the limit grows by about
+ * {@code sqrt(limit)} per sample; as requests start to queue and slow down, it shrinks in
+ * proportion. Failures cut it multiplicatively, as in AIMD. Requests over the limit are refused
+ * rather than queued.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    // Samples averaged into the long-term latency
+    private static final int LONG_WINDOW = 600;
+    // Latency may rise this far above the long-term average before the limit shrinks
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private double limit;
+    private double longRttNanos;
+    private long lastRttNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max.");
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Takes a slot, or returns null if the limit is reached. Exactly one of the returned permit's
+     * methods must be called when the request ends.
+     */
+    public Permit tryAcquire() {
+        int limitNow = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limitNow) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(System.nanoTime(), current + 1);
+            }
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public Snapshot snapshot() {
+        synchronized (this) {
+            return new Snapshot(name, (int) limit, inFlight.get(), rejected.get(),
+                    longRttNanos / 1e6, lastRttNanos / 1e6);
+        }
+    }
+
+    synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        lastRttNanos = rttNanos;
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+        }
+        // After a sustained rise the average would keep the limit low for good; let it recover
+        if (longRttNanos > 2 * rttNanos) {
+            longRttNanos *= 0.95;
+        }
+        // A limit that is not being used tells nothing about what the backend can take
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / rttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        update(limit * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    synchronized void onDropped() {
+        update(limit * BACKOFF);
+    }
+
+    private void update(double newLimit) {
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public final class Permit {
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        // Completed normally; its latency is a sample
+        public void onSuccess() {
+            if (release()) {
+                onSample(System.nanoTime() - startNanos, inFlightAtStart);
+            }
+        }
+
+        // Failed or timed out, a sign of overload
+        public void onDropped() {
+            if (release()) {
+                AdaptiveConcurrencyLimiter.this.onDropped();
+            }
+        }
+
+        // Ended in a way that says nothing about load, e.g. handed off to an async stream
+        public void onIgnore() {
+            release();
+        }
+
+        private synchronized boolean release() {
+            if (released) {
+                return false;
+            }
+            released = true;
+            inFlight.decrementAndGet();
+            return true;
+        }
+    }
+
+    public record Snapshot(String name, int limit, int inFlight, long rejected, double longRttMillis,
+                           double lastRttMillis) {}
+}
@@ -0,0 +1,84 @@
+package com.wam.cricnets_ai.config;
+
+import com.wam.cricnets_ai.service.BookingAdmissionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Puts booking writes through {@link BookingAdmissionService}. Runs after authentication, so the
+ * per-user limit applies to the signed-in user. A caller sent back gets 429 with its ticket in
+ * {@value #TICKET_HEADER}, its position and estimated wait, and a Retry-After to come back with it.
+ */
+@Component
+public class BookingAdmissionInterceptor implements HandlerInterceptor {
+
+    public static final String TICKET_HEADER = "X-Queue-Ticket";
+
+    private final BookingAdmissionService admissionService;
+
+    public BookingAdmissionInterceptor(BookingAdmissionService admissionService) {
+        this.admissionService = admissionService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!"POST".equals(request.getMethod())) {
+            return true;
+        }
+        String user = request.getUserPrincipal() != null ? request.getUserPrincipal().getName() : request.getRemoteAddr();
+        BookingAdmissionService.Decision decision;
+        try {
+            decision = admissionService.admit(user, parseTicket(request.getHeader(TICKET_HEADER)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return false;
+        }
+        switch (decision.status()) {
+            case ADMITTED -> {
+                return true;
+            }
+            case QUEUED -> {
+                response.setHeader(TICKET_HEADER, decision.ticket().toString());
+                write(response, HttpStatus.TOO_MANY_REQUESTS, decision, "You are in the queue for booking.");
+            }
+            case USER_LIMIT -> write(response, HttpStatus.TOO_MANY_REQUESTS, decision,
+                    "You already have the maximum number of booking requests in the queue.");
+            case QUEUE_FULL -> write(response, HttpStatus.SERVICE_UNAVAILABLE, decision,
+                    "Booking is very busy right now. Please try again shortly.");
+        }
+        return false;
+    }
+
+    private static void write(HttpServletResponse response, HttpStatus status,
+                              BookingAdmissionService.Decision decision, String message) throws IOException {
+        long waitSeconds = Math.max(1, (decision.estimatedWait().toMillis() + 999) / 1000);
+        response.setStatus(status.value());
+        response.setHeader("Retry-After", String.valueOf(waitSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        // Only fixed messages, numbers and a UUID go in, so nothing needs escaping
+        response.getWriter().write("{\"status\":\"" + decision.status() + "\",\"message\":\"" + message + "\""
+                + (decision.ticket() != null ? ",\"ticket\":\"" + decision.ticket() + "\"" : "")
+                + ",\"position\":" + decision.position()
+                + ",\"estimatedWaitSeconds\":" + waitSeconds + "}");
+    }
+
+    private static UUID parseTicket(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(header.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -3,7 +3,12 @@ package com.wam.cricnets_ai.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import com.wam.cricnets_ai.model.MachineType;
+
+import java.time.Duration;
 import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.Map;
 
 @Configuration
 @ConfigurationProperties(prefix = "booking")
@@ -11,7 +16,13 @@ public class BookingConfig {
 
     private int slotDurationMinutes = 30;
     private int operatorCount = 2;
+    // Machines of a type missing here are not limited
+    private Map<MachineType, Integer> machineCounts = new EnumMap<>(MachineType.class);
     private BusinessHours businessHours = new BusinessHours();
+    private Partitions partitions = new Partitions();
+    private Admission admission = new Admission();
+    private ConcurrencyLimits concurrencyLimits = new ConcurrencyLimits();
+    private Sequencer sequencer = new Sequencer();
 
     public int getSlotDurationMinutes() {
         return slotDurationMinutes;
@@ -29,6 +40,14 @@ public class BookingConfig {
         this.operatorCount = operatorCount;
     }
 
+    public Map<MachineType, Integer> getMachineCounts() {
+        return machineCounts;
+    }
+
+    public void setMachineCounts(Map<MachineType, Integer> machineCounts) {
+        this.machineCounts = machineCounts;
+    }
+
     public BusinessHours getBusinessHours() {
         return businessHours;
     }
@@ -37,6 +56,225 @@ public class BookingConfig {
         this.businessHours = businessHours;
     }
 
+    public Partitions getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(Partitions partitions) {
+        this.partitions = partitions;
+    }
+
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public void setAdmission(Admission admission) {
+        this.admission = admission;
+    }
+
+    public ConcurrencyLimits getConcurrencyLimits() {
+        return concurrencyLimits;
+    }
+
+    public void setConcurrencyLimits(ConcurrencyLimits concurrencyLimits) {
+        this.concurrencyLimits = concurrencyLimits;
+    }
+
+    public Sequencer getSequencer() {
+        return sequencer;
+    }
+
+    public void setSequencer(Sequencer sequencer) {
+        this.sequencer = sequencer;
+    }
+
+    public static class Partitions {
+        // Monthly partitions kept ready beyond the current month
+        private int monthsAhead = 3;
+        // Completed sessions in months older than this move to bookings_archive
+        private int archiveAfterMonths = 12;
+
+        public int getMonthsAhead() {
+            return monthsAhead;
+        }
+
+        public void setMonthsAhead(int monthsAhead) {
+            this.monthsAhead = monthsAhead;
+        }
+
+        public int getArchiveAfterMonths() {
+            return archiveAfterMonths;
+        }
+
+        public void setArchiveAfterMonths(int archiveAfterMonths) {
+            this.archiveAfterMonths = archiveAfterMonths;
+        }
+    }
+
+    public static class Admission {
+        // Booking writes let through per second once a queue forms, and how many may pass at once when idle
+        private double permitsPerSecond = 20;
+        private int burst = 20;
+        private int maxQueue = 1000;
+        // Places one user may hold in the queue at a time
+        private int perUserLimit = 2;
+        // How long a request waits in line before it is sent back with its position instead
+        private Duration maxWait = Duration.ofSeconds(10);
+        // How long an admitted ticket stays valid for a client that was sent back and retries
+        private Duration claimWindow = Duration.ofSeconds(30);
+
+        public double getPermitsPerSecond() {
+            return permitsPerSecond;
+        }
+
+        public void setPermitsPerSecond(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        public void setMaxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+        }
+
+        public int getPerUserLimit() {
+            return perUserLimit;
+        }
+
+        public void setPerUserLimit(int perUserLimit) {
+            this.perUserLimit = perUserLimit;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public Duration getClaimWindow() {
+            return claimWindow;
+        }
+
+        public void setClaimWindow(Duration claimWindow) {
+            this.claimWindow = claimWindow;
+        }
+    }
+
+    // Separate limits so a storm of writes cannot take the capacity reads need
+    public static class ConcurrencyLimits {
+        private Limit read = new Limit(100, 10, 500);
+        private Limit write = new Limit(20, 2, 100);
+
+        public Limit getRead() {
+            return read;
+        }
+
+        public void setRead(Limit read) {
+            this.read = read;
+        }
+
+        public Limit getWrite() {
+            return write;
+        }
+
+        public void setWrite(Limit write) {
+            this.write = write;
+        }
+    }
+
+    // Single-writer booking engine, off by default
+    public static class Sequencer {
+        private boolean enabled = false;
+        // Pending requests per wicket before new ones are turned away
+        private int queueCapacity = 1024;
+        // Most requests committed in one transaction
+        private int maxBatch = 64;
+        private Duration submitTimeout = Duration.ofSeconds(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxBatch() {
+            return maxBatch;
+        }
+
+        public void setMaxBatch(int maxBatch) {
+            this.maxBatch = maxBatch;
+        }
+
+        public Duration getSubmitTimeout() {
+            return submitTimeout;
+        }
+
+        public void setSubmitTimeout(Duration submitTimeout) {
+            this.submitTimeout = submitTimeout;
+        }
+    }
+
+    public static class Limit {
+        private int initial;
+        private int min;
+        private int max;
+
+        public Limit() {
+        }
+
+        public Limit(int initial, int min, int max) {
+            this.initial = initial;
+            this.min = min;
+            this.max = max;
+        }
+
+        public int getInitial() {
+            return initial;
+        }
+
+        public void setInitial(int initial) {
+            this.initial = initial;
+        }
+
+        public int getMin() {
+            return min;
+        }
+
+        public void setMin(int min) {
+            this.min = min;
+        }
+
+        public int getMax() {
+            return max;
+        }
+
+        public void setMax(int max) {
+            this.max = max;
+        }
+    }
+
     public static class BusinessHours {
         private LocalTime start = LocalTime.of(7, 0);
         private LocalTime end = LocalTime.of(23, 0);
@@ -0,0 +1,146 @@
+package com.wam.cricnets_ai.config;
+
+import com.wam.cricnets_ai.service.BookingPartitionService;
+import com.wam.cricnets_ai.service.IdempotencyService;
+import com.wam.cricnets_ai.service.ResourcePoolService;
+import com.wam.cricnets_ai.service.SlotHoldService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Schema pieces Hibernate's ddl-auto cannot express. Every statement is idempotent, so this
+ * doubles as the migration path for databases created before the pieces existed.
+ */
+@Configuration
+public class BookingSchemaInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingSchemaInitializer.class);
+
+    static final String OVERLAP_CONSTRAINT = "bookings_no_overlap";
+    // Must match the allocationSize of the booking_seq generator on Booking.id
+    private static final int BOOKING_SEQUENCE_STEP = 50;
+    private static final int MAX_REPORTED_CONFLICTS = 100;
+
+    @Bean
+    public CommandLineRunner initBookingSchema(JdbcTemplate jdbcTemplate, BookingPartitionService bookingPartitionService,
+                                               ResourcePoolService resourcePoolService,
+                                               SlotHoldService slotHoldService,
+                                               IdempotencyService idempotencyService) {
+        return args -> {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS btree_gist");
+            jdbcTemplate.execute("ALTER TABLE bookings ADD COLUMN IF NOT EXISTS period tsrange "
+                    + "GENERATED ALWAYS AS (tsrange(start_time, end_time, '[)')) STORED");
+            // Once partitioned, each partition carries its own copy of the constraint
+            if (!bookingPartitionService.isPartitioned()) {
+                addOverlapConstraint(jdbcTemplate);
+                bookingPartitionService.partitionBookingsTable(OVERLAP_CONSTRAINT);
+            }
+            bookingPartitionService.createArchiveTable();
+            bookingPartitionService.maintainPartitions();
+            alignBookingSequence(jdbcTemplate);
+            createRollupTables(jdbcTemplate);
+            if (createResourceUsageTable(jdbcTemplate)) {
+                resourcePoolService.rebuild();
+            }
+            slotHoldService.createTable();
+            idempotencyService.createTable();
+        };
+    }
+
+    /**
+     * Ids used to come from an IDENTITY column. Moves the pooled sequence past the highest existing
+     * id so the first block Hibernate allocates (nextval - 49 .. nextval) cannot collide with it.
+     */
+    private void alignBookingSequence(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY " + BOOKING_SEQUENCE_STEP);
+        jdbcTemplate.queryForList("""
+                SELECT setval('bookings_seq', m.max_id + ?, false)
+                FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM bookings) m, bookings_seq s
+                WHERE (s.is_called AND s.last_value < m.max_id) OR (NOT s.is_called AND s.last_value < m.max_id + ?)
+                """, BOOKING_SEQUENCE_STEP, BOOKING_SEQUENCE_STEP);
+    }
+
+    /**
+     * Hourly usage rollups and the queue of days whose rollups are stale. When the rollup table is
+     * first created every day that has bookings is queued, so history is backfilled in the background.
+     */
+    private void createRollupTables(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS booking_rollup_dirty_days (
+                    day date PRIMARY KEY,
+                    marked_at timestamp NOT NULL DEFAULT now()
+                )""");
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT to_regclass('booking_rollup_hourly') IS NOT NULL", Boolean.class);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS booking_rollup_hourly (
+                    hour timestamp NOT NULL,
+                    wicket_type varchar(255) NOT NULL,
+                    machine_type varchar(255) NOT NULL,
+                    booked_minutes integer NOT NULL,
+                    sessions integer NOT NULL,
+                    operator_minutes integer NOT NULL,
+                    PRIMARY KEY (hour, wicket_type, machine_type)
+                )""");
+        int queued = jdbcTemplate.update("""
+                INSERT INTO booking_rollup_dirty_days (day)
+                SELECT DISTINCT start_time::date FROM bookings
+                ON CONFLICT DO NOTHING""");
+        log.info("Created booking_rollup_hourly; queued {} days for backfill", queued);
+    }
+
+    // Per-slot resource pool counters; returns true when the table is new and needs counting
+    private boolean createResourceUsageTable(JdbcTemplate jdbcTemplate) {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass('resource_usage') IS NOT NULL", Boolean.class);
+        if (Boolean.TRUE.equals(exists)) {
+            return false;
+        }
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS resource_usage (
+                    pool varchar(64) NOT NULL,
+                    slot_start timestamp NOT NULL,
+                    used integer NOT NULL,
+                    capacity integer NOT NULL,
+                    PRIMARY KEY (pool, slot_start)
+                )""");
+        return true;
+    }
+
+    /**
+     * One wicket can only hold one live booking at a time; cancelled rows never conflict. Nothing
+     * else on the write path stops double bookings across nodes, so startup fails while existing
+     * rows overlap rather than running without the constraint.
+     */
+    void addOverlapConstraint(JdbcTemplate jdbcTemplate) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_constraint WHERE conname = ?", Integer.class, OVERLAP_CONSTRAINT);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        List<String> conflicts = jdbcTemplate.query("""
+                SELECT a.id AS first_id, b.id AS second_id FROM bookings a JOIN bookings b
+                  ON a.id < b.id AND a.wicket_type = b.wicket_type AND a.period && b.period
+                WHERE a.status <> 'CANCELLED' AND b.status <> 'CANCELLED'
+                ORDER BY a.id, b.id
+                LIMIT ?
+                """, (rs, row) -> rs.getLong("first_id") + "/" + rs.getLong("second_id"), MAX_REPORTED_CONFLICTS);
+        if (!conflicts.isEmpty()) {
+            String more = conflicts.size() == MAX_REPORTED_CONFLICTS ? " and possibly more" : "";
+            throw new IllegalStateException("Cannot add " + OVERLAP_CONSTRAINT + ": these pairs of booking ids overlap "
+                    + "on the same wicket: " + String.join(", ", conflicts) + more
+                    + ". Cancel the duplicates and restart.");
+        }
+        jdbcTemplate.execute("ALTER TABLE bookings ADD CONSTRAINT " + OVERLAP_CONSTRAINT
+                + " EXCLUDE USING gist (wicket_type WITH =, period WITH &&) WHERE (status <> 'CANCELLED')");
+        log.info("Added exclusion constraint {}", OVERLAP_CONSTRAINT);
+    }
+}
@@ -0,0 +1,97 @@
+package com.wam.cricnets_ai.config;
+
+import com.wam.cricnets_ai.service.BookingConflictException;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.List;
+
+/**
+ * Sheds load on the booking and MCP tool endpoints before it reaches the database pool. GETs and
+ * writes each have their own {@link AdaptiveConcurrencyLimiter}; a request over its limit gets an
+ * immediate 503 with Retry-After instead of waiting for a connection. Only overload counts as a
+ * drop: a 5xx or an unhandled exception, such as a timeout or an exhausted connection pool. Requests
+ * rejected as asked (already booked, invalid input) are answered with a 4xx by
+ * {@link com.wam.cricnets_ai.controller.ApiExceptionHandler} and are ordinary latency samples.
+ */
+@Component
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+
+    public ConcurrencyLimitInterceptor(BookingConfig bookingConfig) {
+        BookingConfig.ConcurrencyLimits limits = bookingConfig.getConcurrencyLimits();
+        this.readLimiter = limiter("read", limits.getRead());
+        this.writeLimiter = limiter("write", limits.getWrite());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // An async dispatch continues a request that already went through here
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        AdaptiveConcurrencyLimiter.Permit permit = (read ? readLimiter : writeLimiter).tryAcquire();
+        if (permit == null) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+            return false;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        return true;
+    }
+
+    // Streams run for as long as the client listens, so their duration is not a latency sample
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        AdaptiveConcurrencyLimiter.Permit permit = takePermit(request);
+        if (permit != null) {
+            permit.onIgnore();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        AdaptiveConcurrencyLimiter.Permit permit = takePermit(request);
+        if (permit == null) {
+            return;
+        }
+        if (isOverload(response.getStatus(), ex)) {
+            permit.onDropped();
+        } else {
+            permit.onSuccess();
+        }
+    }
+
+    public List<AdaptiveConcurrencyLimiter.Snapshot> snapshots() {
+        return List.of(readLimiter.snapshot(), writeLimiter.snapshot());
+    }
+
+    // ex is only set when no exception handler answered the request
+    static boolean isOverload(int status, Exception ex) {
+        if (ex instanceof BookingConflictException || ex instanceof IllegalArgumentException) {
+            return false;
+        }
+        return ex != null || status >= 500;
+    }
+
+    private static AdaptiveConcurrencyLimiter.Permit takePermit(HttpServletRequest request) {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        request.removeAttribute(PERMIT_ATTRIBUTE);
+        return (AdaptiveConcurrencyLimiter.Permit) permit;
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(String name, BookingConfig.Limit limit) {
+        return new AdaptiveConcurrencyLimiter(name, limit.getInitial(), limit.getMin(), limit.getMax());
+    }
+}
@@ -0,0 +1,24 @@
+package com.wam.cricnets_ai.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Current limit, requests in flight, rejections and latencies per limiter, at /actuator/concurrencylimits
+@Component
+@Endpoint(id = "concurrencylimits")
+public class ConcurrencyLimitsEndpoint {
+
+    private final ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
+    public ConcurrencyLimitsEndpoint(ConcurrencyLimitInterceptor concurrencyLimitInterceptor) {
+        this.concurrencyLimitInterceptor = concurrencyLimitInterceptor;
+    }
+
+    @ReadOperation
+    public List<AdaptiveConcurrencyLimiter.Snapshot> limits() {
+        return concurrencyLimitInterceptor.snapshots();
+    }
+}
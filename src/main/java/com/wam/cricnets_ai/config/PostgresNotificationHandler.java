@@ -0,0 +1,18 @@
+package com.wam.cricnets_ai.config;
+
+/**
+ * Receives payloads sent with {@code pg_notify} on one channel, from this node or any other.
+ */
+public interface PostgresNotificationHandler {
+
+    String channel();
+
+    void onNotification(String payload);
+
+    /**
+     * Called each time the channel is (re)subscribed. Notifications sent while the listener was
+     * disconnected are lost, so handlers that cache state should resynchronize here.
+     */
+    default void onListening() {
+    }
+}
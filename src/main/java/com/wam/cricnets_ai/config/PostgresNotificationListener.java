@@ -0,0 +1,118 @@
+package com.wam.cricnets_ai.config;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Holds one dedicated connection that LISTENs on every channel of the registered
+ * {@link PostgresNotificationHandler}s and dispatches notifications to them. Reconnects with a
+ * short back-off if the connection drops.
+ */
+@Component
+public class PostgresNotificationListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresNotificationListener.class);
+    private static final int POLL_TIMEOUT_MILLIS = 5_000;
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+    private final DataSource dataSource;
+    private final Map<String, PostgresNotificationHandler> handlers;
+    private volatile boolean running;
+    private Thread worker;
+
+    public PostgresNotificationListener(DataSource dataSource, List<PostgresNotificationHandler> handlers) {
+        this.dataSource = dataSource;
+        this.handlers = handlers.stream()
+                .collect(Collectors.toUnmodifiableMap(PostgresNotificationHandler::channel, Function.identity()));
+    }
+
+    @Override
+    public void start() {
+        if (handlers.isEmpty()) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::listen, "pg-notification-listener");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    for (String channel : handlers.keySet()) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                }
+                handlers.values().forEach(this::notifyListening);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Postgres notification listener lost its connection, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void notifyListening(PostgresNotificationHandler handler) {
+        try {
+            handler.onListening();
+        } catch (RuntimeException e) {
+            log.warn("Handler for channel {} failed to resynchronize: {}", handler.channel(), e.getMessage());
+        }
+    }
+
+    private void dispatch(PGNotification notification) {
+        PostgresNotificationHandler handler = handlers.get(notification.getName());
+        if (handler == null) {
+            return;
+        }
+        try {
+            handler.onNotification(notification.getParameter());
+        } catch (RuntimeException e) {
+            log.warn("Handler for channel {} failed: {}", notification.getName(), e.getMessage());
+        }
+    }
+}
@@ -29,7 +29,8 @@ public class SecurityConfig {
             .cors(Customizer.withDefaults())
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/**").permitAll()
-                .requestMatchers("/api/bookings/slots", "/api/bookings/upcoming").permitAll()
+                .requestMatchers("/api/bookings/slots", "/api/bookings/slots/stream", "/api/bookings/availability", "/api/bookings/upcoming").permitAll()
+                .requestMatchers("/actuator/concurrencylimits", "/actuator/concurrencylimits/**").hasAnyRole("ADMIN", "SUPER_ADMIN")
                 .requestMatchers(
                     "/v3/api-docs/**",
                     "/swagger-ui/**",
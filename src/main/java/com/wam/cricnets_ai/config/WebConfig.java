@@ -3,13 +3,15 @@ package com.wam.cricnets_ai.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig {
 
     @Bean
-    public WebMvcConfigurer corsConfigurer() {
+    public WebMvcConfigurer corsConfigurer(BookingAdmissionInterceptor bookingAdmissionInterceptor,
+                                           ConcurrencyLimitInterceptor concurrencyLimitInterceptor) {
         return new WebMvcConfigurer() {
             @Override
             public void addCorsMappings(CorsRegistry registry) {
@@ -17,8 +19,20 @@ public class WebConfig {
                         .allowedOriginPatterns("*")
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                         .allowedHeaders("*")
+                        .exposedHeaders("ETag", "X-Next-Cursor", "Retry-After", BookingAdmissionInterceptor.TICKET_HEADER)
                         .allowCredentials(true);
             }
+
+            // Booking writes only; reads and admin changes never queue. Requests waiting in the queue
+            // are registered first, so they do not hold a concurrency slot while they wait. MCP tool
+            // calls are only known to be writes once parsed, so BookingMcpTools admits those itself
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(bookingAdmissionInterceptor)
+                        .addPathPatterns("/api/bookings", "/api/bookings/multi", "/api/bookings/holds");
+                registry.addInterceptor(concurrencyLimitInterceptor)
+                        .addPathPatterns("/api/bookings/**", "/mcp-client/**");
+            }
         };
     }
 }
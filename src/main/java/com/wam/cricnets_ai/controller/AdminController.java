@@ -1,15 +1,26 @@
 package com.wam.cricnets_ai.controller;
 
+import com.wam.cricnets_ai.model.BookingStatus;
+import com.wam.cricnets_ai.model.MachineType;
 import com.wam.cricnets_ai.model.Role;
 import com.wam.cricnets_ai.model.User;
-import com.wam.cricnets_ai.repository.BookingRepository;
+import com.wam.cricnets_ai.model.WicketType;
 import com.wam.cricnets_ai.repository.UserRepository;
+import com.wam.cricnets_ai.service.BookingExportService;
+import com.wam.cricnets_ai.service.BookingRollupService;
+import com.wam.cricnets_ai.service.BookingStatsService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -17,11 +28,16 @@ import java.util.Map;
 public class AdminController {
 
     private final UserRepository userRepository;
-    private final BookingRepository bookingRepository;
+    private final BookingStatsService bookingStatsService;
+    private final BookingExportService bookingExportService;
+    private final BookingRollupService bookingRollupService;
 
-    public AdminController(UserRepository userRepository, BookingRepository bookingRepository) {
+    public AdminController(UserRepository userRepository, BookingStatsService bookingStatsService,
+                           BookingExportService bookingExportService, BookingRollupService bookingRollupService) {
         this.userRepository = userRepository;
-        this.bookingRepository = bookingRepository;
+        this.bookingStatsService = bookingStatsService;
+        this.bookingExportService = bookingExportService;
+        this.bookingRollupService = bookingRollupService;
     }
 
     @GetMapping("/users")
@@ -45,11 +61,51 @@ public class AdminController {
     @GetMapping("/stats")
     @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN')")
     public Map<String, Object> getStats() {
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalUsers", userRepository.count());
-        stats.put("totalBookings", bookingRepository.count());
-        stats.put("upcomingBookings", bookingRepository.findByStartTimeAfterOrderByStartTimeAsc(LocalDateTime.now()).size());
-        return stats;
+        return bookingStatsService.snapshot();
+    }
+
+    // Rows are written as they come off the database cursor; format is "ndjson" (default) or "csv"
+    @GetMapping("/bookings/export")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) List<BookingStatus> status,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        BookingExportService.Format exportFormat;
+        try {
+            exportFormat = BookingExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        // Validate eagerly so a bad range is a 400, not a truncated download
+        BookingExportService.validateRange(from, to);
+        StreamingResponseBody body = out -> bookingExportService.export(from, to, status, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"bookings." + exportFormat.extension() + "\"")
+                .body(body);
+    }
+
+    // Both analytics endpoints read the hourly rollups; 'to' is exclusive
+    @GetMapping("/analytics/heatmap")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN')")
+    public List<BookingRollupService.HeatmapCell> getUtilizationHeatmap(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) WicketType wicketType) {
+        return bookingRollupService.getHeatmap(from, to, wicketType);
+    }
+
+    @GetMapping("/analytics/trend")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN')")
+    public List<BookingRollupService.TrendPoint> getUtilizationTrend(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") BookingRollupService.Bucket bucket,
+            @RequestParam(required = false) WicketType wicketType,
+            @RequestParam(required = false) MachineType machineType) {
+        return bookingRollupService.getTrend(from, to, bucket, wicketType, machineType);
     }
 
     @PostMapping("/users/{id}/role")
@@ -0,0 +1,40 @@
+package com.wam.cricnets_ai.controller;
+
+import com.wam.cricnets_ai.service.BookingAdmissionService;
+import com.wam.cricnets_ai.service.BookingConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Answers requests the service rejects as asked with a 4xx, so they are not reported as server
+ * errors and do not count as overload in {@link com.wam.cricnets_ai.config.ConcurrencyLimitInterceptor}.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(BookingConflictException.class)
+    public ResponseEntity<Map<String, String>> conflict(BookingConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    // Same statuses and Retry-After as the waiting room's own answers in BookingAdmissionInterceptor
+    @ExceptionHandler(BookingAdmissionService.RefusedException.class)
+    public ResponseEntity<Map<String, String>> refused(BookingAdmissionService.RefusedException e) {
+        BookingAdmissionService.Decision decision = e.decision();
+        HttpStatus status = decision.status() == BookingAdmissionService.Status.QUEUE_FULL
+                ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.TOO_MANY_REQUESTS;
+        long waitSeconds = Math.max(1, (decision.estimatedWait().toMillis() + 999) / 1000);
+        return ResponseEntity.status(status)
+                .header("Retry-After", String.valueOf(waitSeconds))
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+}
@@ -1,65 +1,157 @@
 package com.wam.cricnets_ai.controller;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.wam.cricnets_ai.model.*;
+import com.wam.cricnets_ai.repository.BookingFilter;
 import com.wam.cricnets_ai.service.BookingService;
+import com.wam.cricnets_ai.service.IdempotencyService;
+import com.wam.cricnets_ai.service.SlotHoldService;
+import com.wam.cricnets_ai.service.SlotStreamService;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/bookings")
 public class BookingController {
 
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookingService bookingService;
+    private final SlotStreamService slotStreamService;
+    private final SlotHoldService slotHoldService;
+    private final IdempotencyService idempotencyService;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, SlotStreamService slotStreamService,
+                             SlotHoldService slotHoldService, IdempotencyService idempotencyService) {
         this.bookingService = bookingService;
+        this.slotStreamService = slotStreamService;
+        this.slotHoldService = slotHoldService;
+        this.idempotencyService = idempotencyService;
     }
 
+    // Polled by the app; an unchanged grid is answered with 304 straight from memory
     @GetMapping("/slots")
     public List<BookingService.SlotStatus> getSlots(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
-            @RequestParam(required = false, defaultValue = "INDOOR_ASTRO_TURF") WicketType wicketType) {
-        return bookingService.getSlotsForDay(date, wicketType);
+            @RequestParam(required = false, defaultValue = "INDOOR_ASTRO_TURF") WicketType wicketType,
+            WebRequest request) {
+        BookingService.VersionedSlots slots = bookingService.getVersionedSlotsForDay(date, wicketType);
+        if (request.checkNotModified(slots.etag())) {
+            return null;
+        }
+        return slots.slots();
+    }
+
+    // Sends a "snapshot" event with the full grid, then "booked"/"freed" deltas as bookings commit
+    @GetMapping(value = "/slots/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSlots(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false, defaultValue = "INDOOR_ASTRO_TURF") WicketType wicket) {
+        return slotStreamService.subscribe(date, wicket);
+    }
+
+    @GetMapping(value = "/availability", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getAvailability(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<WicketType> wickets) {
+        // Validate eagerly so a bad window is a 400, not a truncated stream
+        Stream<BookingService.DayAvailability> days = bookingService.getAvailability(from, to, wickets);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = JSON_FACTORY.createGenerator(out); days) {
+                json.writeStartArray();
+                for (BookingService.DayAvailability day : (Iterable<BookingService.DayAvailability>) days::iterator) {
+                    json.writeStartObject();
+                    json.writeStringField("date", day.date().toString());
+                    json.writeStringField("wicketType", day.wicketType().name());
+                    json.writeArrayFieldStart("slots");
+                    for (BookingService.SlotStatus slot : day.slots()) {
+                        json.writeStartObject();
+                        json.writeStringField("startTime", slot.startTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                        json.writeStringField("status", slot.status());
+                        json.writeBooleanField("available", slot.available());
+                        json.writeEndObject();
+                    }
+                    json.writeEndArray();
+                    json.writeEndObject();
+                    json.flush();
+                }
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
-    public Booking bookSession(@RequestBody BookingRequest request, java.security.Principal principal) {
+    public Booking bookSession(
+            @RequestBody BookingRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            java.security.Principal principal) {
         String email = principal != null ? principal.getName() : null;
-        return bookingService.createBooking(
-                request.startTime(),
-                request.durationMinutes(),
-                request.ballType(),
-                request.wicketType(),
-                request.machineType(),
-                request.leatherBallOption(),
-                request.selfOperated(),
-                email);
+        if (idempotencyKey != null) {
+            return idempotencyService.execute(email, idempotencyKey, request,
+                    () -> List.of(createBooking(request, email))).get(0);
+        }
+        return createBooking(request, email);
+    }
+
+    // Keeps the slots off the grid while the player checks out; book with the returned id as holdId
+    @PostMapping("/holds")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+    public SlotHoldService.SlotHold holdSlot(@RequestBody HoldRequest request, java.security.Principal principal) {
+        String email = principal != null ? principal.getName() : null;
+        return bookingService.holdSlot(request.startTime(), request.durationMinutes(), request.wicketType(),
+                request.seconds(), email);
+    }
+
+    @DeleteMapping("/holds/{id}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+    public void releaseHold(@PathVariable UUID id, java.security.Principal principal) {
+        slotHoldService.release(id, principal.getName());
     }
 
     @PostMapping("/multi")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
-    public List<Booking> bookMultipleSessions(@RequestBody MultiBookingRequest request, java.security.Principal principal) {
+    public List<Booking> bookMultipleSessions(
+            @RequestBody MultiBookingRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            java.security.Principal principal) {
         String email = principal != null ? principal.getName() : null;
-        return bookingService.createMultiBooking(
-                request.startTimes(),
-                request.ballType(),
-                request.wicketType(),
-                request.machineType(),
-                request.leatherBallOption(),
-                request.selfOperated(),
-                email);
+        if (idempotencyKey != null) {
+            return idempotencyService.execute(email, idempotencyKey, request, () -> createMultiBooking(request, email));
+        }
+        return createMultiBooking(request, email);
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
-    public List<Booking> getAllBookings() {
-        return bookingService.getAllBookings();
+    public ResponseEntity<List<Booking>> getAllBookings(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) WicketType wicketType,
+            @RequestParam(required = false) BookingStatus status,
+            @RequestParam(required = false) String userEmail,
+            @RequestParam(required = false) MachineType machineType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        BookingFilter filter = new BookingFilter(from, to, wicketType, status, userEmail, machineType);
+        return page(bookingService.findBookings(filter, cursor, size));
     }
 
     @GetMapping("/{id}")
@@ -82,14 +174,54 @@ public class BookingController {
 
     @GetMapping("/mine")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
-    public List<Booking> getMyBookings(java.security.Principal principal) {
-        return bookingService.getBookingsByEmail(principal.getName());
+    public ResponseEntity<List<Booking>> getMyBookings(java.security.Principal principal,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer size) {
+        return page(bookingService.getBookingsByEmail(principal.getName(), cursor, size));
     }
 
 
     @GetMapping("/upcoming")
-    public List<Booking> getUpcomingBookings() {
-        return bookingService.getUpcomingBookings();
+    public ResponseEntity<List<Booking>> getUpcomingBookings(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size,
+                                                             WebRequest request) {
+        if (request.checkNotModified(bookingService.getUpcomingBookingsETag())) {
+            return null;
+        }
+        return page(bookingService.getUpcomingBookings(cursor, size));
+    }
+
+    private Booking createBooking(BookingRequest request, String email) {
+        return bookingService.createBooking(
+                request.startTime(),
+                request.durationMinutes(),
+                request.ballType(),
+                request.wicketType(),
+                request.machineType(),
+                request.leatherBallOption(),
+                request.selfOperated(),
+                email,
+                request.holdId());
+    }
+
+    private List<Booking> createMultiBooking(MultiBookingRequest request, String email) {
+        return bookingService.createMultiBooking(
+                request.startTimes(),
+                request.ballType(),
+                request.wicketType(),
+                request.machineType(),
+                request.leatherBallOption(),
+                request.selfOperated(),
+                email);
+    }
+
+    // The body stays a plain list for existing clients; the next page is announced in a header
+    private static ResponseEntity<List<Booking>> page(BookingService.BookingPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
     }
 
     public record BookingRequest(
@@ -99,7 +231,14 @@ public class BookingController {
             WicketType wicketType,
             MachineType machineType,
             LeatherBallOption leatherBallOption,
-            Boolean selfOperated
+            Boolean selfOperated,
+            UUID holdId
+    ) {}
+    public record HoldRequest(
+            LocalDateTime startTime,
+            Integer durationMinutes,
+            WicketType wicketType,
+            Integer seconds
     ) {}
     public record MultiBookingRequest(
             List<LocalDateTime> startTimes,
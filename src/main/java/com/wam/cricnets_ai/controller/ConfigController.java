@@ -2,6 +2,7 @@ package com.wam.cricnets_ai.controller;
 
 import com.wam.cricnets_ai.model.SystemConfig;
 import com.wam.cricnets_ai.repository.SystemConfigRepository;
+import com.wam.cricnets_ai.service.BookingSettingsService;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,9 +14,11 @@ import java.util.Map;
 public class ConfigController {
 
     private final SystemConfigRepository systemConfigRepository;
+    private final BookingSettingsService bookingSettingsService;
 
-    public ConfigController(SystemConfigRepository systemConfigRepository) {
+    public ConfigController(SystemConfigRepository systemConfigRepository, BookingSettingsService bookingSettingsService) {
         this.systemConfigRepository = systemConfigRepository;
+        this.bookingSettingsService = bookingSettingsService;
     }
 
     @GetMapping
@@ -29,9 +32,6 @@ public class ConfigController {
     public SystemConfig updateConfig(@RequestBody Map<String, String> request) {
         String key = request.get("key");
         String value = request.get("value");
-        SystemConfig config = systemConfigRepository.findByConfigKey(key)
-                .orElse(new SystemConfig(key, value));
-        config.setConfigValue(value);
-        return systemConfigRepository.save(config);
+        return bookingSettingsService.update(key, value);
     }
 }
@@ -1,12 +1,15 @@
 package com.wam.cricnets_ai.controller;
 
 
+import com.wam.cricnets_ai.mcp.LlmClient;
 import com.wam.cricnets_ai.mcp.NaturalLanguageMcpService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.security.Principal;
 import java.util.Map;
 
 @RestController
@@ -22,12 +25,16 @@ public class McpNaturalLanguageController {
     public record InterpretRequest(String command, Boolean execute) {}
 
     @PostMapping("/interpret")
-    public ResponseEntity<?> interpret(@RequestBody InterpretRequest request) {
+    public ResponseEntity<?> interpret(@RequestBody InterpretRequest request, Principal principal) {
         if (request == null || request.command == null || request.command.isBlank()) {
             return ResponseEntity.badRequest().body(Map.of("error", "Missing 'command'"));
         }
         boolean execute = request.execute == null || Boolean.TRUE.equals(request.execute);
-        var result = nlService.interpret(request.command, execute);
-        return ResponseEntity.ok(result);
+        try {
+            var result = nlService.interpret(request.command, execute, principal != null ? principal.getName() : null);
+            return ResponseEntity.ok(result);
+        } catch (LlmClient.UnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
     }
 }
@@ -1,6 +1,7 @@
 package com.wam.cricnets_ai.controller;
 
 
+import com.wam.cricnets_ai.mcp.ToolBatchService;
 import com.wam.cricnets_ai.mcp.ToolRegistry;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -15,9 +16,11 @@ import java.util.Map;
 public class McpToolController {
 
     private final ToolRegistry invokerService;
+    private final ToolBatchService toolBatchService;
 
-    public McpToolController(ToolRegistry invokerService) {
+    public McpToolController(ToolRegistry invokerService, ToolBatchService toolBatchService) {
         this.invokerService = invokerService;
+        this.toolBatchService = toolBatchService;
     }
 
     @GetMapping("/tools")
@@ -25,6 +28,12 @@ public class McpToolController {
         return ResponseEntity.ok(invokerService.listToolNames());
     }
 
+    // Runs several tools in one round trip; read-only ones run concurrently
+    @PostMapping("/tools/batch")
+    public ResponseEntity<List<ToolBatchService.ToolResult>> callTools(@RequestBody List<ToolBatchService.ToolCall> calls) {
+        return ResponseEntity.ok(toolBatchService.execute(calls));
+    }
+
     @PostMapping("/tools/{name}")
     public ResponseEntity<Object> callTool(@PathVariable("name") String name,
                                            @RequestBody(required = false) Map<String, Object> args) {
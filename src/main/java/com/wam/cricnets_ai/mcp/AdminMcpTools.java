@@ -4,15 +4,14 @@ import com.wam.cricnets_ai.model.Role;
 import com.wam.cricnets_ai.model.SystemConfig;
 import com.wam.cricnets_ai.model.User;
 import com.wam.cricnets_ai.model.Booking;
-import com.wam.cricnets_ai.repository.BookingRepository;
 import com.wam.cricnets_ai.service.BookingService;
+import com.wam.cricnets_ai.service.BookingSettingsService;
+import com.wam.cricnets_ai.service.BookingStatsService;
 import com.wam.cricnets_ai.repository.SystemConfigRepository;
 import com.wam.cricnets_ai.repository.UserRepository;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springframework.context.annotation.Configuration;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -20,23 +19,27 @@ import java.util.Map;
 public class AdminMcpTools {
 
     private final UserRepository userRepository;
-    private final BookingRepository bookingRepository;
+    private final BookingStatsService bookingStatsService;
     private final SystemConfigRepository systemConfigRepository;
     private final BookingService bookingService;
+    private final BookingSettingsService bookingSettingsService;
 
-    public AdminMcpTools(UserRepository userRepository, BookingRepository bookingRepository, SystemConfigRepository systemConfigRepository, BookingService bookingService) {
+    public AdminMcpTools(UserRepository userRepository, BookingStatsService bookingStatsService, SystemConfigRepository systemConfigRepository, BookingService bookingService, BookingSettingsService bookingSettingsService) {
         this.userRepository = userRepository;
-        this.bookingRepository = bookingRepository;
+        this.bookingStatsService = bookingStatsService;
         this.systemConfigRepository = systemConfigRepository;
         this.bookingService = bookingService;
+        this.bookingSettingsService = bookingSettingsService;
     }
 
-    @McpTool(name = "list_all_users", description = "List all registered users")
+    @McpTool(name = "list_all_users", description = "List all registered users",
+            annotations = @McpTool.McpAnnotations(readOnlyHint = true))
     public List<User> listAllUsers() {
         return userRepository.findAll();
     }
 
-    @McpTool(name = "search_users", description = "Search users by name or email")
+    @McpTool(name = "search_users", description = "Search users by name or email",
+            annotations = @McpTool.McpAnnotations(readOnlyHint = true))
     public List<User> searchUsers(String query) {
         return userRepository.findByNameContainingIgnoreCaseOrEmailContainingIgnoreCase(query, query);
     }
@@ -55,31 +58,27 @@ public class AdminMcpTools {
         return userRepository.save(user);
     }
 
-    @McpTool(name = "get_dashboard_stats", description = "Get basic statistics for the admin dashboard")
+    @McpTool(name = "get_dashboard_stats", description = "Get basic statistics for the admin dashboard",
+            annotations = @McpTool.McpAnnotations(readOnlyHint = true))
     public Map<String, Object> getDashboardStats() {
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalUsers", userRepository.count());
-        stats.put("totalBookings", bookingRepository.count());
-        stats.put("upcomingBookings", bookingRepository.findByStartTimeAfterOrderByStartTimeAsc(LocalDateTime.now()).size());
-        return stats;
+        return bookingStatsService.snapshot();
     }
 
-    @McpTool(name = "get_system_configs", description = "List all system configuration settings")
+    @McpTool(name = "get_system_configs", description = "List all system configuration settings",
+            annotations = @McpTool.McpAnnotations(readOnlyHint = true))
     public List<SystemConfig> getSystemConfigs() {
         return systemConfigRepository.findAll();
     }
 
     @McpTool(name = "update_system_config", description = "Update or create a system configuration setting")
     public SystemConfig updateSystemConfig(String key, String value) {
-        SystemConfig config = systemConfigRepository.findByConfigKey(key)
-                .orElse(new SystemConfig(key, value));
-        config.setConfigValue(value);
-        return systemConfigRepository.save(config);
+        return bookingSettingsService.update(key, value);
     }
 
-    @McpTool(name = "list_all_bookings", description = "List all bookings in the system")
-    public List<Booking> listAllBookings() {
-        return bookingService.getAllBookings();
+    @McpTool(name = "list_all_bookings", description = "List bookings in the system by start time, 50 per page. Pass the 'nextCursor' of a result as 'cursor' to get the next page",
+            annotations = @McpTool.McpAnnotations(readOnlyHint = true))
+    public BookingService.BookingPage listAllBookings(String cursor) {
+        return bookingService.getAllBookings(cursor, null);
     }
 
     @McpTool(name = "mark_booking_as_done", description = "Mark a booking as completed by its ID")
@@ -1,24 +1,33 @@
 package com.wam.cricnets_ai.mcp;
 
 import com.wam.cricnets_ai.model.*;
+import com.wam.cricnets_ai.service.BookingAdmissionService;
 import com.wam.cricnets_ai.service.BookingService;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Configuration
 public class BookingMcpTools {
 
     private final BookingService bookingService;
+    private final BookingAdmissionService admissionService;
 
-    public BookingMcpTools(BookingService bookingService) {
+    public BookingMcpTools(BookingService bookingService, BookingAdmissionService admissionService) {
         this.bookingService = bookingService;
+        this.admissionService = admissionService;
     }
 
-    @McpTool(name = "get_available_slots", description = "Get available cricket net booking slots for a specific date and wicket type (INDOOR_ASTRO_TURF, OUTDOOR_CEMENT, OUTDOOR_TURF)")
+    @McpTool(name = "get_available_slots", description = "Get available cricket net booking slots for a specific date and wicket type (INDOOR_ASTRO_TURF, OUTDOOR_CEMENT, OUTDOOR_TURF)",
+            annotations = @McpTool.McpAnnotations(readOnlyHint = true))
     public List<BookingService.SlotStatus> getAvailableSlots(LocalDate date, WicketType wicketType) {
         if (wicketType == null) {
             wicketType = WicketType.INDOOR_ASTRO_TURF;
@@ -26,21 +35,37 @@ public class BookingMcpTools {
         return bookingService.getSlotsForDay(date, wicketType);
     }
 
+    @McpTool(name = "get_availability_grid", description = "Get slot availability for every day from 'from' to 'to' (inclusive, at most 31 days) in one call. 'wickets' is an optional comma-separated list of wicket types; all wickets are returned when it is empty",
+            annotations = @McpTool.McpAnnotations(readOnlyHint = true))
+    public List<BookingService.DayAvailability> getAvailabilityGrid(LocalDate from, LocalDate to, String wickets) {
+        List<WicketType> wicketTypes = wickets == null || wickets.isBlank()
+                ? List.of()
+                : Arrays.stream(wickets.split(","))
+                        .map(w -> WicketType.valueOf(w.trim().toUpperCase()))
+                        .toList();
+        try (Stream<BookingService.DayAvailability> days = bookingService.getAvailability(from, to == null ? from : to, wicketTypes)) {
+            return days.toList();
+        }
+    }
+
     @McpTool(name = "book_session", description = "Book a cricket net session")
     public Booking bookSession(LocalDateTime startTime, Integer durationMinutes, BallType ballType,
                                WicketType wicketType, MachineType machineType, LeatherBallOption leatherBallOption,
                                Boolean selfOperated, String email) {
+        admit(email);
         return bookingService.createBooking(startTime, durationMinutes, ballType, wicketType, machineType, leatherBallOption, selfOperated, email);
     }
 
     @McpTool(name = "book_multiple_slots", description = "Book multiple cricket net sessions at once")
     public List<Booking> bookMultipleSlots(List<LocalDateTime> startTimes, BallType ballType, String email) {
+        admit(email);
         return bookingService.createMultiBooking(startTimes, ballType, email);
     }
 
-    @McpTool(name = "get_user_bookings", description = "Get all bookings for a specific user email")
-    public List<Booking> getUserBookings(String email) {
-        return bookingService.getBookingsByEmail(email);
+    @McpTool(name = "get_user_bookings", description = "Get bookings for a specific user email, 50 per page. Pass the 'nextCursor' of a result as 'cursor' to get the next page",
+            annotations = @McpTool.McpAnnotations(readOnlyHint = true))
+    public BookingService.BookingPage getUserBookings(String email, String cursor) {
+        return bookingService.getBookingsByEmail(email, cursor, null);
     }
 
     @McpTool(name = "cancel_booking", description = "Cancel an existing cricket net booking by ID")
@@ -49,8 +74,18 @@ public class BookingMcpTools {
         return "Booking " + bookingId + " cancelled successfully.";
     }
 
-    @McpTool(name = "get_upcoming_bookings", description = "Get all upcoming cricket net bookings")
-    public List<Booking> getUpcomingBookings() {
-        return bookingService.getUpcomingBookings();
+    @McpTool(name = "get_upcoming_bookings", description = "Get upcoming cricket net bookings, 50 per page. Pass the 'nextCursor' of a result as 'cursor' to get the next page",
+            annotations = @McpTool.McpAnnotations(readOnlyHint = true))
+    public BookingService.BookingPage getUpcomingBookings(String cursor) {
+        return bookingService.getUpcomingBookings(cursor, null);
+    }
+
+    // Tool calls reach the booking writes from /mcp-client/tools and /mcp-client/interpret, past the
+    // interceptor that queues the REST endpoints, so they wait in the same room here
+    private void admit(String email) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String user = authentication != null && !(authentication instanceof AnonymousAuthenticationToken)
+                ? authentication.getName() : email;
+        admissionService.admitOrRefuse(user != null ? user : "anonymous");
     }
 }
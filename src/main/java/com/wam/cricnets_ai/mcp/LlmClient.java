@@ -0,0 +1,254 @@
+package com.wam.cricnets_ai.mcp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat completion client for the LLM router. Calls go through one pooled HTTP/2 client whose
+ * callbacks run on virtual threads, and are bounded three ways so a slow or failing LLM cannot tie
+ * up request threads: a bulkhead caps the calls in flight, every attempt has a connect and a read
+ * timeout, and a circuit breaker fails calls fast after repeated failures until a trial call
+ * succeeds. Timeouts, connection errors, 429 and 5xx responses are retried with jittered
+ * exponential backoff.
+ */
+@Component
+public class LlmClient implements AutoCloseable {
+
+    // How long a call may wait for the bulkhead before it is refused
+    private static final Duration BULKHEAD_WAIT = Duration.ofMillis(500);
+
+    private final Settings settings;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final Semaphore bulkhead;
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter rejected;
+
+    private int consecutiveFailures;
+    // System.nanoTime() until which the breaker is open, or 0 while it is closed
+    private long openUntil;
+    private boolean trialInFlight;
+
+    @Autowired
+    public LlmClient(@Value("${mcp.llm.url:https://generativelanguage.googleapis.com/v1beta/openai/chat/completions}") URI url,
+                     @Value("${spring.ai.google.genai.api-key}") String apiKey,
+                     @Value("${spring.ai.google.genai.chat.options.model:gemini-3-flash-preview}") String model,
+                     @Value("${spring.ai.google.genai.chat.options.temperature:0.1}") double temperature,
+                     @Value("${mcp.llm.connect-timeout:2s}") Duration connectTimeout,
+                     @Value("${mcp.llm.read-timeout:15s}") Duration readTimeout,
+                     @Value("${mcp.llm.max-concurrent:16}") int maxConcurrent,
+                     @Value("${mcp.llm.max-attempts:3}") int maxAttempts,
+                     @Value("${mcp.llm.backoff:200ms}") Duration backoff,
+                     @Value("${mcp.llm.breaker.failure-threshold:5}") int failureThreshold,
+                     @Value("${mcp.llm.breaker.open-duration:30s}") Duration openDuration,
+                     MeterRegistry meterRegistry) {
+        this(new Settings(url, apiKey, model, temperature, connectTimeout, readTimeout, maxConcurrent, maxAttempts,
+                backoff, failureThreshold, openDuration), meterRegistry);
+    }
+
+    LlmClient(Settings settings, MeterRegistry meterRegistry) {
+        if (settings.maxConcurrent() < 1 || settings.maxAttempts() < 1 || settings.failureThreshold() < 1) {
+            throw new IllegalArgumentException("LLM client limits must be at least 1.");
+        }
+        this.settings = settings;
+        this.bulkhead = new Semaphore(settings.maxConcurrent());
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(settings.connectTimeout())
+                .executor(executor)
+                .build();
+        this.succeeded = callCounter(meterRegistry, "success");
+        this.failed = callCounter(meterRegistry, "failure");
+        this.rejected = callCounter(meterRegistry, "rejected");
+    }
+
+    /**
+     * Sends {@code system} and {@code user} as a JSON-mode chat completion and returns the content
+     * of the first choice. Throws {@link UnavailableException} when the call is refused by the
+     * bulkhead or the circuit breaker, or still fails after all attempts.
+     */
+    public String chatJson(String system, String user) {
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(BULKHEAD_WAIT.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnavailableException("Interrupted while waiting for the LLM.");
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new UnavailableException("Too many LLM requests in progress, try again shortly.");
+        }
+        try {
+            Admission admission = allowCall();
+            if (admission == Admission.REFUSED) {
+                rejected.increment();
+                throw new UnavailableException("The LLM is unavailable, try again later.");
+            }
+            HttpResponse<String> response;
+            try {
+                response = sendWithRetries(request(system, user));
+            } catch (RuntimeException e) {
+                onCallEnd(admission, false);
+                throw e;
+            }
+            // A 4xx still means the LLM is up, so it does not count against the breaker
+            onCallEnd(admission, response != null);
+            if (response == null) {
+                failed.increment();
+                throw new UnavailableException("The LLM did not respond after " + settings.maxAttempts() + " attempts.");
+            }
+            if (response.statusCode() / 100 != 2) {
+                failed.increment();
+                throw new IllegalStateException("LLM returned HTTP " + response.statusCode() + ": " + response.body());
+            }
+            succeeded.increment();
+            return content(response.body());
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // Returns null when every attempt timed out, failed to connect or got a retryable status
+    private HttpResponse<String> sendWithRetries(HttpRequest request) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                if (!isRetryable(response.statusCode())) {
+                    return response;
+                }
+            } catch (IOException e) {
+                // Connect and read timeouts end up here as well
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            if (attempt >= settings.maxAttempts()) {
+                return null;
+            }
+            // Full jitter: anywhere up to the exponential backoff for this attempt
+            long bound = settings.backoff().toNanos() << Math.min(attempt - 1, 10);
+            try {
+                TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private HttpRequest request(String system, String user) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("model", settings.model());
+        body.put("temperature", settings.temperature());
+        body.put("response_format", Map.of("type", "json_object"));
+        body.put("messages", List.of(
+                Map.of("role", "system", "content", system),
+                Map.of("role", "user", "content", user)
+        ));
+        try {
+            return HttpRequest.newBuilder(settings.url())
+                    .timeout(settings.readTimeout())
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + settings.apiKey())
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write the LLM request", e);
+        }
+    }
+
+    private String content(String body) {
+        JsonNode response;
+        try {
+            response = mapper.readTree(body);
+        } catch (IOException e) {
+            throw new IllegalStateException("LLM response was not JSON: " + body);
+        }
+        JsonNode choices = response.path("choices");
+        if (!choices.isArray() || choices.isEmpty()) throw new IllegalStateException("LLM returned no choices");
+        JsonNode content = choices.get(0).path("message").path("content");
+        if (content.isMissingNode() || content.isNull()) throw new IllegalStateException("LLM returned empty content");
+        return content.asText();
+    }
+
+    // Closed: every call goes through. Open: none until openUntil, then a single trial call
+    private synchronized Admission allowCall() {
+        if (openUntil == 0) {
+            return Admission.CALL;
+        }
+        if (System.nanoTime() - openUntil < 0 || trialInFlight) {
+            return Admission.REFUSED;
+        }
+        trialInFlight = true;
+        return Admission.TRIAL;
+    }
+
+    // Only the trial itself ends the trial; calls let through before the breaker opened may still finish
+    private synchronized void onCallEnd(Admission admission, boolean reachedLlm) {
+        boolean trial = admission == Admission.TRIAL;
+        if (reachedLlm) {
+            consecutiveFailures = 0;
+            openUntil = 0;
+        } else if (++consecutiveFailures >= settings.failureThreshold() || trial) {
+            openUntil = System.nanoTime() + settings.openDuration().toNanos();
+        }
+        if (trial) {
+            trialInFlight = false;
+        }
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status / 100 == 5;
+    }
+
+    private static Counter callCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("mcp.llm.calls")
+                .description("LLM routing calls by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    record Settings(URI url, String apiKey, String model, double temperature, Duration connectTimeout,
+                    Duration readTimeout, int maxConcurrent, int maxAttempts, Duration backoff,
+                    int failureThreshold, Duration openDuration) {
+    }
+
+    // How the breaker let a call through; only a TRIAL may close or reopen a half-open breaker
+    private enum Admission { REFUSED, CALL, TRIAL }
+
+    /** The LLM could not be called right now; the caller may try again later. */
+    public static class UnavailableException extends IllegalStateException {
+
+        public UnavailableException(String message) {
+            super(message);
+        }
+    }
+}
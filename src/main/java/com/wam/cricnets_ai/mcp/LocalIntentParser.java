@@ -0,0 +1,430 @@
+package com.wam.cricnets_ai.mcp;
+
+import com.wam.cricnets_ai.model.BallType;
+import com.wam.cricnets_ai.model.LeatherBallOption;
+import com.wam.cricnets_ai.model.MachineType;
+import com.wam.cricnets_ai.model.WicketType;
+import com.wam.cricnets_ai.service.BookingSettingsService;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Rule-based router for the commands players type most: slots for a day or week, their own or
+ * upcoming bookings, booking a session and cancelling a booking. Dates, times, durations, wickets,
+ * ball types, emails and booking ids are taken out of the command first; every word left over must
+ * then be a known keyword or filler word, and the keywords must point to exactly one tool with all
+ * of its arguments. Anything else, including "next friday" and "outdoor" without a surface, is left
+ * to the LLM.
+ */
+@Component
+public class LocalIntentParser {
+
+    private static final Pattern EMAIL = Pattern.compile("\\b[a-z0-9._%+-]+@[a-z0-9.-]+\\.[a-z]{2,}\\b");
+    private static final Pattern ISO_DATE = Pattern.compile("\\b(?:on\\s+)?(\\d{4}-\\d{2}-\\d{2})\\b");
+    private static final Pattern NEXT_DAYS = Pattern.compile("\\b(?:for\\s+|in\\s+)?(?:the\\s+)?next\\s+(\\d{1,2})\\s+days\\b");
+    private static final Pattern WEEK = Pattern.compile("\\b(?:for\\s+|in\\s+)?(this|next)\\s+week\\b");
+    private static final Pattern RELATIVE_DAY = Pattern.compile("\\b(?:for\\s+|on\\s+)?(day after tomorrow|tomorrow|today|tonight)\\b");
+    private static final Pattern WEEKDAY = Pattern.compile(
+            "\\b(?:on\\s+)?(this\\s+|next\\s+)?(monday|tuesday|wednesday|thursday|friday|saturday|sunday|mon|tues|tue|wed|thurs|thur|thu|fri|sat|sun)\\b");
+    private static final String MONTHS = "january|february|march|april|may|june|july|august|september|october|november|december"
+            + "|jan|feb|mar|apr|jun|jul|aug|sept|sep|oct|nov|dec";
+    private static final Pattern DAY_MONTH = Pattern.compile(
+            "\\b(?:on\\s+)?(?:the\\s+)?(\\d{1,2})(?:st|nd|rd|th)?\\s+(?:of\\s+)?(" + MONTHS + ")\\b");
+    private static final Pattern MONTH_DAY = Pattern.compile(
+            "\\b(?:on\\s+)?(" + MONTHS + ")\\s+(\\d{1,2})(?:st|nd|rd|th)?\\b");
+    private static final Pattern TIME_12H = Pattern.compile("\\b(?:at\\s+)?(\\d{1,2})(?:[:.](\\d{2}))?\\s*(am|pm)\\b");
+    private static final Pattern TIME_24H = Pattern.compile("\\b(?:at\\s+)?([01]?\\d|2[0-3]):([0-5]\\d)\\b");
+    private static final Pattern NOON = Pattern.compile("\\b(?:at\\s+)?(?:12\\s+)?noon\\b");
+    private static final Pattern HOURS = Pattern.compile("\\b(?:for\\s+)?(an|one|two|three|\\d+(?:\\.5)?)\\s+(?:hours?|hrs?)\\b");
+    private static final Pattern HALF_HOUR = Pattern.compile("\\b(?:for\\s+)?half\\s+an\\s+hour\\b");
+    private static final Pattern MINUTES = Pattern.compile("\\b(?:for\\s+)?(\\d{2,3})\\s*(?:minutes?|mins?)\\b");
+    private static final Pattern NUMBER = Pattern.compile("(?:#|\\bno\\.?\\s*|\\bid\\s+)?\\b(\\d+)\\b");
+
+    // Longest first, so "indoor astro turf" is not read as "turf"
+    private static final Map<String, WicketType> WICKETS = phrases(
+            "indoor astro turf", WicketType.INDOOR_ASTRO_TURF, "indoor astroturf", WicketType.INDOOR_ASTRO_TURF,
+            "astro turf", WicketType.INDOOR_ASTRO_TURF, "astroturf", WicketType.INDOOR_ASTRO_TURF,
+            "astro", WicketType.INDOOR_ASTRO_TURF, "indoor", WicketType.INDOOR_ASTRO_TURF,
+            "outdoor cement", WicketType.OUTDOOR_CEMENT, "cement", WicketType.OUTDOOR_CEMENT,
+            "concrete", WicketType.OUTDOOR_CEMENT,
+            "outdoor turf", WicketType.OUTDOOR_TURF, "turf", WicketType.OUTDOOR_TURF, "grass", WicketType.OUTDOOR_TURF);
+    private static final Map<String, BallType> BALLS = phrases(
+            "tennis ball machine", BallType.TENNIS_MACHINE, "tennis machine", BallType.TENNIS_MACHINE,
+            "leather ball machine", BallType.LEATHER_MACHINE, "leather machine", BallType.LEATHER_MACHINE,
+            "leather ball", BallType.LEATHER, "leather", BallType.LEATHER,
+            "tennis ball", BallType.TENNIS, "tennis", BallType.TENNIS);
+
+    private static final Set<String> SLOT_WORDS = Set.of("slot", "slots", "available", "availability", "free", "open",
+            "vacant", "openings");
+    private static final Set<String> BOOKING_WORDS = Set.of("bookings", "booking", "booked", "reservations", "reservation");
+    private static final Set<String> BOOK_WORDS = Set.of("book", "reserve");
+    private static final Set<String> MINE = Set.of("my", "mine", "i", "im");
+    private static final Set<String> FILLER = Set.of("show", "me", "the", "a", "an", "for", "on", "at", "please", "pls",
+            "what", "whats", "which", "are", "is", "any", "there", "list", "get", "find", "check", "have", "do", "can",
+            "could", "you", "see", "view", "display", "all", "give", "tell", "about", "in", "of", "to", "with", "and",
+            "want", "would", "like", "need", "session", "sessions", "net", "nets", "wicket", "wickets", "pitch", "hi",
+            "hey", "ok", "okay", "lets", "us", "next", "upcoming", "cancel", "ball", "balls", "times", "left", "still",
+            "we", "lane", "lanes");
+
+    private final BookingSettingsService bookingSettingsService;
+
+    public LocalIntentParser(BookingSettingsService bookingSettingsService) {
+        this.bookingSettingsService = bookingSettingsService;
+    }
+
+    /**
+     * Resolves {@code command} to a tool call, or returns empty when the command is not one this
+     * parser understands completely. {@code userEmail} stands in for "my" and "I".
+     */
+    public Optional<Intent> parse(String command, String userEmail, LocalDateTime now) {
+        if (command == null || command.isBlank()) {
+            return Optional.empty();
+        }
+        Extraction x = new Extraction(normalize(command));
+        LocalDate today = now.toLocalDate();
+        // Emails first, as they may contain digits and month names
+        String email = x.takeFirst(EMAIL);
+        if (!x.extractDates(today) || !x.extractTime() || !x.extractDuration()) {
+            return Optional.empty();
+        }
+        x.extractPhrases(WICKETS, x.wickets);
+        x.extractPhrases(BALLS, x.balls);
+        Long id = x.extractId();
+
+        List<String> words = Arrays.stream(x.text.split("[^a-z]+")).filter(w -> !w.isEmpty()).toList();
+        for (String word : words) {
+            if (!FILLER.contains(word) && !SLOT_WORDS.contains(word) && !BOOKING_WORDS.contains(word)
+                    && !BOOK_WORDS.contains(word) && !MINE.contains(word)) {
+                return Optional.empty();
+            }
+        }
+        boolean cancel = words.contains("cancel");
+        boolean book = words.stream().anyMatch(BOOK_WORDS::contains);
+        boolean bookings = words.stream().anyMatch(BOOKING_WORDS::contains);
+        boolean slots = words.stream().anyMatch(SLOT_WORDS::contains);
+        boolean mine = words.stream().anyMatch(MINE::contains);
+
+        if (x.overflow) {
+            return Optional.empty();
+        }
+        if (cancel) {
+            return book || slots || x.hasSchedule() || !x.wickets.isEmpty() || !x.balls.isEmpty() || email != null
+                    ? Optional.empty() : cancelBooking(id);
+        }
+        if (id != null) {
+            return Optional.empty();
+        }
+        if (book) {
+            return bookings ? Optional.empty() : bookSession(x, email, userEmail);
+        }
+        if (bookings) {
+            if (slots || x.hasSchedule() || !x.wickets.isEmpty() || !x.balls.isEmpty()) {
+                return Optional.empty();
+            }
+            if (email != null || mine) {
+                String owner = email != null ? email : userEmail;
+                return owner == null ? Optional.empty() : Optional.of(new Intent("get_user_bookings", Map.of("email", owner)));
+            }
+            return words.contains("upcoming") ? Optional.of(new Intent("get_upcoming_bookings", Map.of())) : Optional.empty();
+        }
+        if (slots || x.from != null) {
+            if (x.time != null || x.duration != null || !x.balls.isEmpty() || email != null) {
+                return Optional.empty();
+            }
+            return availability(x, today);
+        }
+        return Optional.empty();
+    }
+
+    // Drops apostrophes and sentence punctuation, keeping what emails, times and dates are made of
+    private static String normalize(String command) {
+        return command.toLowerCase(Locale.ROOT)
+                .replaceAll("['\u2019]", "")
+                .replaceAll("[^a-z0-9@._%+:#\\-]", " ")
+                .replaceAll("[.]+(\\s|$)", " ");
+    }
+
+    private static Optional<Intent> cancelBooking(Long id) {
+        return id == null ? Optional.empty() : Optional.of(new Intent("cancel_booking", Map.of("bookingId", id)));
+    }
+
+    private Optional<Intent> bookSession(Extraction x, String email, String userEmail) {
+        // A machine leather session also needs the ball option, and "outdoor" alone names no surface
+        if (x.from == null || !x.from.equals(x.to) || x.time == null || x.wickets.size() != 1 || x.balls.size() != 1
+                || x.balls.contains(BallType.LEATHER_MACHINE) || userEmail == null
+                || (email != null && !email.equalsIgnoreCase(userEmail))) {
+            return Optional.empty();
+        }
+        BallType ballType = x.balls.iterator().next();
+        Map<String, Object> args = new LinkedHashMap<>();
+        args.put("startTime", x.from.atTime(x.time));
+        args.put("durationMinutes", x.duration != null ? x.duration : bookingSettingsService.current().slotDurationMinutes());
+        args.put("ballType", ballType);
+        args.put("wicketType", x.wickets.iterator().next());
+        args.put("machineType", ballType == BallType.TENNIS_MACHINE ? MachineType.TENNIS_BALL_MACHINE : MachineType.NONE);
+        args.put("leatherBallOption", LeatherBallOption.NONE);
+        args.put("selfOperated", false);
+        args.put("email", userEmail);
+        return Optional.of(new Intent("book_session", args));
+    }
+
+    private static Optional<Intent> availability(Extraction x, LocalDate today) {
+        LocalDate from = x.from != null ? x.from : today;
+        LocalDate to = x.to != null ? x.to : from;
+        if (from.equals(to) && x.wickets.size() == 1) {
+            return Optional.of(new Intent("get_available_slots",
+                    Map.of("date", from, "wicketType", x.wickets.iterator().next())));
+        }
+        Map<String, Object> args = new LinkedHashMap<>();
+        args.put("from", from);
+        args.put("to", to);
+        args.put("wickets", x.wickets.stream().map(Enum::name).collect(Collectors.joining(",")));
+        return Optional.of(new Intent("get_availability_grid", args));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Map<String, T> phrases(Object... pairs) {
+        Map<String, T> map = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            map.put((String) pairs[i], (T) pairs[i + 1]);
+        }
+        return map;
+    }
+
+    /**
+     * Text still to be read, and what has been taken out of it. Each entity found is replaced by a
+     * space, so the words around it stay apart.
+     */
+    private static final class Extraction {
+        private String text;
+        private LocalDate from;
+        private LocalDate to;
+        private LocalTime time;
+        private Integer duration;
+        private final Set<WicketType> wickets = EnumSet.noneOf(WicketType.class);
+        private final Set<BallType> balls = EnumSet.noneOf(BallType.class);
+        // More numbers or dates than the command can use
+        private boolean overflow;
+
+        private Extraction(String text) {
+            this.text = " " + text + " ";
+        }
+
+        private boolean hasSchedule() {
+            return from != null || time != null || duration != null;
+        }
+
+        // False when the command names a day in a way that is not certain, or names more than one
+        private boolean extractDates(LocalDate today) {
+            int found = 0;
+            Matcher m = NEXT_DAYS.matcher(text);
+            if (m.find()) {
+                int days = Integer.parseInt(m.group(1));
+                if (days < 1 || days > 31) {
+                    return false;
+                }
+                setRange(today, today.plusDays(days - 1));
+                text = remove(m);
+                found++;
+            }
+            m = WEEK.matcher(text);
+            if (m.find()) {
+                LocalDate monday = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                if (m.group(1).equals("next")) {
+                    setRange(monday.plusWeeks(1), monday.plusWeeks(1).plusDays(6));
+                } else {
+                    setRange(today, monday.plusDays(6));
+                }
+                text = remove(m);
+                found++;
+            }
+            m = ISO_DATE.matcher(text);
+            while (m.find()) {
+                try {
+                    setDay(LocalDate.parse(m.group(1)));
+                } catch (DateTimeException e) {
+                    return false;
+                }
+                text = remove(m);
+                m = ISO_DATE.matcher(text);
+                found++;
+            }
+            m = RELATIVE_DAY.matcher(text);
+            while (m.find()) {
+                setDay(switch (m.group(1)) {
+                    case "day after tomorrow" -> today.plusDays(2);
+                    case "tomorrow" -> today.plusDays(1);
+                    default -> today;
+                });
+                text = remove(m);
+                m = RELATIVE_DAY.matcher(text);
+                found++;
+            }
+            m = WEEKDAY.matcher(text);
+            while (m.find()) {
+                // "next friday" means different days to different people
+                if (m.group(1) != null && m.group(1).trim().equals("next")) {
+                    return false;
+                }
+                setDay(today.with(TemporalAdjusters.nextOrSame(weekday(m.group(2)))));
+                text = remove(m);
+                m = WEEKDAY.matcher(text);
+                found++;
+            }
+            for (Pattern pattern : List.of(DAY_MONTH, MONTH_DAY)) {
+                m = pattern.matcher(text);
+                while (m.find()) {
+                    boolean dayFirst = pattern == DAY_MONTH;
+                    int day = Integer.parseInt(m.group(dayFirst ? 1 : 2));
+                    Month month = month(m.group(dayFirst ? 2 : 1));
+                    LocalDate date;
+                    try {
+                        date = LocalDate.of(today.getYear(), month, day);
+                    } catch (DateTimeException e) {
+                        return false;
+                    }
+                    setDay(date.isBefore(today) ? date.plusYears(1) : date);
+                    text = remove(m);
+                    m = pattern.matcher(text);
+                    found++;
+                }
+            }
+            if (found > 1) {
+                overflow = true;
+            }
+            return true;
+        }
+
+        private boolean extractTime() {
+            Matcher m = TIME_12H.matcher(text);
+            if (m.find()) {
+                int hour = Integer.parseInt(m.group(1));
+                int minute = m.group(2) != null ? Integer.parseInt(m.group(2)) : 0;
+                if (hour < 1 || hour > 12 || minute > 59) {
+                    return false;
+                }
+                time = LocalTime.of(hour % 12 + (m.group(3).equals("pm") ? 12 : 0), minute);
+                text = remove(m);
+            } else if ((m = TIME_24H.matcher(text)).find()) {
+                time = LocalTime.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+                text = remove(m);
+            } else if ((m = NOON.matcher(text)).find()) {
+                time = LocalTime.NOON;
+                text = remove(m);
+            }
+            if (time != null && (TIME_12H.matcher(text).find() || TIME_24H.matcher(text).find())) {
+                overflow = true;
+            }
+            return true;
+        }
+
+        private boolean extractDuration() {
+            Matcher m = HALF_HOUR.matcher(text);
+            if (m.find()) {
+                duration = 30;
+                text = remove(m);
+            } else if ((m = HOURS.matcher(text)).find()) {
+                double hours = switch (m.group(1)) {
+                    case "an", "one" -> 1;
+                    case "two" -> 2;
+                    case "three" -> 3;
+                    default -> Double.parseDouble(m.group(1));
+                };
+                duration = (int) (hours * 60);
+                text = remove(m);
+            } else if ((m = MINUTES.matcher(text)).find()) {
+                duration = Integer.parseInt(m.group(1));
+                text = remove(m);
+            }
+            return duration == null || duration > 0;
+        }
+
+        private String takeFirst(Pattern pattern) {
+            Matcher m = pattern.matcher(text);
+            if (!m.find()) {
+                return null;
+            }
+            String value = m.group();
+            text = remove(m);
+            if (pattern.matcher(text).find()) {
+                overflow = true;
+            }
+            return value;
+        }
+
+        private <T> void extractPhrases(Map<String, T> phrases, Set<T> found) {
+            for (Map.Entry<String, T> phrase : phrases.entrySet()) {
+                String padded = " " + phrase.getKey() + " ";
+                while (text.contains(padded)) {
+                    found.add(phrase.getValue());
+                    text = text.replace(padded, "  ");
+                }
+            }
+        }
+
+        private Long extractId() {
+            Matcher m = NUMBER.matcher(text);
+            if (!m.find()) {
+                return null;
+            }
+            Long id;
+            try {
+                id = Long.valueOf(m.group(1));
+            } catch (NumberFormatException e) {
+                // Too long to be an id; leave it to the LLM
+                overflow = true;
+                return null;
+            }
+            text = remove(m);
+            if (NUMBER.matcher(text).find()) {
+                overflow = true;
+            }
+            return id;
+        }
+
+        private void setDay(LocalDate day) {
+            setRange(day, day);
+        }
+
+        private void setRange(LocalDate start, LocalDate end) {
+            from = start;
+            to = end;
+        }
+
+        private String remove(Matcher m) {
+            return text.substring(0, m.start()) + " " + text.substring(m.end());
+        }
+
+        private static DayOfWeek weekday(String name) {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (day.name().toLowerCase(Locale.ROOT).startsWith(name)) {
+                    return day;
+                }
+            }
+            throw new IllegalArgumentException(name);
+        }
+
+        private static Month month(String name) {
+            for (Month month : Month.values()) {
+                if (month.name().toLowerCase(Locale.ROOT).startsWith(name)) {
+                    return month;
+                }
+            }
+            throw new IllegalArgumentException(name);
+        }
+    }
+
+    public record Intent(String tool, Map<String, Object> args) {
+    }
+}
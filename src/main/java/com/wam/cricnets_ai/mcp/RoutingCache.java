@@ -0,0 +1,201 @@
+package com.wam.cricnets_ai.mcp;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded LRU cache of LLM routing decisions, keyed by the normalized command: lowercased, with
+ * whitespace collapsed and relative dates ("tomorrow", "friday") replaced by placeholders. Dates in
+ * the cached args are stored as the same placeholders and resolved against the current date on
+ * every hit, so "book turf tomorrow at 6pm" routed yesterday books the right day today. A decision
+ * is only cached when every date in its args is either a placeholder or written out in the command.
+ * All entries are dropped when the tool catalog changes.
+ */
+@Component
+public class RoutingCache {
+
+    private static final Pattern RELATIVE_DATE = Pattern.compile(
+            "\\b(day after tomorrow|tomorrow|today|tonight|monday|tuesday|wednesday|thursday|friday|saturday|sunday)\\b");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([a-z+0-9]+)}");
+    private static final Pattern DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+
+    private final Map<String, Entry> entries;
+    private int catalog;
+
+    public RoutingCache(@Value("${mcp.routing-cache.max-entries:1000}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached route for {@code command} with its dates resolved against {@code today},
+     * or empty on a miss. {@code catalog} identifies the current tool catalog.
+     */
+    public synchronized Optional<Route> get(String command, int catalog, LocalDate today) {
+        checkCatalog(catalog);
+        Entry entry = entries.get(normalize(command).key());
+        if (entry == null) {
+            return Optional.empty();
+        }
+        Map<String, LocalDate> dates = new HashMap<>();
+        for (String placeholder : entry.placeholders()) {
+            dates.put(placeholder, resolve(placeholder, today));
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> args = (Map<String, Object>) fill(entry.args(), dates);
+        return Optional.of(new Route(entry.tool(), args));
+    }
+
+    /**
+     * Caches the route the LLM chose for {@code command}, unless its args hold a date that cannot
+     * be tied to the command.
+     */
+    public synchronized void put(String command, int catalog, LocalDate today, String tool, Map<String, Object> args) {
+        checkCatalog(catalog);
+        Normalized normalized = normalize(command);
+        Map<String, String> byDate = new HashMap<>();
+        for (String placeholder : normalized.placeholders()) {
+            String date = resolve(placeholder, today).toString();
+            // Two placeholders on the same day (today is friday) leave the date ambiguous
+            byDate.put(date, byDate.containsKey(date) ? null : placeholder);
+        }
+        Object template = template(args, byDate, normalized.key());
+        if (template != null) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> templateArgs = (Map<String, Object>) template;
+            entries.put(normalized.key(), new Entry(tool, templateArgs, normalized.placeholders()));
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    static Normalized normalize(String command) {
+        String text = command.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ").replaceAll("[.!?]+$", "");
+        List<String> placeholders = new ArrayList<>();
+        Matcher matcher = RELATIVE_DATE.matcher(text);
+        StringBuilder key = new StringBuilder();
+        while (matcher.find()) {
+            String placeholder = switch (matcher.group(1)) {
+                case "today" -> "today";
+                case "tomorrow" -> "today+1";
+                case "day after tomorrow" -> "today+2";
+                default -> matcher.group(1);
+            };
+            if (!placeholders.contains(placeholder)) {
+                placeholders.add(placeholder);
+            }
+            matcher.appendReplacement(key, Matcher.quoteReplacement("{" + placeholder + "}"));
+        }
+        matcher.appendTail(key);
+        return new Normalized(key.toString(), List.copyOf(placeholders));
+    }
+
+    private void checkCatalog(int catalog) {
+        if (this.catalog != catalog) {
+            entries.clear();
+            this.catalog = catalog;
+        }
+    }
+
+    private static LocalDate resolve(String placeholder, LocalDate today) {
+        return switch (placeholder) {
+            case "today", "tonight" -> today;
+            case "today+1" -> today.plusDays(1);
+            case "today+2" -> today.plusDays(2);
+            default -> today.with(TemporalAdjusters.nextOrSame(DayOfWeek.valueOf(placeholder.toUpperCase(Locale.ROOT))));
+        };
+    }
+
+    // Returns null when a date in the args is neither a placeholder's nor written in the command
+    private static Object template(Object value, Map<String, String> byDate, String key) {
+        if (value instanceof String text) {
+            Matcher matcher = DATE.matcher(text);
+            StringBuilder out = new StringBuilder();
+            while (matcher.find()) {
+                String placeholder = byDate.get(matcher.group());
+                if (placeholder != null) {
+                    matcher.appendReplacement(out, Matcher.quoteReplacement("{" + placeholder + "}"));
+                } else if (byDate.containsKey(matcher.group()) || !key.contains(matcher.group())) {
+                    return null;
+                }
+            }
+            matcher.appendTail(out);
+            return out.toString();
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> out = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                Object templated = template(e.getValue(), byDate, key);
+                if (templated == null && e.getValue() != null) {
+                    return null;
+                }
+                out.put(String.valueOf(e.getKey()), templated);
+            }
+            return out;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> out = new ArrayList<>();
+            for (Object item : list) {
+                Object templated = template(item, byDate, key);
+                if (templated == null && item != null) {
+                    return null;
+                }
+                out.add(templated);
+            }
+            return out;
+        }
+        return value;
+    }
+
+    private static Object fill(Object value, Map<String, LocalDate> dates) {
+        if (value instanceof String text) {
+            Matcher matcher = PLACEHOLDER.matcher(text);
+            StringBuilder out = new StringBuilder();
+            while (matcher.find()) {
+                LocalDate date = dates.get(matcher.group(1));
+                matcher.appendReplacement(out, Matcher.quoteReplacement(date == null ? matcher.group() : date.toString()));
+            }
+            matcher.appendTail(out);
+            return out.toString();
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> out = new LinkedHashMap<>();
+            map.forEach((k, v) -> out.put(String.valueOf(k), fill(v, dates)));
+            return out;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> out = new ArrayList<>();
+            list.forEach(item -> out.add(fill(item, dates)));
+            return out;
+        }
+        return value;
+    }
+
+    record Normalized(String key, List<String> placeholders) {
+    }
+
+    public record Route(String tool, Map<String, Object> args) {
+    }
+
+    private record Entry(String tool, Map<String, Object> args, List<String> placeholders) {
+    }
+}
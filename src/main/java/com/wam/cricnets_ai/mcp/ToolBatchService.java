@@ -0,0 +1,125 @@
+package com.wam.cricnets_ai.mcp;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs several tool calls for one request. Consecutive read-only tools run concurrently, each on
+ * its own virtual thread; any other tool waits for the reads before it, runs alone on the request
+ * thread and is seen by the calls after it. Results come back in call order, with an error in
+ * place of the result for each call that failed.
+ */
+@Service
+public class ToolBatchService {
+
+    static final int MAX_CALLS = 20;
+
+    private final ToolRegistry registry;
+    private final Duration timeout;
+
+    public ToolBatchService(ToolRegistry registry, @Value("${mcp.batch.timeout:10s}") Duration timeout) {
+        this.registry = registry;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Reads still running when the batch's timeout is up are cancelled; a write that has started
+     * is left to finish, but none starts after the timeout.
+     */
+    public List<ToolResult> execute(List<ToolCall> calls) {
+        if (calls == null || calls.isEmpty()) {
+            return List.of();
+        }
+        if (calls.size() > MAX_CALLS) {
+            throw new IllegalArgumentException("A batch can have at most " + MAX_CALLS + " tool calls.");
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        ToolResult[] results = new ToolResult[calls.size()];
+        List<Integer> running = new ArrayList<>();
+        List<Future<Object>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (int i = 0; i < calls.size(); i++) {
+                ToolCall call = calls.get(i);
+                if (registry.isReadOnly(call.name())) {
+                    running.add(i);
+                    futures.add(executor.submit(DelegatingSecurityContextCallable.create(
+                            () -> registry.callTool(call.name(), args(call)), SecurityContextHolder.getContext())));
+                    continue;
+                }
+                awaitAll(calls, running, futures, results, deadline);
+                results[i] = System.nanoTime() - deadline < 0
+                        ? call(call)
+                        : ToolResult.failure(call.name(), "Not run: the batch timed out.");
+            }
+            awaitAll(calls, running, futures, results, deadline);
+        } finally {
+            // Do not wait for cancelled reads that ignore the interrupt
+            executor.shutdownNow();
+        }
+        return List.of(results);
+    }
+
+    private void awaitAll(List<ToolCall> calls, List<Integer> running, List<Future<Object>> futures,
+                          ToolResult[] results, long deadline) {
+        for (int j = 0; j < futures.size(); j++) {
+            String name = calls.get(running.get(j)).name();
+            Future<Object> future = futures.get(j);
+            ToolResult result;
+            try {
+                result = ToolResult.success(name, future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (ExecutionException e) {
+                result = ToolResult.failure(name, e.getCause().getMessage());
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                result = ToolResult.failure(name, "Timed out after " + timeout.toMillis() + " ms.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                result = ToolResult.failure(name, "Interrupted.");
+            }
+            results[running.get(j)] = result;
+        }
+        running.clear();
+        futures.clear();
+    }
+
+    private ToolResult call(ToolCall call) {
+        try {
+            return ToolResult.success(call.name(), registry.callTool(call.name(), args(call)));
+        } catch (RuntimeException e) {
+            return ToolResult.failure(call.name(), e.getMessage());
+        }
+    }
+
+    private static Map<String, Object> args(ToolCall call) {
+        return call.args() == null ? Map.of() : call.args();
+    }
+
+    public record ToolCall(String name, Map<String, Object> args) {
+    }
+
+    public record ToolResult(String name, boolean ok, Object result, String error) {
+
+        static ToolResult success(String name, Object result) {
+            return new ToolResult(name, true, result, null);
+        }
+
+        static ToolResult failure(String name, String error) {
+            return new ToolResult(name, false, null, error);
+        }
+    }
+}
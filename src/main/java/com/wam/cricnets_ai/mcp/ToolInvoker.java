@@ -0,0 +1,145 @@
+package com.wam.cricnets_ai.mcp;
+
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A tool method compiled once at registration: a method handle bound to the tool instance and
+ * taking an {@code Object[]}, plus one binder per parameter with its name and converter resolved
+ * up front. A call allocates only the argument array (and the sorted keys when a caller relies on
+ * the positional fallback).
+ */
+final class ToolInvoker {
+
+    private final MethodHandle handle;
+    private final String[] names;
+    private final Function<Object, Object>[] converters;
+
+    @SuppressWarnings("unchecked")
+    private ToolInvoker(MethodHandle handle, Parameter[] params) {
+        this.handle = handle;
+        this.names = new String[params.length];
+        this.converters = new Function[params.length];
+        for (int i = 0; i < params.length; i++) {
+            names[i] = params[i].getName();
+            converters[i] = converterFor(params[i].getType());
+        }
+    }
+
+    static ToolInvoker compile(Object instance, Method method) {
+        try {
+            method.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(method)
+                    .bindTo(instance)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            return new ToolInvoker(handle, method.getParameters());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access tool method " + method, e);
+        }
+    }
+
+    /**
+     * Binds {@code args} by parameter name, ignoring case. A parameter with no matching key takes
+     * the value at its position among the keys in sorted order, for callers that only know
+     * {@code arg0}, {@code arg1}, ...
+     */
+    Object[] bind(Map<String, Object> args) {
+        Object[] bound = new Object[names.length];
+        String[] sortedKeys = null;
+        for (int i = 0; i < names.length; i++) {
+            Object raw = lookup(args, names[i]);
+            if (raw == null) {
+                if (sortedKeys == null) {
+                    sortedKeys = args.keySet().toArray(new String[0]);
+                    Arrays.sort(sortedKeys);
+                }
+                if (i < sortedKeys.length) {
+                    raw = args.get(sortedKeys[i]);
+                }
+            }
+            bound[i] = converters[i].apply(raw);
+        }
+        return bound;
+    }
+
+    Object invoke(Object[] bound) throws Throwable {
+        return (Object) handle.invokeExact(bound);
+    }
+
+    private static Object lookup(Map<String, Object> args, String name) {
+        Object raw = args.get(name);
+        if (raw != null) {
+            return raw;
+        }
+        for (Map.Entry<String, Object> entry : args.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static Function<Object, Object> converterFor(Class<?> type) {
+        Class<?> target = ClassUtils.resolvePrimitiveIfNecessary(type);
+        Function<Object, Object> convert = conversionTo(target);
+        boolean primitive = type.isPrimitive();
+        return raw -> {
+            if (raw == null) {
+                if (primitive) {
+                    throw new IllegalArgumentException("Missing value for " + type.getName() + " parameter");
+                }
+                return null;
+            }
+            return target.isInstance(raw) ? raw : convert.apply(raw);
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Function<Object, Object> conversionTo(Class<?> target) {
+        if (target == String.class) {
+            return String::valueOf;
+        }
+        if (target == Long.class) {
+            return raw -> raw instanceof Number n ? n.longValue() : Long.parseLong(String.valueOf(raw));
+        }
+        if (target == Integer.class) {
+            return raw -> raw instanceof Number n ? n.intValue() : Integer.parseInt(String.valueOf(raw));
+        }
+        if (target == Double.class) {
+            return raw -> raw instanceof Number n ? n.doubleValue() : Double.parseDouble(String.valueOf(raw));
+        }
+        if (target == Boolean.class) {
+            return raw -> Boolean.parseBoolean(String.valueOf(raw));
+        }
+        if (target == LocalDate.class) {
+            return raw -> LocalDate.parse(String.valueOf(raw));
+        }
+        if (target == LocalDateTime.class) {
+            return raw -> {
+                try {
+                    return LocalDateTime.parse(String.valueOf(raw));
+                } catch (DateTimeParseException e) {
+                    // Try LocalDate + start of day if it's just a date
+                    return LocalDate.parse(String.valueOf(raw)).atStartOfDay();
+                }
+            };
+        }
+        if (target.isEnum()) {
+            return raw -> Enum.valueOf((Class<Enum>) target, String.valueOf(raw));
+        }
+        // Fallback: return raw and hope for compatible type (e.g., Map -> DTO handled by callee)
+        return Function.identity();
+    }
+}
@@ -5,12 +5,8 @@ import org.springaicommunity.mcp.annotation.McpTool;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ClassUtils;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -19,9 +15,9 @@ public class ToolRegistry {
 
     private final BookingMcpTools bookingMcpTools;
     private final AdminMcpTools adminMcpTools;
-    private final Map<String, Method> tools = new ConcurrentHashMap<>();
+    private final Map<String, ToolInvoker> tools = new ConcurrentHashMap<>();
     private final Map<String, ToolSpec> specs = new ConcurrentHashMap<>();
-    private final Map<String, Object> toolInstances = new ConcurrentHashMap<>();
+    private final Set<String> readOnlyTools = ConcurrentHashMap.newKeySet();
 
     public ToolRegistry(BookingMcpTools bookingMcpTools, AdminMcpTools adminMcpTools) {
         this.bookingMcpTools = bookingMcpTools;
@@ -35,10 +31,11 @@ public class ToolRegistry {
         for (Method m : userClass.getDeclaredMethods()) {
             McpTool ann = m.getAnnotation(McpTool.class);
             if (ann != null) {
-                m.setAccessible(true);
-                tools.put(ann.name(), m);
+                tools.put(ann.name(), ToolInvoker.compile(instance, m));
                 specs.put(ann.name(), toSpec(ann, m));
-                toolInstances.put(ann.name(), instance);
+                if (ann.annotations().readOnlyHint()) {
+                    readOnlyTools.add(ann.name());
+                }
             }
         }
     }
@@ -65,94 +62,29 @@ public class ToolRegistry {
         return list;
     }
 
+    // Tools without the read-only hint, and unknown names, count as writes
+    public boolean isReadOnly(String toolName) {
+        return readOnlyTools.contains(toolName);
+    }
+
     public Object callTool(String toolName, Map<String, Object> args) {
-        Method m = tools.get(toolName);
-        if (m == null) {
+        ToolInvoker invoker = tools.get(toolName);
+        if (invoker == null) {
             throw new IllegalArgumentException("Unknown tool: " + toolName);
         }
+        Object[] bound;
         try {
-            Object[] resolved = resolveArguments(m, args == null ? Map.of() : args);
-            Object instance = toolInstances.get(toolName);
-            return m.invoke(instance, resolved);
-        } catch (InvocationTargetException e) {
-            Throwable cause = e.getTargetException();
-            if (cause instanceof RuntimeException re) {
-                throw re;
-            }
-            throw new RuntimeException("Tool execution failed: " + cause.getMessage(), cause);
+            bound = invoker.bind(args == null ? Map.of() : args);
         } catch (Exception e) {
-            throw new RuntimeException("Failed to call tool '" + toolName + "'", e);
-        }
-    }
-
-    private Object[] resolveArguments(Method m, Map<String, Object> args) {
-        Parameter[] params = m.getParameters();
-        Object[] resolved = new Object[params.length];
-        Map<String, Object> lowerArgs = new HashMap<>();
-        args.forEach((k, v) -> lowerArgs.put(k.toLowerCase(Locale.ROOT), v));
-        
-        for (int i = 0; i < params.length; i++) {
-            Parameter p = params[i];
-            String name = p.getName();
-            Class<?> type = p.getType();
-            Object raw = lowerArgs.get(name.toLowerCase(Locale.ROOT));
-
-            if (raw == null) {
-                // Positional fallback
-                List<String> sortedKeys = new ArrayList<>(args.keySet());
-                Collections.sort(sortedKeys);
-                if (i < sortedKeys.size()) {
-                    raw = args.get(sortedKeys.get(i));
-                }
-            }
-
-            resolved[i] = convert(raw, type);
+            throw new IllegalArgumentException("Failed to call tool '" + toolName + "'", e);
         }
-        return resolved;
-    }
-
-    private Object convert(Object raw, Class<?> target) {
-        if (raw == null) {
-            return null;
-        }
-        if (target.isInstance(raw)) {
-            return raw;
-        }
-        if (target == String.class) {
-            return String.valueOf(raw);
-        }
-        if ((target == Long.class || target == long.class)) {
-            if (raw instanceof Number n) return n.longValue();
-            return Long.parseLong(String.valueOf(raw));
-        }
-        if ((target == Integer.class || target == int.class)) {
-            if (raw instanceof Number n) return n.intValue();
-            return Integer.parseInt(String.valueOf(raw));
-        }
-        if ((target == Double.class || target == double.class)) {
-            if (raw instanceof Number n) return n.doubleValue();
-            return Double.parseDouble(String.valueOf(raw));
-        }
-        if ((target == Boolean.class || target == boolean.class)) {
-            if (raw instanceof Boolean b) return b;
-            return Boolean.parseBoolean(String.valueOf(raw));
-        }
-        if (target == LocalDate.class) {
-            return LocalDate.parse(String.valueOf(raw));
-        }
-        if (target == LocalDateTime.class) {
-            try {
-                return LocalDateTime.parse(String.valueOf(raw));
-            } catch (DateTimeParseException e) {
-                // Try LocalDate + start of day if it's just a date
-                return LocalDate.parse(String.valueOf(raw)).atStartOfDay();
-            }
-        }
-        if (target.isEnum()) {
-            return Enum.valueOf((Class<Enum>) target, String.valueOf(raw));
+        try {
+            return invoker.invoke(bound);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable cause) {
+            throw new RuntimeException("Tool execution failed: " + cause.getMessage(), cause);
         }
-        // Fallback: return raw and hope for compatible type (e.g., Map -> DTO handled by callee)
-        return raw;
     }
 
     public record ToolSpec(String name, String description, List<ParamSpec> params) {
@@ -5,12 +5,19 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "bookings", indexes = {
-        @Index(name = "idx_booking_times", columnList = "startTime, endTime")
+        @Index(name = "idx_booking_times", columnList = "startTime, endTime"),
+        // Keyset pagination seeks on (startTime, id), optionally behind an equality filter
+        @Index(name = "idx_booking_start_id", columnList = "startTime, id"),
+        @Index(name = "idx_booking_user_start_id", columnList = "userEmail, startTime, id"),
+        @Index(name = "idx_booking_wicket_start_id", columnList = "wicketType, startTime, id"),
+        @Index(name = "idx_booking_status_start_id", columnList = "status, startTime, id")
 })
 public class Booking {
 
+    // Pooled sequence so multi-slot bookings can be inserted as one JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,27 @@
+package com.wam.cricnets_ai.repository;
+
+import com.wam.cricnets_ai.model.BookingStatus;
+import com.wam.cricnets_ai.model.MachineType;
+import com.wam.cricnets_ai.model.WicketType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters for {@link BookingRepositoryCustom#findPage}; {@code null} means "any". The
+ * start time range is {@code [from, to)}.
+ */
+public record BookingFilter(LocalDateTime from, LocalDateTime to, WicketType wicketType, BookingStatus status,
+                            String userEmail, MachineType machineType) {
+
+    public static BookingFilter none() {
+        return new BookingFilter(null, null, null, null, null, null);
+    }
+
+    public static BookingFilter forUser(String userEmail) {
+        return new BookingFilter(null, null, null, null, userEmail, null);
+    }
+
+    public static BookingFilter startingFrom(LocalDateTime from) {
+        return new BookingFilter(from, null, null, null, null, null);
+    }
+}
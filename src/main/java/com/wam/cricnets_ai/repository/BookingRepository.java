@@ -1,35 +1,56 @@
 package com.wam.cricnets_ai.repository;
 
 import com.wam.cricnets_ai.model.Booking;
-import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT b FROM Booking b WHERE b.startTime < :endTime AND b.endTime > :startTime AND b.wicketType = :wicketType AND b.status != 'CANCELLED'")
-    List<Booking> findOverlappingBookingsForUpdate(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime, @Param("wicketType") com.wam.cricnets_ai.model.WicketType wicketType);
-
-    @Query("SELECT b FROM Booking b WHERE b.startTime < :endTime AND b.endTime > :startTime AND b.wicketType = :wicketType AND b.status != 'CANCELLED'")
-    List<Booking> findOverlappingBookings(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime, @Param("wicketType") com.wam.cricnets_ai.model.WicketType wicketType);
-
-    @Query("SELECT b FROM Booking b WHERE b.startTime < :endTime AND b.endTime > :startTime AND b.status != 'CANCELLED'")
-    List<Booking> findAllOverlappingBookings(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
 
     @Query("SELECT b FROM Booking b WHERE b.startTime >= :dayStart AND b.startTime < :dayEnd AND b.wicketType = :wicketType AND b.status != 'CANCELLED'")
     List<Booking> findBookingsByDay(@Param("dayStart") LocalDateTime dayStart, @Param("dayEnd") LocalDateTime dayEnd, @Param("wicketType") com.wam.cricnets_ai.model.WicketType wicketType);
 
 
-    @Query("SELECT b FROM Booking b WHERE b.userEmail = :email")
-    List<Booking> findByUserEmail(@Param("email") String email);
-
-    List<Booking> findByStartTimeAfterOrderByStartTimeAsc(LocalDateTime now);
+    // Bounded on startTime so only partitions from the current month onwards are scanned
+    @Query("SELECT b FROM Booking b WHERE b.startTime >= :from AND b.status != 'CANCELLED'")
+    List<Booking> findActiveBookingsStartingFrom(@Param("from") LocalDateTime from);
+
+    // Archived sessions still count; status comes back as its name
+    @Query(value = """
+            SELECT status, COUNT(*) FROM (
+                SELECT status FROM bookings UNION ALL SELECT status FROM bookings_archive) b
+            GROUP BY status""", nativeQuery = true)
+    List<Object[]> countByStatus();
+
+    @Query(value = "SELECT * FROM bookings_archive WHERE id = :id", nativeQuery = true)
+    Optional<Booking> findArchivedById(@Param("id") Long id);
+
+    // One row per distinct start time, so the result is bounded by the number of future slots
+    @Query("SELECT b.startTime, COUNT(b) FROM Booking b WHERE b.startTime > :now AND b.status <> 'CANCELLED' GROUP BY b.startTime")
+    List<Object[]> countActiveByStartTimeAfter(@Param("now") LocalDateTime now);
+
+    // Rows are pulled from a server-side cursor in batches; the caller must consume it inside a transaction.
+    // Archived sessions are exported too; statuses are passed as their names
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT " + BookingRepositoryCustomImpl.COLUMNS + " FROM bookings"
+            + " WHERE start_time >= :from AND start_time < :to AND status IN (:statuses)"
+            + " UNION ALL SELECT " + BookingRepositoryCustomImpl.COLUMNS + " FROM bookings_archive"
+            + " WHERE start_time >= :from AND start_time < :to AND status IN (:statuses)"
+            + " ORDER BY start_time, id", nativeQuery = true)
+    Stream<Booking> streamForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                    @Param("statuses") Collection<String> statuses);
 }
@@ -0,0 +1,15 @@
+package com.wam.cricnets_ai.repository;
+
+import com.wam.cricnets_ai.model.Booking;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+
+    /**
+     * Up to {@code limit} bookings matching {@code filter}, ordered by (startTime, id) and starting
+     * strictly after the given position; pass {@code null}s for the first page.
+     */
+    List<Booking> findPage(BookingFilter filter, LocalDateTime afterStartTime, Long afterId, int limit);
+}
@@ -0,0 +1,75 @@
+package com.wam.cricnets_ai.repository;
+
+import com.wam.cricnets_ai.model.Booking;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset pagination: seeks past the last (startTime, id) seen instead of using OFFSET, so every page
+ * costs the same however deep it is. Backed by the composite indexes declared on {@link Booking}.
+ * Pages read {@code bookings} and {@code bookings_archive} together, so archived sessions stay in a
+ * user's history.
+ */
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+
+    // The archive has every column of bookings except the generated period
+    static final String COLUMNS = "id, start_time, end_time, ball_type, wicket_type, machine_type, "
+            + "leather_ball_option, self_operated, player_name, status, user_email";
+
+    private final EntityManager entityManager;
+
+    public BookingRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Booking> findPage(BookingFilter filter, LocalDateTime afterStartTime, Long afterId, int limit) {
+        List<String> where = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (filter.from() != null) {
+            where.add("start_time >= :from");
+            parameters.put("from", filter.from());
+        }
+        if (filter.to() != null) {
+            where.add("start_time < :to");
+            parameters.put("to", filter.to());
+        }
+        if (filter.wicketType() != null) {
+            where.add("wicket_type = :wicketType");
+            parameters.put("wicketType", filter.wicketType().name());
+        }
+        if (filter.status() != null) {
+            where.add("status = :status");
+            parameters.put("status", filter.status().name());
+        }
+        if (filter.userEmail() != null) {
+            where.add("user_email = :userEmail");
+            parameters.put("userEmail", filter.userEmail());
+        }
+        if (filter.machineType() != null) {
+            where.add("machine_type = :machineType");
+            parameters.put("machineType", filter.machineType().name());
+        }
+        if (afterStartTime != null && afterId != null) {
+            where.add("(start_time, id) > (:afterStartTime, :afterId)");
+            parameters.put("afterStartTime", afterStartTime);
+            parameters.put("afterId", afterId);
+        }
+
+        String condition = where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where);
+        Query query = entityManager.createNativeQuery(
+                "SELECT " + COLUMNS + " FROM bookings" + condition
+                        + " UNION ALL SELECT " + COLUMNS + " FROM bookings_archive" + condition
+                        + " ORDER BY start_time, id LIMIT :limit", Booking.class);
+        parameters.forEach(query::setParameter);
+        @SuppressWarnings("unchecked")
+        List<Booking> page = query.setParameter("limit", limit).getResultList();
+        return page;
+    }
+}
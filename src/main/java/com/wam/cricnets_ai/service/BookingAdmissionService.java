@@ -0,0 +1,262 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.config.BookingConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Virtual waiting room in front of booking writes. Requests pass straight through while permits
+ * last (up to {@code burst}, refilled at {@code permitsPerSecond}); once they run out, callers join a
+ * bounded FIFO queue that is drained at that rate. A caller that is not admitted within
+ * {@code maxWait} gets its ticket, position and estimated wait back, and keeps its place: retrying
+ * with the ticket after it has been admitted goes straight through.
+ */
+@Service
+public class BookingAdmissionService {
+
+    public enum Status {
+        ADMITTED,
+        QUEUED,
+        USER_LIMIT,
+        QUEUE_FULL
+    }
+
+    private final BookingConfig.Admission config;
+    private final LongSupplier nanoTime;
+    private final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+    // Queued tickets plus admitted ones not yet claimed by their caller
+    private final Map<UUID, Ticket> tickets = new HashMap<>();
+    private final Map<String, Integer> ticketsPerUser = new HashMap<>();
+    private double permits;
+    private long lastRefill;
+
+    private final Timer waitTimer;
+    private final Counter admittedCounter;
+    private final Counter sentBackCounter;
+    private final Counter userLimitCounter;
+    private final Counter queueFullCounter;
+
+    @Autowired
+    public BookingAdmissionService(BookingConfig bookingConfig, MeterRegistry meterRegistry) {
+        this(bookingConfig.getAdmission(), meterRegistry, System::nanoTime);
+    }
+
+    BookingAdmissionService(BookingConfig.Admission config, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.config = config;
+        this.nanoTime = nanoTime;
+        this.permits = config.getBurst();
+        this.lastRefill = nanoTime.getAsLong();
+        Gauge.builder("booking.admission.queue.depth", this, BookingAdmissionService::queueDepth)
+                .description("Booking requests waiting for admission")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("booking.admission.wait")
+                .description("Time from joining the queue to admission")
+                .register(meterRegistry);
+        this.admittedCounter = outcome(meterRegistry, "admitted");
+        this.sentBackCounter = outcome(meterRegistry, "queued");
+        this.userLimitCounter = outcome(meterRegistry, "user_limit");
+        this.queueFullCounter = outcome(meterRegistry, "queue_full");
+    }
+
+    /**
+     * Admits the caller, blocking for at most {@code maxWait}. {@code ticketId} is the ticket from an
+     * earlier {@link Status#QUEUED} answer, if any; an unknown or foreign ticket joins the back again.
+     */
+    public Decision admit(String user, UUID ticketId) throws InterruptedException {
+        Ticket ticket;
+        synchronized (this) {
+            refill();
+            ticket = ticketId == null ? null : tickets.get(ticketId);
+            if (ticket != null && !ticket.user.equals(user)) {
+                ticket = null;
+            }
+            if (ticket == null) {
+                if (queue.isEmpty() && permits >= 1) {
+                    permits--;
+                    admittedCounter.increment();
+                    waitTimer.record(Duration.ZERO);
+                    return Decision.admitted();
+                }
+                if (ticketsPerUser.getOrDefault(user, 0) >= config.getPerUserLimit()) {
+                    userLimitCounter.increment();
+                    return new Decision(Status.USER_LIMIT, null, 0, estimatedWait(queue.size()));
+                }
+                if (queue.size() >= config.getMaxQueue()) {
+                    queueFullCounter.increment();
+                    return new Decision(Status.QUEUE_FULL, null, 0, estimatedWait(queue.size()));
+                }
+                ticket = new Ticket(UUID.randomUUID(), user, nanoTime.getAsLong());
+                queue.addLast(ticket);
+                tickets.put(ticket.id, ticket);
+                ticketsPerUser.merge(user, 1, Integer::sum);
+            }
+        }
+        ticket.admission.await(config.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+        synchronized (this) {
+            if (ticket.admitted) {
+                release(ticket);
+                admittedCounter.increment();
+                waitTimer.record(ticket.admittedAt - ticket.queuedAt, TimeUnit.NANOSECONDS);
+                return Decision.admitted();
+            }
+            sentBackCounter.increment();
+            int position = position(ticket);
+            return new Decision(Status.QUEUED, ticket.id, position, estimatedWait(position));
+        }
+    }
+
+    /**
+     * {@link #admit} for callers that have no way to hand a ticket back, such as MCP tools. A caller
+     * that is not admitted within {@code maxWait} leaves the queue and gets a {@link RefusedException}
+     * with its position and estimated wait; a retry joins the back again.
+     */
+    public void admitOrRefuse(String user) {
+        Decision decision;
+        try {
+            decision = admit(user, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for admission.", e);
+        }
+        if (decision.status() == Status.QUEUED) {
+            synchronized (this) {
+                Ticket ticket = tickets.get(decision.ticket());
+                if (ticket != null && ticket.admitted) {
+                    // Let in between the wait and here
+                    release(ticket);
+                    return;
+                }
+                if (ticket != null) {
+                    queue.remove(ticket);
+                    release(ticket);
+                }
+            }
+        }
+        if (decision.status() != Status.ADMITTED) {
+            throw new RefusedException(decision);
+        }
+    }
+
+    /**
+     * Hands accrued permits to the head of the queue and drops admitted tickets whose caller did not
+     * come back within {@code claimWindow}.
+     */
+    @Scheduled(fixedRate = 100)
+    public synchronized void drain() {
+        refill();
+        long now = nanoTime.getAsLong();
+        while (permits >= 1 && !queue.isEmpty()) {
+            Ticket ticket = queue.pollFirst();
+            permits--;
+            ticket.admitted = true;
+            ticket.admittedAt = now;
+            ticket.admission.countDown();
+        }
+        long claimWindow = config.getClaimWindow().toNanos();
+        tickets.values().removeIf(ticket -> {
+            boolean expired = ticket.admitted && now - ticket.admittedAt > claimWindow;
+            if (expired) {
+                ticketsPerUser.computeIfPresent(ticket.user, (user, count) -> count > 1 ? count - 1 : null);
+            }
+            return expired;
+        });
+    }
+
+    public synchronized int queueDepth() {
+        return queue.size();
+    }
+
+    private void refill() {
+        long now = nanoTime.getAsLong();
+        double accrued = (now - lastRefill) / 1e9 * config.getPermitsPerSecond();
+        permits = Math.min(config.getBurst(), permits + accrued);
+        lastRefill = now;
+    }
+
+    private void release(Ticket ticket) {
+        if (tickets.remove(ticket.id) != null) {
+            ticketsPerUser.computeIfPresent(ticket.user, (user, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    // 1-based; a linear scan is fine for a queue bounded at maxQueue
+    private int position(Ticket ticket) {
+        int position = 1;
+        for (Ticket queued : queue) {
+            if (queued == ticket) {
+                return position;
+            }
+            position++;
+        }
+        return 0;
+    }
+
+    private Duration estimatedWait(int position) {
+        double perSecond = Math.max(config.getPermitsPerSecond(), 0.001);
+        return Duration.ofMillis((long) Math.ceil(position / perSecond * 1000));
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("booking.admission.requests")
+                .description("Booking requests by admission outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public record Decision(Status status, UUID ticket, int position, Duration estimatedWait) {
+
+        static Decision admitted() {
+            return new Decision(Status.ADMITTED, null, 0, Duration.ZERO);
+        }
+    }
+
+    /** A booking write sent back by the waiting room; the caller may retry after the estimated wait. */
+    public static class RefusedException extends RuntimeException {
+
+        private final Decision decision;
+
+        public RefusedException(Decision decision) {
+            super(decision.status() == Status.QUEUE_FULL
+                    ? "Booking is very busy right now. Please try again shortly."
+                    : decision.status() == Status.USER_LIMIT
+                    ? "You already have the maximum number of booking requests in the queue."
+                    : "Booking is busy: you were number " + decision.position() + " in the queue. Please try again in "
+                    + Math.max(1, decision.estimatedWait().toSeconds()) + " seconds.");
+            this.decision = decision;
+        }
+
+        public Decision decision() {
+            return decision;
+        }
+    }
+
+    private static final class Ticket {
+        private final UUID id;
+        private final String user;
+        private final long queuedAt;
+        private final CountDownLatch admission = new CountDownLatch(1);
+        // Guarded by the service's lock; set when the ticket leaves the queue
+        private boolean admitted;
+        private long admittedAt;
+
+        private Ticket(UUID id, String user, long queuedAt) {
+            this.id = id;
+            this.user = user;
+            this.queuedAt = queuedAt;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.config.PostgresNotificationHandler;
+import com.wam.cricnets_ai.model.WicketType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Carries {@link SlotChange}s between nodes. Each change is sent with {@code pg_notify} from inside
+ * the writing transaction, which Postgres only delivers once it commits; other nodes apply it to
+ * their {@link SlotOccupancyIndex} and forward it to their slot stream subscribers.
+ */
+@Component
+public class BookingChangeRelay implements PostgresNotificationHandler {
+
+    static final String CHANNEL = "booking_changes";
+    private static final String NODE_ID = UUID.randomUUID().toString();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SlotOccupancyIndex slotOccupancyIndex;
+    private final SlotStreamService slotStreamService;
+
+    public BookingChangeRelay(JdbcTemplate jdbcTemplate, SlotOccupancyIndex slotOccupancyIndex,
+                              SlotStreamService slotStreamService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.slotOccupancyIndex = slotOccupancyIndex;
+        this.slotStreamService = slotStreamService;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void send(SlotChange change) {
+        if (change.wicketType() == null || change.startTime() == null || change.endTime() == null) {
+            return;
+        }
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, encode(NODE_ID, change));
+    }
+
+    @Override
+    public String channel() {
+        return CHANNEL;
+    }
+
+    @Override
+    public void onNotification(String payload) {
+        String[] parts = payload.split("\\|", -1);
+        if (parts.length != 6 || NODE_ID.equals(parts[0])) {
+            // This node already applied its own changes when it committed them
+            return;
+        }
+        SlotChange change = new SlotChange(WicketType.valueOf(parts[2]), LocalDateTime.parse(parts[3]),
+                LocalDateTime.parse(parts[4]), !"F".equals(parts[1]), decodePools(parts[5]), "S".equals(parts[1]));
+        slotOccupancyIndex.apply(change);
+        slotStreamService.publish(change);
+    }
+
+    // Changes made elsewhere while the listener was down are lost, so start again from the database
+    @Override
+    public void onListening() {
+        slotOccupancyIndex.rebuild();
+    }
+
+    static String encode(String nodeId, SlotChange change) {
+        String kind = change.statusOnly() ? "S" : change.booked() ? "B" : "F";
+        return String.join("|", nodeId, kind, change.wicketType().name(),
+                change.startTime().toString(), change.endTime().toString(),
+                change.pools().stream().map(ResourcePool::name).collect(Collectors.joining(",")));
+    }
+
+    private static List<ResourcePool> decodePools(String pools) {
+        return pools.isEmpty() ? List.of() : Arrays.stream(pools.split(",")).map(ResourcePool::new).toList();
+    }
+}
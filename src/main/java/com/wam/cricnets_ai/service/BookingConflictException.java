@@ -0,0 +1,12 @@
+package com.wam.cricnets_ai.service;
+
+/**
+ * A booking request that is valid but cannot be served as asked: the wicket is booked or held, or a
+ * machine or operator pool is full. Answered with 409 rather than treated as a server failure.
+ */
+public class BookingConflictException extends RuntimeException {
+
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,175 @@
+package com.wam.cricnets_ai.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.wam.cricnets_ai.model.Booking;
+import com.wam.cricnets_ai.model.BookingStatus;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the booking history as NDJSON or CSV straight from a database cursor. Each row is written
+ * and detached before the next is read, so memory stays flat however many rows match.
+ */
+@Service
+public class BookingExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    // Postgres timestamps cannot hold LocalDateTime.MIN/MAX, so open ends use these instead
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final int FLUSH_EVERY = 100;
+    private static final String[] CSV_HEADER = {"id", "startTime", "endTime", "wicketType", "ballType", "machineType",
+            "leatherBallOption", "selfOperated", "status", "playerName", "userEmail"};
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final BookingRepository bookingRepository;
+    private final EntityManager entityManager;
+
+    public BookingExportService(BookingRepository bookingRepository, EntityManager entityManager) {
+        this.bookingRepository = bookingRepository;
+        this.entityManager = entityManager;
+    }
+
+    public static void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !to.isAfter(from)) {
+            throw new IllegalArgumentException("'to' must be after 'from'.");
+        }
+    }
+
+    /**
+     * Streams every booking starting in {@code [from, to)} with one of {@code statuses} to {@code out};
+     * {@code null} or empty arguments mean "no restriction".
+     */
+    @Transactional(readOnly = true)
+    public void export(LocalDateTime from, LocalDateTime to, Collection<BookingStatus> statuses, Format format,
+                       OutputStream out) throws IOException {
+        validateRange(from, to);
+        Collection<BookingStatus> matching = statuses == null || statuses.isEmpty()
+                ? EnumSet.allOf(BookingStatus.class)
+                : statuses;
+        try (Stream<Booking> rows = bookingRepository.streamForExport(
+                from != null ? from : EARLIEST, to != null ? to : LATEST, matching.stream().map(Enum::name).toList())) {
+            if (format == Format.CSV) {
+                writeCsv(rows.iterator(), out);
+            } else {
+                writeNdjson(rows.iterator(), out);
+            }
+        }
+    }
+
+    private void writeNdjson(Iterator<Booking> rows, OutputStream out) throws IOException {
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out)) {
+            json.setRootValueSeparator(null);
+            int written = 0;
+            while (rows.hasNext()) {
+                Booking booking = rows.next();
+                json.writeStartObject();
+                json.writeNumberField("id", booking.getId());
+                json.writeStringField("startTime", format(booking.getStartTime()));
+                json.writeStringField("endTime", format(booking.getEndTime()));
+                json.writeStringField("wicketType", name(booking.getWicketType()));
+                json.writeStringField("ballType", name(booking.getBallType()));
+                json.writeStringField("machineType", name(booking.getMachineType()));
+                json.writeStringField("leatherBallOption", name(booking.getLeatherBallOption()));
+                json.writeBooleanField("selfOperated", booking.isSelfOperated());
+                json.writeStringField("status", name(booking.getStatus()));
+                json.writeStringField("playerName", booking.getPlayerName());
+                json.writeStringField("userEmail", booking.getUserEmail());
+                json.writeEndObject();
+                json.writeRaw('\n');
+                entityManager.detach(booking);
+                if (++written % FLUSH_EVERY == 0) {
+                    json.flush();
+                }
+            }
+        }
+    }
+
+    private void writeCsv(Iterator<Booking> rows, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write(String.join(",", CSV_HEADER));
+        writer.write("\r\n");
+        int written = 0;
+        while (rows.hasNext()) {
+            Booking booking = rows.next();
+            writer.write(csvRow(booking));
+            entityManager.detach(booking);
+            if (++written % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    static String csvRow(Booking booking) {
+        return String.join(",",
+                String.valueOf(booking.getId()),
+                format(booking.getStartTime()),
+                format(booking.getEndTime()),
+                name(booking.getWicketType()),
+                name(booking.getBallType()),
+                name(booking.getMachineType()),
+                name(booking.getLeatherBallOption()),
+                String.valueOf(booking.isSelfOperated()),
+                name(booking.getStatus()),
+                csvField(booking.getPlayerName()),
+                csvField(booking.getUserEmail())) + "\r\n";
+    }
+
+    // RFC 4180 quoting; free-text fields that a spreadsheet would run as a formula are prefixed with '
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && "=+-@\t".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String format(LocalDateTime time) {
+        return time == null ? "" : time.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? "" : value.name();
+    }
+}
@@ -0,0 +1,42 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.Booking;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Lets the caller of a booking method add its own writes to the transaction that saves the
+ * bookings, which with the {@link BookingSequencer} is the writer thread's and not the caller's.
+ * The listener is bound to the calling thread for the duration of the call and captured when the
+ * booking is drafted.
+ */
+final class BookingOutcome {
+
+    private static final Consumer<List<Booking>> NONE = bookings -> {
+    };
+    private static final ThreadLocal<Consumer<List<Booking>>> LISTENER = new ThreadLocal<>();
+
+    private BookingOutcome() {
+    }
+
+    static <T> T listening(Consumer<List<Booking>> listener, Supplier<T> action) {
+        Consumer<List<Booking>> previous = LISTENER.get();
+        LISTENER.set(listener);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                LISTENER.remove();
+            } else {
+                LISTENER.set(previous);
+            }
+        }
+    }
+
+    static Consumer<List<Booking>> listener() {
+        Consumer<List<Booking>> listener = LISTENER.get();
+        return listener != null ? listener : NONE;
+    }
+}
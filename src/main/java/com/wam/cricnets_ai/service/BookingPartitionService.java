@@ -0,0 +1,205 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.config.BookingConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps {@code bookings} range-partitioned by month on {@code start_time}, so queries bounded by a
+ * booking window only touch the partitions they need. Partitions are created ahead of time, rows
+ * outside them land in {@code bookings_default}, and completed sessions in old months move to
+ * {@code bookings_archive}.
+ */
+@Service
+public class BookingPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingPartitionService.class);
+
+    static final String DEFAULT_PARTITION = "bookings_default";
+    static final String ARCHIVE_TABLE = "bookings_archive";
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("bookings_p(\\d{4})(\\d{2})");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Bookings never cross midnight, so overlaps can only happen within one partition
+    private static final String OVERLAP_EXCLUSION =
+            "EXCLUDE USING gist (wicket_type WITH =, period WITH &&) WHERE (status <> 'CANCELLED')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookingConfig bookingConfig;
+
+    public BookingPartitionService(JdbcTemplate jdbcTemplate, BookingConfig bookingConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookingConfig = bookingConfig;
+    }
+
+    public boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('bookings'))", Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    /**
+     * Replaces a plain {@code bookings} table with a partitioned one holding the same rows, columns
+     * and indexes. The primary key becomes {@code (id, start_time)} because Postgres requires the
+     * partition key in it; ids stay unique through the sequence. Runs in one transaction.
+     */
+    @Transactional
+    public boolean partitionBookingsTable(String overlapConstraint) {
+        if (isPartitioned()) {
+            return false;
+        }
+        Integer constrained = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_constraint WHERE conname = ?", Integer.class, overlapConstraint);
+        if (constrained == null || constrained == 0) {
+            log.warn("Not partitioning bookings until {} can be added", overlapConstraint);
+            return false;
+        }
+        // Captured before the rename, so the definitions still point at "bookings"
+        List<Map<String, Object>> indexes = jdbcTemplate.queryForList("""
+                SELECT i.indexname, i.indexdef FROM pg_indexes i
+                WHERE i.schemaname = current_schema() AND i.tablename = 'bookings'
+                  AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conname = i.indexname)""");
+        String primaryKey = jdbcTemplate.queryForObject(
+                "SELECT conname FROM pg_constraint WHERE conrelid = 'bookings'::regclass AND contype = 'p'", String.class);
+        LocalDateTime earliest = jdbcTemplate.queryForObject("SELECT min(start_time) FROM bookings", LocalDateTime.class);
+
+        jdbcTemplate.execute("ALTER TABLE bookings RENAME TO bookings_legacy");
+        jdbcTemplate.execute("ALTER TABLE bookings_legacy RENAME CONSTRAINT " + primaryKey + " TO bookings_legacy_pkey");
+        jdbcTemplate.execute("ALTER TABLE bookings_legacy DROP CONSTRAINT " + overlapConstraint);
+        for (Map<String, Object> index : indexes) {
+            jdbcTemplate.execute("DROP INDEX " + index.get("indexname"));
+        }
+        jdbcTemplate.execute("CREATE TABLE bookings (LIKE bookings_legacy INCLUDING DEFAULTS INCLUDING GENERATED "
+                + "INCLUDING CONSTRAINTS) PARTITION BY RANGE (start_time)");
+        jdbcTemplate.execute("ALTER TABLE bookings ADD PRIMARY KEY (id, start_time)");
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF bookings DEFAULT");
+        jdbcTemplate.execute("ALTER TABLE " + DEFAULT_PARTITION + " ADD CONSTRAINT " + DEFAULT_PARTITION + "_no_overlap "
+                + OVERLAP_EXCLUSION);
+        YearMonth last = YearMonth.now().plusMonths(bookingConfig.getPartitions().getMonthsAhead());
+        for (YearMonth month = earliest != null ? YearMonth.from(earliest) : YearMonth.now();
+             !month.isAfter(last); month = month.plusMonths(1)) {
+            createPartition(month);
+        }
+        String columns = String.join(", ", insertableColumns("bookings"));
+        int copied = jdbcTemplate.update("INSERT INTO bookings (" + columns + ") SELECT " + columns + " FROM bookings_legacy");
+        jdbcTemplate.execute("DROP TABLE bookings_legacy");
+        for (Map<String, Object> index : indexes) {
+            jdbcTemplate.execute((String) index.get("indexdef"));
+        }
+        log.info("Partitioned bookings by month; moved {} rows", copied);
+        return true;
+    }
+
+    public void createArchiveTable() {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, ARCHIVE_TABLE);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + ARCHIVE_TABLE + " (LIKE bookings INCLUDING DEFAULTS, "
+                + "archived_at timestamp NOT NULL DEFAULT now(), PRIMARY KEY (id))");
+        jdbcTemplate.execute("ALTER TABLE " + ARCHIVE_TABLE + " DROP COLUMN IF EXISTS period");
+        jdbcTemplate.execute("CREATE INDEX idx_booking_archive_start ON " + ARCHIVE_TABLE + " (start_time)");
+        jdbcTemplate.execute("CREATE INDEX idx_booking_archive_user_start ON " + ARCHIVE_TABLE + " (user_email, start_time)");
+    }
+
+    /**
+     * Creates the partitions for the coming months and archives old ones. Nodes take turns through
+     * an advisory lock; whoever misses it skips the run.
+     */
+    @Scheduled(cron = "0 15 0 * * *")
+    @Transactional
+    public void maintainPartitions() {
+        Boolean locked = jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(hashtext('bookings_partitions'), 0)", Boolean.class);
+        if (!Boolean.TRUE.equals(locked) || !isPartitioned()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= bookingConfig.getPartitions().getMonthsAhead(); i++) {
+            createPartition(current.plusMonths(i));
+        }
+        YearMonth archiveBefore = current.minusMonths(bookingConfig.getPartitions().getArchiveAfterMonths());
+        for (String partition : jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'bookings'::regclass ORDER BY c.relname""", String.class)) {
+            YearMonth month = monthOf(partition);
+            if (month != null && month.isBefore(archiveBefore)) {
+                archive(partition);
+            }
+        }
+    }
+
+    /**
+     * Adds the partition for {@code month}. Rows for that month that already landed in the default
+     * partition are moved into the new table before it is attached.
+     */
+    void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        String bounds = "FOR VALUES FROM ('" + from.format(BOUND) + "') TO ('" + to.format(BOUND) + "')";
+        Integer stranded = jdbcTemplate.queryForObject("SELECT count(*) FROM " + DEFAULT_PARTITION
+                + " WHERE start_time >= ? AND start_time < ?", Integer.class, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        if (stranded != null && stranded > 0) {
+            jdbcTemplate.execute("CREATE TABLE " + name
+                    + " (LIKE bookings INCLUDING DEFAULTS INCLUDING GENERATED INCLUDING CONSTRAINTS)");
+            String columns = String.join(", ", insertableColumns("bookings"));
+            jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                    + " WHERE start_time >= ? AND start_time < ? RETURNING " + columns + ") INSERT INTO " + name
+                    + " (" + columns + ") SELECT " + columns + " FROM moved", Timestamp.valueOf(from), Timestamp.valueOf(to));
+            jdbcTemplate.execute("ALTER TABLE bookings ATTACH PARTITION " + name + " " + bounds);
+        } else {
+            jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF bookings " + bounds);
+        }
+        jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + name + "_no_overlap " + OVERLAP_EXCLUSION);
+    }
+
+    // DONE and CANCELLED rows move to the archive; a partition left empty is dropped
+    void archive(String partition) {
+        List<String> archived = insertableColumns(ARCHIVE_TABLE);
+        String columns = String.join(", ", insertableColumns("bookings").stream().filter(archived::contains).toList());
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + partition
+                + " WHERE status IN ('DONE', 'CANCELLED') RETURNING " + columns + ") INSERT INTO " + ARCHIVE_TABLE
+                + " (" + columns + ") SELECT " + columns + " FROM moved");
+        Boolean empty = jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM " + partition + ")", Boolean.class);
+        if (Boolean.TRUE.equals(empty)) {
+            jdbcTemplate.execute("ALTER TABLE bookings DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        }
+        log.info("Archived {} bookings from {}", moved, partition);
+    }
+
+    private List<String> insertableColumns(String table) {
+        return jdbcTemplate.queryForList("""
+                SELECT column_name FROM information_schema.columns
+                WHERE table_schema = current_schema() AND table_name = ? AND is_generated = 'NEVER'
+                ORDER BY ordinal_position""", String.class, table);
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("bookings_p%04d%02d", month.getYear(), month.getMonthValue());
+    }
+
+    static YearMonth monthOf(String partition) {
+        Matcher matcher = MONTHLY_PARTITION.matcher(partition);
+        return matcher.matches()
+                ? YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)))
+                : null;
+    }
+}
@@ -0,0 +1,195 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.BookingStatus;
+import com.wam.cricnets_ai.model.MachineType;
+import com.wam.cricnets_ai.model.WicketType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Maintains {@code booking_rollup_hourly}: booked minutes, sessions and operator minutes per hour,
+ * wicket and machine type. Changes that add or free a slot queue their day in
+ * {@code booking_rollup_dirty_days} inside the writing transaction; a scheduled job rebuilds only
+ * the queued days, archived sessions included. Analytics read the rollups and never scan {@code bookings}.
+ */
+@Service
+public class BookingRollupService {
+
+    public enum Bucket {
+        DAY, WEEK, MONTH
+    }
+
+    // Days claimed per refresh run, so one run never holds its transaction for long
+    static final int REFRESH_BATCH = 31;
+    static final int MAX_RANGE_DAYS = 3 * 366;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookingSettingsService bookingSettingsService;
+
+    public BookingRollupService(JdbcTemplate jdbcTemplate, BookingSettingsService bookingSettingsService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookingSettingsService = bookingSettingsService;
+    }
+
+    // Only creates, cancellations and reactivations change usage; PENDING -> DONE does not
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onStatusChange(BookingStatusChange change) {
+        if (change.startTime() != null && isLive(change.previous()) != isLive(change.current())) {
+            markDirty(change.startTime().toLocalDate());
+        }
+    }
+
+    public void markDirty(LocalDate day) {
+        jdbcTemplate.update("INSERT INTO booking_rollup_dirty_days (day) VALUES (?) ON CONFLICT DO NOTHING", day);
+    }
+
+    /**
+     * Rebuilds the rollups of up to {@link #REFRESH_BATCH} queued days. Claimed rows are locked with
+     * SKIP LOCKED so nodes share the queue; a day re-queued by a write racing the refresh waits for
+     * this transaction and is picked up again by the next run.
+     */
+    @Scheduled(fixedDelayString = "PT1M", initialDelayString = "PT1M")
+    @Transactional
+    public int refreshDirtyDays() {
+        List<LocalDate> days = jdbcTemplate.queryForList("""
+                DELETE FROM booking_rollup_dirty_days WHERE day IN (
+                    SELECT day FROM booking_rollup_dirty_days ORDER BY day LIMIT ? FOR UPDATE SKIP LOCKED)
+                RETURNING day""", LocalDate.class, REFRESH_BATCH);
+        for (LocalDate day : days) {
+            refreshDay(day);
+        }
+        return days.size();
+    }
+
+    void refreshDay(LocalDate day) {
+        Timestamp dayStart = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp dayEnd = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        jdbcTemplate.update("DELETE FROM booking_rollup_hourly WHERE hour >= ? AND hour < ?", dayStart, dayEnd);
+        // Each live booking is cut into the hours it overlaps within the day; a session counts in the hour it starts
+        jdbcTemplate.update("""
+                INSERT INTO booking_rollup_hourly
+                    (hour, wicket_type, machine_type, booked_minutes, sessions, operator_minutes)
+                SELECT h.hour, s.wicket_type, s.machine_type, SUM(s.minutes), SUM(s.started), SUM(s.minutes * s.operated)
+                FROM (SELECT start_time, end_time, wicket_type, machine_type, self_operated, status FROM bookings
+                      UNION ALL
+                      SELECT start_time, end_time, wicket_type, machine_type, self_operated, status FROM bookings_archive) b
+                CROSS JOIN LATERAL generate_series(date_trunc('hour', GREATEST(b.start_time, ?)),
+                        LEAST(b.end_time, ?) - interval '1 microsecond', interval '1 hour') AS h(hour)
+                CROSS JOIN LATERAL (SELECT b.wicket_type, b.machine_type,
+                        (EXTRACT(EPOCH FROM LEAST(b.end_time, h.hour + interval '1 hour')
+                                - GREATEST(b.start_time, h.hour)) / 60)::int AS minutes,
+                        CASE WHEN b.start_time >= h.hour THEN 1 ELSE 0 END AS started,
+                        CASE WHEN b.machine_type <> 'NONE' AND NOT b.self_operated THEN 1 ELSE 0 END AS operated) s
+                WHERE b.status <> 'CANCELLED' AND b.start_time < ? AND b.end_time > ?
+                GROUP BY h.hour, s.wicket_type, s.machine_type
+                """, dayStart, dayEnd, dayEnd, dayStart);
+    }
+
+    /**
+     * Usage by ISO day of week and hour of day over {@code [from, to)}. Utilization is booked minutes
+     * over the minutes the matching wickets had in that hour across the range.
+     */
+    public List<HeatmapCell> getHeatmap(LocalDate from, LocalDate to, WicketType wicketType) {
+        validateRange(from, to);
+        int[] daysPerWeekday = new int[8];
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            daysPerWeekday[day.getDayOfWeek().getValue()]++;
+        }
+        int wickets = wicketType != null ? 1 : WicketType.values().length;
+        List<HeatmapCell> cells = new ArrayList<>();
+        jdbcTemplate.query("""
+                SELECT EXTRACT(ISODOW FROM hour)::int AS dow, EXTRACT(HOUR FROM hour)::int AS hod,
+                       SUM(booked_minutes) AS booked, SUM(sessions) AS sessions, SUM(operator_minutes) AS operated
+                FROM booking_rollup_hourly
+                WHERE hour >= ? AND hour < ? AND (CAST(? AS varchar) IS NULL OR wicket_type = ?)
+                GROUP BY 1, 2 ORDER BY 1, 2
+                """, rs -> {
+            int dow = rs.getInt("dow");
+            long booked = rs.getLong("booked");
+            cells.add(new HeatmapCell(DayOfWeek.of(dow), rs.getInt("hod"), booked, rs.getLong("sessions"),
+                    rs.getLong("operated"), share(booked, 60L * daysPerWeekday[dow] * wickets)));
+        }, Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.atStartOfDay()), name(wicketType), name(wicketType));
+        return cells;
+    }
+
+    /**
+     * Usage per day, week or month over {@code [from, to)}, optionally for one wicket or machine type.
+     * Utilization is booked minutes over the business-hours capacity of the bucket's days in range.
+     */
+    public List<TrendPoint> getTrend(LocalDate from, LocalDate to, Bucket bucket, WicketType wicketType,
+                                     MachineType machineType) {
+        validateRange(from, to);
+        BookingSettings settings = bookingSettingsService.current();
+        long minutesPerDay = Math.max(0, Duration.between(settings.businessStart(), settings.businessEnd()).toMinutes());
+        int wickets = wicketType != null ? 1 : WicketType.values().length;
+        List<TrendPoint> points = new ArrayList<>();
+        jdbcTemplate.query("""
+                SELECT date_trunc(?, hour) AS bucket,
+                       SUM(booked_minutes) AS booked, SUM(sessions) AS sessions, SUM(operator_minutes) AS operated
+                FROM booking_rollup_hourly
+                WHERE hour >= ? AND hour < ?
+                  AND (CAST(? AS varchar) IS NULL OR wicket_type = ?)
+                  AND (CAST(? AS varchar) IS NULL OR machine_type = ?)
+                GROUP BY 1 ORDER BY 1
+                """, rs -> {
+            LocalDate start = rs.getTimestamp("bucket").toLocalDateTime().toLocalDate();
+            LocalDate end = bucketEnd(start, bucket);
+            long days = ChronoUnit.DAYS.between(start.isBefore(from) ? from : start, end.isAfter(to) ? to : end);
+            long booked = rs.getLong("booked");
+            points.add(new TrendPoint(start, booked, rs.getLong("sessions"), rs.getLong("operated"),
+                    share(booked, days * minutesPerDay * wickets)));
+        }, bucket.name().toLowerCase(Locale.ROOT), Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.atStartOfDay()),
+                name(wicketType), name(wicketType), name(machineType), name(machineType));
+        return points;
+    }
+
+    public static void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || !to.isAfter(from)) {
+            throw new IllegalArgumentException("'to' must be after 'from'.");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Range must not exceed " + MAX_RANGE_DAYS + " days.");
+        }
+    }
+
+    static LocalDate bucketEnd(LocalDate start, Bucket bucket) {
+        return switch (bucket) {
+            case DAY -> start.plusDays(1);
+            case WEEK -> start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).plusWeeks(1);
+            case MONTH -> start.withDayOfMonth(1).plusMonths(1);
+        };
+    }
+
+    private static double share(long booked, long capacity) {
+        return capacity > 0 ? Math.round(1000.0 * booked / capacity) / 10.0 : 0;
+    }
+
+    private static boolean isLive(BookingStatus status) {
+        return status != null && status != BookingStatus.CANCELLED;
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+
+    public record HeatmapCell(DayOfWeek dayOfWeek, int hour, long bookedMinutes, long sessions,
+                              long operatorMinutes, double utilizationPercent) {}
+
+    public record TrendPoint(LocalDate bucketStart, long bookedMinutes, long sessions, long operatorMinutes,
+                             double utilizationPercent) {}
+}
@@ -0,0 +1,310 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.config.BookingConfig;
+import com.wam.cricnets_ai.model.Booking;
+import com.wam.cricnets_ai.model.WicketType;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Opt-in booking engine ({@code booking.sequencer.enabled}) with one writer thread per wicket. Each
+ * thread takes commands from a bounded queue, decides them one after another against the
+ * {@link SlotOccupancyIndex} with nothing else writing that wicket, then persists every accepted
+ * command of the batch in a single transaction before completing their futures. Under a rush the
+ * callers form a pipeline instead of contending for the same rows.
+ */
+@Component
+public class BookingSequencer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingSequencer.class);
+
+    private final BookingConfig.Sequencer config;
+    private final BookingRepository bookingRepository;
+    private final ResourcePoolService resourcePoolService;
+    private final SlotOccupancyIndex slotOccupancyIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<WicketType, Writer> writers = new EnumMap<>(WicketType.class);
+    private volatile boolean running;
+
+    public BookingSequencer(BookingConfig bookingConfig, BookingRepository bookingRepository,
+                            ResourcePoolService resourcePoolService, SlotOccupancyIndex slotOccupancyIndex,
+                            ApplicationEventPublisher eventPublisher, TransactionTemplate transactionTemplate) {
+        this.config = bookingConfig.getSequencer();
+        this.bookingRepository = bookingRepository;
+        this.resourcePoolService = resourcePoolService;
+        this.slotOccupancyIndex = slotOccupancyIndex;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Queues the command on the wicket's writer and waits for it to be decided and committed.
+     * Rejections thrown by {@link Command#decide()} reach the caller unchanged. A caller inside a
+     * transaction keeps its connection while it waits, which the writers also need from the pool.
+     * A caller that gives up waiting withdraws the command unless the writer already took it; a
+     * taken command still commits, together with whatever {@link Command#saved} records.
+     */
+    public List<Booking> submit(WicketType wicketType, BookingSettings settings, Command command) {
+        Writer writer = writers.get(wicketType);
+        Pending pending = new Pending(command, settings, new CompletableFuture<>());
+        try {
+            if (!writer.queue.offer(pending, config.getSubmitTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Booking is very busy right now. Please try again shortly.");
+            }
+            return pending.result().get(config.getSubmitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.withdraw();
+            throw new RuntimeException("Interrupted while waiting for the booking to be confirmed.", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            if (pending.withdraw()) {
+                throw new RuntimeException("Booking is very busy right now. Please try again shortly.");
+            }
+            // Being committed right now; a retry with the same Idempotency-Key sees the outcome
+            throw new RuntimeException("Timed out waiting for the booking to be confirmed.");
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        for (WicketType wicketType : WicketType.values()) {
+            writers.put(wicketType, new Writer(wicketType, new ArrayBlockingQueue<>(config.getQueueCapacity())));
+        }
+        // Published by the volatile write; callers only look at the writers once they see it
+        running = true;
+        writers.values().forEach(writer -> writer.thread.start());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        writers.values().forEach(writer -> writer.thread.interrupt());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Decides the batch in queue order, then commits every accepted command together. If the
+     * group commit fails, e.g. because another node took a resource, each command is retried in a
+     * transaction of its own so that only the ones really in conflict fail. Commands withdrawn by
+     * their caller are skipped.
+     */
+    void process(List<Pending> batch) {
+        List<Pending> accepted = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            if (!pending.take()) {
+                continue;
+            }
+            try {
+                pending.bookings = pending.command().decide();
+                accepted.add(pending);
+            } catch (RuntimeException e) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> accepted.forEach(this::persist));
+            accepted.forEach(this::complete);
+            return;
+        } catch (RuntimeException e) {
+            if (accepted.size() == 1) {
+                fail(accepted.get(0), e);
+                return;
+            }
+            log.debug("Group commit of {} bookings failed, committing them one by one: {}", accepted.size(), e.getMessage());
+        }
+        for (Pending pending : accepted) {
+            if (pending.result().isDone()) {
+                continue;
+            }
+            // The rolled back attempt left sequence ids on the entities; cleared, they are inserted afresh
+            pending.bookings.forEach(booking -> booking.setId(null));
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(pending));
+                complete(pending);
+            } catch (RuntimeException e) {
+                fail(pending, e);
+            }
+        }
+    }
+
+    private void persist(Pending pending) {
+        try {
+            resourcePoolService.claim(pending.bookings, pending.settings());
+        } catch (PoolExhaustedException e) {
+            List<Booking> bookings;
+            try {
+                bookings = pending.command().decideWithout(e.pool());
+            } catch (RuntimeException rejected) {
+                // Nothing left to retry; the command has given its claim back
+                fail(pending, rejected);
+                throw rejected;
+            }
+            if (bookings == null) {
+                throw e;
+            }
+            pending.bookings = bookings;
+            resourcePoolService.claim(pending.bookings, pending.settings());
+        }
+        pending.bookings = bookingRepository.saveAllAndFlush(pending.bookings);
+        pending.command().saved(pending.bookings);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    slotOccupancyIndex.recordChange();
+                }
+            });
+        } else {
+            slotOccupancyIndex.recordChange();
+        }
+        for (Booking booking : pending.bookings) {
+            eventPublisher.publishEvent(SlotChange.booked(booking));
+            eventPublisher.publishEvent(new BookingStatusChange(booking.getStartTime(), booking.getWicketType(), null, booking.getStatus()));
+        }
+    }
+
+    private void complete(Pending pending) {
+        pending.command().committed();
+        pending.result().complete(pending.bookings);
+    }
+
+    private void fail(Pending pending, RuntimeException e) {
+        pending.command().undo();
+        // Only the overlap constraint means "already booked"; other violations are reported as they are
+        pending.result().completeExceptionally(e instanceof DataIntegrityViolationException violation
+                && BookingService.isOverlapViolation(violation)
+                ? new BookingConflictException(BookingService.ALREADY_BOOKED)
+                : e);
+    }
+
+    /**
+     * One booking request as seen by the sequencer. {@link #decide()} runs on the wicket's writer
+     * thread and claims what the request needs in memory; {@link #saved} runs in the transaction
+     * that saves the bookings; {@link #committed()} runs once that transaction commits, and
+     * {@link #undo()} gives the claim back if it cannot be persisted. {@link #decideWithout}
+     * decides again when the database finds a pool full, or returns null if the request needs it.
+     */
+    public interface Command {
+
+        List<Booking> decide();
+
+        default List<Booking> decideWithout(ResourcePool pool) {
+            return null;
+        }
+
+        default void saved(List<Booking> bookings) {
+        }
+
+        default void committed() {
+        }
+
+        void undo();
+    }
+
+    static final class Pending {
+        private final Command command;
+        private final BookingSettings settings;
+        private final CompletableFuture<List<Booking>> result;
+        // Set once, either by the writer taking the command or by the caller withdrawing it
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        // Set by decide, replaced by the saved entities; only touched by the writer thread
+        private List<Booking> bookings;
+
+        Pending(Command command, BookingSettings settings, CompletableFuture<List<Booking>> result) {
+            this.command = command;
+            this.settings = settings;
+            this.result = result;
+        }
+
+        Command command() {
+            return command;
+        }
+
+        BookingSettings settings() {
+            return settings;
+        }
+
+        CompletableFuture<List<Booking>> result() {
+            return result;
+        }
+
+        boolean take() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        boolean withdraw() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    private final class Writer {
+        private final BlockingQueue<Pending> queue;
+        private final Thread thread;
+
+        private Writer(WicketType wicketType, BlockingQueue<Pending> queue) {
+            this.queue = queue;
+            this.thread = new Thread(this::run, "booking-sequencer-" + wicketType);
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            List<Pending> batch = new ArrayList<>(config.getMaxBatch());
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, config.getMaxBatch() - 1);
+                    process(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (RuntimeException e) {
+                    log.error("Booking sequencer failed a batch", e);
+                    batch.forEach(pending -> pending.result().completeExceptionally(e));
+                } finally {
+                    batch.clear();
+                }
+            }
+            for (Pending pending; (pending = queue.poll()) != null; ) {
+                pending.result().completeExceptionally(new RuntimeException("Booking is shutting down. Please try again."));
+            }
+        }
+    }
+}
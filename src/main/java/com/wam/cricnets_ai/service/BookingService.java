@@ -1,145 +1,225 @@
 package com.wam.cricnets_ai.service;
 
-import com.wam.cricnets_ai.config.BookingConfig;
 import com.wam.cricnets_ai.model.*;
-import com.wam.cricnets_ai.repository.BookingLockRepository;
+import com.wam.cricnets_ai.repository.BookingFilter;
 import com.wam.cricnets_ai.repository.BookingRepository;
-import com.wam.cricnets_ai.repository.SystemConfigRepository;
 import com.wam.cricnets_ai.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookingService {
 
+    static final String ALREADY_BOOKED = "This wicket is already booked for the selected time.";
+    private static final int MAX_AVAILABILITY_DAYS = 31;
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
     private final BookingRepository bookingRepository;
-    private final BookingLockRepository bookingLockRepository;
-    private final SystemConfigRepository systemConfigRepository;
+    private final ResourcePoolService resourcePoolService;
     private final UserRepository userRepository;
-    private final BookingConfig bookingConfig;
+    private final BookingSettingsService bookingSettingsService;
+    private final SlotOccupancyIndex slotOccupancyIndex;
+    private final SlotGridCache slotGridCache;
+    private final SlotHoldService slotHoldService;
+    private final BookingSequencer bookingSequencer;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     public BookingService(BookingRepository bookingRepository, 
-                          BookingLockRepository bookingLockRepository, 
-                          SystemConfigRepository systemConfigRepository,
+                          ResourcePoolService resourcePoolService,
                           UserRepository userRepository,
-                          BookingConfig bookingConfig) {
+                          BookingSettingsService bookingSettingsService,
+                          SlotOccupancyIndex slotOccupancyIndex,
+                          SlotGridCache slotGridCache,
+                          SlotHoldService slotHoldService,
+                          BookingSequencer bookingSequencer,
+                          TransactionTemplate transactionTemplate,
+                          ApplicationEventPublisher eventPublisher) {
         this.bookingRepository = bookingRepository;
-        this.bookingLockRepository = bookingLockRepository;
-        this.systemConfigRepository = systemConfigRepository;
+        this.resourcePoolService = resourcePoolService;
         this.userRepository = userRepository;
-        this.bookingConfig = bookingConfig;
-    }
-
-    private int getSlotDuration() {
-        return systemConfigRepository.findByConfigKey("slot_duration_minutes")
-                .map(c -> Integer.parseInt(c.getConfigValue()))
-                .orElse(bookingConfig.getSlotDurationMinutes());
-    }
-
-    private LocalTime getBusinessStart() {
-        return systemConfigRepository.findByConfigKey("business_hours_start")
-                .map(c -> LocalTime.parse(c.getConfigValue()))
-                .orElse(bookingConfig.getBusinessHours().getStart());
-    }
-
-    private LocalTime getBusinessEnd() {
-        return systemConfigRepository.findByConfigKey("business_hours_end")
-                .map(c -> LocalTime.parse(c.getConfigValue()))
-                .orElse(bookingConfig.getBusinessHours().getEnd());
+        this.bookingSettingsService = bookingSettingsService;
+        this.slotOccupancyIndex = slotOccupancyIndex;
+        this.slotGridCache = slotGridCache;
+        this.slotHoldService = slotHoldService;
+        this.bookingSequencer = bookingSequencer;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
     }
 
-    private int getOperatorCount() {
-        return systemConfigRepository.findByConfigKey("operator_count")
-                .map(c -> Integer.parseInt(c.getConfigValue()))
-                .orElse(bookingConfig.getOperatorCount());
+    public Booking createBooking(LocalDateTime startTime, Integer durationMinutes, BallType ballType,
+                                 WicketType wicketType, MachineType machineType, LeatherBallOption leatherBallOption,
+                                 Boolean selfOperatedRequest, String userEmail) {
+        return createBooking(startTime, durationMinutes, ballType, wicketType, machineType, leatherBallOption,
+                selfOperatedRequest, userEmail, null);
     }
 
-    @Transactional
+    /**
+     * Books a session; with a {@code holdId} the caller's hold on exactly that range becomes the
+     * booking without the wicket being checked again.
+     */
     public Booking createBooking(LocalDateTime startTime, Integer durationMinutes, BallType ballType,
                                  WicketType wicketType, MachineType machineType, LeatherBallOption leatherBallOption,
-                                 Boolean selfOperatedRequest, String userEmail) {
-        int defaultDuration = getSlotDuration();
+                                 Boolean selfOperatedRequest, String userEmail, UUID holdId) {
+        BookingSettings settings = bookingSettingsService.current();
         if (durationMinutes == null) {
-            durationMinutes = defaultDuration;
+            durationMinutes = settings.slotDurationMinutes();
         }
-        
-        validateBookingTime(startTime, durationMinutes);
-        LocalDateTime endTime = startTime.plusMinutes(durationMinutes);
 
-        // 1. Check for overlapping booking on the SAME wicket
-        List<Booking> overlappingWicket = bookingRepository.findOverlappingBookings(startTime, endTime, wicketType);
-        if (!overlappingWicket.isEmpty()) {
-            throw new RuntimeException("This wicket is already booked for the selected time.");
+        List<SlotGroup> groups = List.of(new SlotGroup(startTime, startTime.plusMinutes(durationMinutes)));
+        validateBookingTimes(groups, settings);
+        if (holdId == null) {
+            return bookSlotGroups(groups, settings, ballType, wicketType, machineType, leatherBallOption,
+                    selfOperatedRequest, userEmail, null).get(0);
+        }
+        // Consuming the hold and booking commit or roll back together
+        return transactionTemplate.execute(status -> {
+            SlotHoldService.SlotHold hold = slotHoldService.consume(holdId, userEmail);
+            if (hold.wicketType() != wicketType || !hold.startTime().equals(startTime)
+                    || !hold.endTime().equals(groups.get(0).end())) {
+                throw new IllegalArgumentException("The hold does not cover the requested session.");
+            }
+            return bookSlotGroups(groups, settings, ballType, wicketType, machineType, leatherBallOption,
+                    selfOperatedRequest, userEmail, hold).get(0);
+        });
+    }
+
+    /**
+     * Holds a session's slots for {@code seconds} (default {@value SlotHoldService#DEFAULT_HOLD_SECONDS},
+     * at most {@value SlotHoldService#MAX_HOLD_SECONDS}) so the player can finish checking out.
+     */
+    public SlotHoldService.SlotHold holdSlot(LocalDateTime startTime, Integer durationMinutes, WicketType wicketType,
+                                             Integer seconds, String userEmail) {
+        BookingSettings settings = bookingSettingsService.current();
+        if (durationMinutes == null) {
+            durationMinutes = settings.slotDurationMinutes();
         }
+        int holdSeconds = seconds == null ? SlotHoldService.DEFAULT_HOLD_SECONDS : seconds;
+        if (holdSeconds <= 0 || holdSeconds > SlotHoldService.MAX_HOLD_SECONDS) {
+            throw new IllegalArgumentException("Holds must last between 1 and " + SlotHoldService.MAX_HOLD_SECONDS + " seconds.");
+        }
+        validateBookingTime(startTime, durationMinutes, settings, LocalDateTime.now());
+        WicketType wicket = wicketType != null ? wicketType : WicketType.INDOOR_ASTRO_TURF;
+        return slotHoldService.hold(wicket, startTime, startTime.plusMinutes(durationMinutes),
+                Duration.ofSeconds(holdSeconds), userEmail);
+    }
 
-        // 2. Machine & Operator Logic
-        boolean requiresOperator = false;
+    /**
+     * Books every group in one pass: one claim per group in the occupancy index, one user lookup,
+     * one batch of resource pool claims and one batched INSERT. Either all groups are booked or
+     * none are. With the sequencer enabled, requests without a hold are decided and committed by
+     * the wicket's writer thread instead, so the caller waits without holding a connection.
+     */
+    private List<Booking> bookSlotGroups(List<SlotGroup> groups, BookingSettings settings, BallType ballType,
+                                         WicketType wicketType, MachineType machineType, LeatherBallOption leatherBallOption,
+                                         Boolean selfOperatedRequest, String userEmail, SlotHoldService.SlotHold hold) {
+        // 1. Machine & Operator Logic
         boolean selfOperated = false;
 
         if (machineType == MachineType.LEATHER_BALL_MACHINE) {
-            requiresOperator = true;
             if (leatherBallOption == null || leatherBallOption == LeatherBallOption.NONE) {
                 throw new IllegalArgumentException("Leather ball machine requires a ball option (Machine ball or Actual leather ball).");
             }
         } else if (machineType == MachineType.TENNIS_BALL_MACHINE) {
-            if (Boolean.TRUE.equals(selfOperatedRequest)) {
-                selfOperated = true;
-                requiresOperator = false;
-            } else {
-                requiresOperator = true;
-                selfOperated = false;
-            }
+            selfOperated = Boolean.TRUE.equals(selfOperatedRequest);
         }
 
-        if (requiresOperator) {
-            int totalOperators = getOperatorCount();
-            List<Booking> allOverlapping = bookingRepository.findAllOverlappingBookings(startTime, endTime);
-            long busyOperators = allOverlapping.stream()
-                    .filter(b -> b.getMachineType() != MachineType.NONE && !b.isSelfOperated())
-                    .count();
-
-            if (busyOperators >= totalOperators) {
-                if (machineType == MachineType.TENNIS_BALL_MACHINE) {
-                    // Automatically switch to self-operated if tennis machine and no operators available
-                    selfOperated = true;
-                    requiresOperator = false;
-                } else {
-                    throw new RuntimeException("No machine operators available for this time slot.");
+        String playerName = userRepository.findByEmail(userEmail)
+                .map(com.wam.cricnets_ai.model.User::getName)
+                .orElse("Guest");
+        BookingDraft draft = new BookingDraft(groups, settings, ballType, wicketType, machineType, leatherBallOption,
+                selfOperated, userEmail, playerName, hold);
+
+        if (hold == null && bookingSequencer.isEnabled()) {
+            return bookingSequencer.submit(wicketType, settings, draft);
+        }
+        return transactionTemplate.execute(status -> persist(draft));
+    }
+
+    private List<Booking> persist(BookingDraft draft) {
+        // 2. Wicket overlaps are enforced by the bookings_no_overlap exclusion constraint on INSERT.
+        // Operators and machines are shared across wickets and are counted per slot in resource pools.
+        try {
+            List<Booking> bookings = draft.decide();
+            if (draft.hold != null) {
+                restoreUnlessCommitted(draft.hold);
+            }
+            // The database counters are authoritative across nodes; the index only answered for this one
+            try {
+                resourcePoolService.claim(bookings, draft.settings);
+            } catch (PoolExhaustedException e) {
+                bookings = draft.decideWithout(e.pool());
+                if (bookings == null) {
+                    throw e;
                 }
+                resourcePoolService.claim(bookings, draft.settings);
+            }
+            // Registered once the claims are final; a failure before this point undoes the draft
+            draft.claims.forEach(this::settleOrRelease);
+            List<Booking> saved = bookingRepository.saveAllAndFlush(bookings);
+            draft.saved(saved);
+            // The claims already moved the version, but readers must also see a change once the rows are visible
+            afterCommit(slotOccupancyIndex::recordChange);
+            for (Booking booking : saved) {
+                eventPublisher.publishEvent(SlotChange.booked(booking));
+                eventPublisher.publishEvent(new BookingStatusChange(booking.getStartTime(), booking.getWicketType(), null, booking.getStatus()));
             }
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            draft.undo();
+            if (isOverlapViolation(e)) {
+                throw new BookingConflictException(ALREADY_BOOKED);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            draft.undo();
+            throw e;
         }
+    }
 
-        // Separate locks for different wickets
-        String lockId = "WICKET_LOCK_" + wicketType.name();
-        
-        bookingLockRepository.findByResourceId(lockId)
-                .orElseGet(() -> {
-                    try {
-                        return bookingLockRepository.saveAndFlush(new BookingLock(lockId));
-                    } catch (Exception e) {
-                        return bookingLockRepository.findByResourceId(lockId).orElseThrow();
-                    }
-                });
-
-        String playerName = userRepository.findByEmail(userEmail)
-                .map(com.wam.cricnets_ai.model.User::getName)
-                .orElse("Guest");
+    private SlotOccupancyIndex.Claim reserve(SlotGroup group, WicketType wicketType, MachineType machineType,
+                                             boolean selfOperated, BookingSettings settings, SlotHoldService.SlotHold hold) {
+        List<ResourcePool> pools = ResourcePool.required(machineType, selfOperated);
+        return hold != null
+                ? slotOccupancyIndex.convertHold(wicketType, group.start(), group.end(), pools, settings::capacity)
+                : slotOccupancyIndex.tryReserve(wicketType, group.start(), group.end(), pools, settings::capacity);
+    }
 
-        Booking booking = new Booking(startTime, endTime, ballType, wicketType, machineType, leatherBallOption, selfOperated, userEmail, playerName);
-        return bookingRepository.save(booking);
+    // SQLSTATE 23P01 is exclusion_violation, raised when another booking already holds the range
+    static boolean isOverlapViolation(DataIntegrityViolationException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && "23P01".equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     // Keep old method for backward compatibility if needed, but updated to use new logic with defaults
-    @Transactional
     public Booking createBooking(LocalDateTime startTime, Integer durationMinutes, BallType ballType, String userEmail) {
         // Default to INDOOR_ASTRO_TURF if not specified, and no machine
         WicketType defaultWicket = WicketType.INDOOR_ASTRO_TURF;
@@ -151,26 +231,33 @@ public class BookingService {
     }
 
     // Overloaded for backward compatibility or simple cases
-    @Transactional
     public Booking createBooking(LocalDateTime startTime, BallType ballType, String userEmail) {
-        return createBooking(startTime, getSlotDuration(), ballType, userEmail);
+        return createBooking(startTime, null, ballType, userEmail);
+    }
+
+    private void validateBookingTimes(List<SlotGroup> groups, BookingSettings settings) {
+        LocalDateTime now = LocalDateTime.now();
+        for (SlotGroup group : groups) {
+            validateBookingTime(group.start(), group.minutes(), settings, now);
+        }
     }
 
-    private void validateBookingTime(LocalDateTime startTime, int durationMinutes) {
-        if (startTime.isBefore(LocalDateTime.now())) {
+    private void validateBookingTime(LocalDateTime startTime, int durationMinutes, BookingSettings settings, LocalDateTime now) {
+        if (startTime.isBefore(now)) {
             throw new IllegalArgumentException("Cannot book a session in the past.");
         }
-        
-        int slotDuration = getSlotDuration();
+
+        int slotDuration = settings.slotDurationMinutes();
+
         if (durationMinutes <= 0 || durationMinutes % slotDuration != 0) {
             throw new IllegalArgumentException("Duration must be a multiple of " + slotDuration + " minutes.");
         }
 
         LocalTime time = startTime.toLocalTime();
         LocalTime endTime = time.plusMinutes(durationMinutes);
-        
-        LocalTime businessStart = getBusinessStart();
-        LocalTime businessEnd = getBusinessEnd();
+
+        LocalTime businessStart = settings.businessStart();
+        LocalTime businessEnd = settings.businessEnd();
 
         if (time.isBefore(businessStart) || endTime.isAfter(businessEnd)) {
             throw new IllegalArgumentException("Bookings are only available from " + businessStart + " to " + businessEnd + ".");
@@ -183,40 +270,85 @@ public class BookingService {
     }
 
     public List<SlotStatus> getSlotsForDay(LocalDate date, WicketType wicketType) {
-        LocalTime businessStart = getBusinessStart();
-        LocalTime businessEnd = getBusinessEnd();
-        int slotDuration = getSlotDuration();
+        return buildSlots(date, wicketType, bookingSettingsService.current(), LocalDateTime.now());
+    }
+
+    /**
+     * The slots of a wicket-day together with a strong ETag that changes exactly when the response
+     * would: on a config change, a booking change on that wicket-day, or a slot moving into the past.
+     */
+    public VersionedSlots getVersionedSlotsForDay(LocalDate date, WicketType wicketType) {
+        BookingSettings settings = bookingSettingsService.current();
+        LocalDateTime now = LocalDateTime.now();
+        long occupancyVersion = slotOccupancyIndex.version(date, wicketType);
+        SlotGridCache.SlotGrid grid = slotGridCache.get(date, wicketType, settings.version(), occupancyVersion,
+                () -> computeGrid(date, wicketType, settings));
+        String etag = "\"" + date + "-" + wicketType + "-" + settings.version() + "-" + slotOccupancyIndex.epoch()
+                + "-" + occupancyVersion + "-" + grid.pastCount(now) + "\"";
+        return new VersionedSlots(etag, grid.at(now));
+    }
+
+    /**
+     * Availability of every requested wicket on every day in {@code [from, to]}, produced lazily
+     * one wicket-day at a time from the occupancy index.
+     */
+    public Stream<DayAvailability> getAvailability(LocalDate from, LocalDate to, List<WicketType> wicketTypes) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'.");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_AVAILABILITY_DAYS) {
+            throw new IllegalArgumentException("Availability can be requested for at most " + MAX_AVAILABILITY_DAYS + " days.");
+        }
+        List<WicketType> wickets = wicketTypes == null || wicketTypes.isEmpty()
+                ? List.of(WicketType.values())
+                : wicketTypes;
+        BookingSettings settings = bookingSettingsService.current();
+        LocalDateTime now = LocalDateTime.now();
+        return from.datesUntil(to.plusDays(1))
+                .flatMap(date -> wickets.stream()
+                        .map(wicket -> new DayAvailability(date, wicket, buildSlots(date, wicket, settings, now))));
+    }
+
+    private List<SlotStatus> buildSlots(LocalDate date, WicketType wicketType, BookingSettings settings, LocalDateTime now) {
+        // Read the version before computing: a grid can only ever be newer than the version it is cached under
+        long occupancyVersion = slotOccupancyIndex.version(date, wicketType);
+        return slotGridCache.get(date, wicketType, settings.version(), occupancyVersion,
+                () -> computeGrid(date, wicketType, settings)).at(now);
+    }
+
+    private SlotGridCache.SlotGrid computeGrid(LocalDate date, WicketType wicketType, BookingSettings settings) {
+        LocalTime businessStart = settings.businessStart();
+        LocalTime businessEnd = settings.businessEnd();
+        int slotDuration = settings.slotDurationMinutes();
 
         LocalDateTime dayStart = date.atTime(businessStart);
         LocalDateTime dayEnd = date.atTime(businessEnd);
-        List<Booking> bookings = bookingRepository.findBookingsByDay(dayStart, dayEnd, wicketType);
+        BitSet occupied = slotOccupancyIndex.occupiedMinutes(date, wicketType);
+        BitSet held = slotOccupancyIndex.heldMinutes(date, wicketType);
 
         List<SlotStatus> slots = new ArrayList<>();
         LocalDateTime current = dayStart;
-        LocalDateTime now = LocalDateTime.now();
+        // Sweep line: the next taken minute only moves forward, so the whole day is one pass over the bitset
+        int nextTaken = occupied.nextSetBit(SlotOccupancyIndex.startMinute(dayStart));
         while (current.isBefore(dayEnd)) {
             LocalDateTime slotStart = current;
             LocalDateTime slotEnd = current.plusMinutes(slotDuration);
-            
-            String status;
-            boolean available;
-            if (slotStart.isBefore(now)) {
-                status = "Unavailable";
-                available = false;
-            } else {
-                boolean isBooked = bookings.stream().anyMatch(b -> 
-                    b.getStartTime().isBefore(slotEnd) && b.getEndTime().isAfter(slotStart));
-                status = isBooked ? "Booked" : "Available";
-                available = !isBooked;
+            int fromMinute = SlotOccupancyIndex.startMinute(slotStart);
+            int toMinute = SlotOccupancyIndex.endMinute(slotStart, slotEnd);
+            if (nextTaken >= 0 && nextTaken < fromMinute) {
+                nextTaken = occupied.nextSetBit(fromMinute);
             }
-            
-            slots.add(new SlotStatus(slotStart, status, available));
+
+            boolean isBooked = nextTaken >= 0 && nextTaken < toMinute;
+            // Holds are short-lived and rare, so a direct lookup beats a second sweep
+            boolean isHeld = !isBooked && SlotOccupancyIndex.anyOccupied(held, fromMinute, toMinute);
+            slots.add(new SlotStatus(slotStart, isBooked ? "Booked" : isHeld ? "Held" : "Available",
+                    !isBooked && !isHeld));
             current = slotEnd;
         }
-        return slots;
+        return new SlotGridCache.SlotGrid(slots);
     }
 
-    @Transactional
     public List<Booking> createMultiBooking(List<LocalDateTime> startTimes, BallType ballType,
                                             WicketType wicketType, MachineType machineType,
                                             LeatherBallOption leatherBallOption, Boolean selfOperated,
@@ -225,38 +357,38 @@ public class BookingService {
             return List.of();
         }
 
-        int slotDuration = getSlotDuration();
+        BookingSettings settings = bookingSettingsService.current();
+        int slotDuration = settings.slotDurationMinutes();
         List<LocalDateTime> sortedStartTimes = startTimes.stream()
+                .distinct()
                 .sorted()
                 .toList();
 
-        List<Booking> createdBookings = new ArrayList<>();
-        if (sortedStartTimes.isEmpty()) return createdBookings;
-
+        // Merge contiguous slots into one booking each
+        List<SlotGroup> groups = new ArrayList<>();
         LocalDateTime currentStart = sortedStartTimes.get(0);
-        int currentDuration = slotDuration;
+        LocalDateTime currentEnd = currentStart.plusMinutes(slotDuration);
 
         for (int i = 1; i < sortedStartTimes.size(); i++) {
             LocalDateTime nextStart = sortedStartTimes.get(i);
-            if (nextStart.equals(currentStart.plusMinutes(currentDuration))) {
+            if (nextStart.equals(currentEnd)) {
                 // Contiguous
-                currentDuration += slotDuration;
+                currentEnd = currentEnd.plusMinutes(slotDuration);
             } else {
-                // Not contiguous, save previous group
-                createdBookings.add(createBooking(currentStart, currentDuration, ballType, wicketType, machineType, leatherBallOption, selfOperated, userEmail));
-                // Start new group
+                // Not contiguous, close previous group
+                groups.add(new SlotGroup(currentStart, currentEnd));
                 currentStart = nextStart;
-                currentDuration = slotDuration;
+                currentEnd = nextStart.plusMinutes(slotDuration);
             }
         }
-        // Save the last group
-        createdBookings.add(createBooking(currentStart, currentDuration, ballType, wicketType, machineType, leatherBallOption, selfOperated, userEmail));
+        groups.add(new SlotGroup(currentStart, currentEnd));
 
-        return createdBookings;
+        validateBookingTimes(groups, settings);
+        return bookSlotGroups(groups, settings, ballType, wicketType, machineType, leatherBallOption, selfOperated,
+                userEmail, null);
     }
 
     // Overloaded for backward compatibility
-    @Transactional
     public List<Booking> createMultiBooking(List<LocalDateTime> startTimes, BallType ballType, String userEmail) {
         WicketType defaultWicket = WicketType.INDOOR_ASTRO_TURF;
         MachineType defaultMachine = MachineType.NONE;
@@ -266,47 +398,285 @@ public class BookingService {
         return createMultiBooking(startTimes, ballType, defaultWicket, defaultMachine, LeatherBallOption.NONE, false, userEmail);
     }
 
+    /**
+     * One page of bookings matching {@code filter}, ordered by start time. {@code cursor} is the
+     * {@link BookingPage#nextCursor()} of the previous page, or {@code null} for the first one.
+     */
     @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN')")
-    public List<Booking> getAllBookings() {
-        return bookingRepository.findAll();
+    public BookingPage findBookings(BookingFilter filter, String cursor, Integer size) {
+        int limit = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        LocalDateTime afterStartTime = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                afterStartTime = LocalDateTime.parse(position[0]);
+                afterId = Long.parseLong(position[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+        }
+        // One extra row tells whether there is a next page without a count query
+        List<Booking> rows = bookingRepository.findPage(filter, afterStartTime, afterId, limit + 1);
+        if (rows.size() <= limit) {
+            return new BookingPage(rows, null);
+        }
+        List<Booking> items = rows.subList(0, limit);
+        Booking last = items.get(limit - 1);
+        String next = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((last.getStartTime() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        return new BookingPage(List.copyOf(items), next);
+    }
+
+    // Checked here as well: the call to findBookings below does not go through the proxy
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN')")
+    public BookingPage getAllBookings(String cursor, Integer size) {
+        return findBookings(BookingFilter.none(), cursor, size);
     }
 
     public Booking getBookingById(Long id) {
         return bookingRepository.findById(id)
+                .or(() -> bookingRepository.findArchivedById(id))
                 .orElseThrow(() -> new RuntimeException("Booking not found with id: " + id));
     }
 
+    // Archived sessions are finished and live outside the bookings table, so they cannot change
+    private Booking getChangeableBooking(Long id) {
+        return bookingRepository.findById(id).orElseThrow(() -> bookingRepository.findArchivedById(id).isPresent()
+                ? new BookingConflictException("Booking " + id + " is archived and can no longer be changed.")
+                : new RuntimeException("Booking not found with id: " + id));
+    }
+
     @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN') or @bookingService.isBookingOwner(#id, principal)")
     @Transactional
     public void cancelBooking(Long id) {
-        Booking booking = getBookingById(id);
+        Booking booking = getChangeableBooking(id);
+        BookingStatus previous = booking.getStatus();
         booking.setStatus(BookingStatus.CANCELLED);
         bookingRepository.save(booking);
+        onStatusChange(booking, previous);
     }
 
     @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN')")
     @Transactional
     public Booking markAsDone(Long id) {
-        Booking booking = getBookingById(id);
+        Booking booking = getChangeableBooking(id);
+        BookingStatus previous = booking.getStatus();
         booking.setStatus(BookingStatus.DONE);
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        onStatusChange(saved, previous);
+        return saved;
+    }
+
+    // DONE sessions still hold their slot; only moving into or out of CANCELLED changes occupancy
+    private void onStatusChange(Booking booking, BookingStatus previous) {
+        boolean wasActive = previous != BookingStatus.CANCELLED;
+        boolean isActive = booking.getStatus() != BookingStatus.CANCELLED;
+        // Published after the index callbacks are registered, so listeners run against an updated index
+        if (wasActive && !isActive) {
+            resourcePoolService.release(booking);
+            afterCommit(() -> slotOccupancyIndex.remove(booking));
+            eventPublisher.publishEvent(SlotChange.freed(booking));
+        } else if (!wasActive && isActive) {
+            resourcePoolService.claim(List.of(booking), bookingSettingsService.current());
+            afterCommit(() -> slotOccupancyIndex.add(booking));
+            eventPublisher.publishEvent(SlotChange.booked(booking));
+        } else {
+            afterCommit(slotOccupancyIndex::recordChange);
+            // Other nodes have nothing to apply, but their ETags must still move
+            if (previous != booking.getStatus()) {
+                eventPublisher.publishEvent(SlotChange.statusChanged(booking));
+            }
+        }
+        if (previous != booking.getStatus()) {
+            eventPublisher.publishEvent(new BookingStatusChange(booking.getStartTime(), booking.getWicketType(), previous, booking.getStatus()));
+        }
+    }
+
+    private void settleOrRelease(SlotOccupancyIndex.Claim claim) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        claim.settle();
+                    } else {
+                        claim.release();
+                    }
+                }
+            });
+        } else {
+            claim.settle();
+        }
+    }
+
+    // A booking that fails after converting a hold gives the player the hold back for its remaining time
+    private void restoreUnlessCommitted(SlotHoldService.SlotHold hold) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        slotHoldService.restore(hold);
+                    }
+                }
+            });
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     public boolean isBookingOwner(Long id, java.security.Principal principal) {
         if (principal == null) return false;
         return bookingRepository.findById(id)
+                .or(() -> bookingRepository.findArchivedById(id))
                 .map(b -> principal.getName().equals(b.getUserEmail()))
                 .orElse(false);
     }
 
 
-    public List<Booking> getBookingsByEmail(String email) {
-        return bookingRepository.findByUserEmail(email);
+    public BookingPage getBookingsByEmail(String email, String cursor, Integer size) {
+        return findBookings(BookingFilter.forUser(email), cursor, size);
     }
 
-    public List<Booking> getUpcomingBookings() {
-        return bookingRepository.findByStartTimeAfterOrderByStartTimeAsc(LocalDateTime.now());
+    // Bookings start on whole minutes, so "after now" is "from the next minute", matching the ETag
+    public BookingPage getUpcomingBookings(String cursor, Integer size) {
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        return findBookings(BookingFilter.startingFrom(from), cursor, size);
+    }
+
+    /**
+     * Strong ETag for {@link #getUpcomingBookings(String, Integer)}, computed without a query.
+     * Bookings start on whole minutes, so the list can only change with a booking write or when the
+     * minute rolls over.
+     */
+    public String getUpcomingBookingsETag() {
+        long minute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).toEpochSecond(ZoneOffset.UTC) / 60;
+        return "\"upcoming-" + slotOccupancyIndex.epoch() + "-" + slotOccupancyIndex.version() + "-" + minute + "\"";
     }
 
     public record SlotStatus(LocalDateTime startTime, String status, boolean available) {}
+
+    public record BookingPage(List<Booking> items, String nextCursor) {}
+
+    public record VersionedSlots(String etag, List<SlotStatus> slots) {}
+
+    public record DayAvailability(LocalDate date, WicketType wicketType, List<SlotStatus> slots) {}
+
+    /**
+     * The in-memory half of a booking: claims every group in the occupancy index and builds the
+     * entities, without touching the database.
+     */
+    private final class BookingDraft implements BookingSequencer.Command {
+        private final List<SlotGroup> groups;
+        private final BookingSettings settings;
+        private final BallType ballType;
+        private final WicketType wicketType;
+        private final MachineType machineType;
+        private final LeatherBallOption leatherBallOption;
+        private boolean selfOperated;
+        private final String userEmail;
+        private final String playerName;
+        private final SlotHoldService.SlotHold hold;
+        private final List<SlotOccupancyIndex.Claim> claims = new ArrayList<>();
+        // Captured on the caller's thread; runs on whichever thread saves the bookings
+        private final Consumer<List<Booking>> onSaved = BookingOutcome.listener();
+
+        private BookingDraft(List<SlotGroup> groups, BookingSettings settings, BallType ballType, WicketType wicketType,
+                             MachineType machineType, LeatherBallOption leatherBallOption, boolean selfOperated,
+                             String userEmail, String playerName, SlotHoldService.SlotHold hold) {
+            this.groups = groups;
+            this.settings = settings;
+            this.ballType = ballType;
+            this.wicketType = wicketType;
+            this.machineType = machineType;
+            this.leatherBallOption = leatherBallOption;
+            this.selfOperated = selfOperated;
+            this.userEmail = userEmail;
+            this.playerName = playerName;
+            this.hold = hold;
+        }
+
+        @Override
+        public List<Booking> decide() {
+            List<Booking> bookings = new ArrayList<>(groups.size());
+            try {
+                for (SlotGroup group : groups) {
+                    boolean groupSelfOperated = selfOperated;
+                    SlotOccupancyIndex.Claim claim = reserve(group, wicketType, machineType, groupSelfOperated, settings, hold);
+                    if (claim.outcome() == SlotOccupancyIndex.Outcome.POOL_EXHAUSTED
+                            && claim.exhaustedPool().equals(ResourcePool.OPERATOR)
+                            && machineType == MachineType.TENNIS_BALL_MACHINE) {
+                        // Automatically switch to self-operated if tennis machine and no operators available
+                        groupSelfOperated = true;
+                        claim = reserve(group, wicketType, machineType, true, settings, hold);
+                    }
+                    if (claim.outcome() == SlotOccupancyIndex.Outcome.POOL_EXHAUSTED) {
+                        throw ResourcePoolService.exhausted(claim.exhaustedPool());
+                    }
+                    if (claim.outcome() == SlotOccupancyIndex.Outcome.WICKET_HELD) {
+                        throw new BookingConflictException(SlotHoldService.HELD);
+                    }
+                    if (!claim.reserved()) {
+                        throw new BookingConflictException(ALREADY_BOOKED);
+                    }
+                    claims.add(claim);
+
+                    bookings.add(new Booking(group.start(), group.end(), ballType, wicketType, machineType,
+                            leatherBallOption, groupSelfOperated, userEmail, playerName));
+                }
+            } catch (RuntimeException e) {
+                undo();
+                throw e;
+            }
+            return bookings;
+        }
+
+        /**
+         * Another node took the last operator although this node's index still had one free:
+         * a tennis machine goes ahead self-operated, as it does when the index runs out.
+         */
+        @Override
+        public List<Booking> decideWithout(ResourcePool pool) {
+            if (!pool.equals(ResourcePool.OPERATOR) || machineType != MachineType.TENNIS_BALL_MACHINE || selfOperated) {
+                return null;
+            }
+            undo();
+            claims.clear();
+            selfOperated = true;
+            return decide();
+        }
+
+        @Override
+        public void saved(List<Booking> bookings) {
+            onSaved.accept(bookings);
+        }
+
+        @Override
+        public void committed() {
+            claims.forEach(SlotOccupancyIndex.Claim::settle);
+        }
+
+        @Override
+        public void undo() {
+            claims.forEach(SlotOccupancyIndex.Claim::release);
+        }
+    }
+
+    private record SlotGroup(LocalDateTime start, LocalDateTime end) {
+        int minutes() {
+            return (int) Duration.between(start, end).toMinutes();
+        }
+    }
 }
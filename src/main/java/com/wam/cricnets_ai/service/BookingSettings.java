@@ -0,0 +1,89 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.config.BookingConfig;
+import com.wam.cricnets_ai.model.MachineType;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable, typed view of the booking rules stored in {@code system_configs}, falling back to
+ * {@link BookingConfig} for keys that are not set. {@code version} increases with every change.
+ * Machine types without a configured count are not limited.
+ */
+public record BookingSettings(long version, int slotDurationMinutes, LocalTime businessStart,
+                              LocalTime businessEnd, int operatorCount, Map<MachineType, Integer> machineCounts) {
+
+    public static final String SLOT_DURATION_MINUTES = "slot_duration_minutes";
+    public static final String BUSINESS_HOURS_START = "business_hours_start";
+    public static final String BUSINESS_HOURS_END = "business_hours_end";
+    public static final String OPERATOR_COUNT = "operator_count";
+    public static final String CONFIG_VERSION = "config_version";
+    // Followed by the lower-case machine type, e.g. machine_count.leather_ball_machine
+    public static final String MACHINE_COUNT_PREFIX = "machine_count.";
+
+    public BookingSettings {
+        if (slotDurationMinutes <= 0) {
+            throw new IllegalArgumentException("Slot duration must be positive.");
+        }
+        if (!businessStart.isBefore(businessEnd)) {
+            throw new IllegalArgumentException("Business hours must start before they end.");
+        }
+        if (operatorCount < 0) {
+            throw new IllegalArgumentException("Operator count cannot be negative.");
+        }
+        if (machineCounts.values().stream().anyMatch(count -> count < 0)) {
+            throw new IllegalArgumentException("Machine counts cannot be negative.");
+        }
+        machineCounts = Map.copyOf(machineCounts);
+    }
+
+    public int capacity(ResourcePool pool) {
+        MachineType machineType = pool.machineType();
+        if (machineType == null) {
+            return operatorCount;
+        }
+        return machineCounts.getOrDefault(machineType, Integer.MAX_VALUE);
+    }
+
+    public static BookingSettings from(Map<String, String> values, BookingConfig defaults) {
+        try {
+            return new BookingSettings(
+                    Long.parseLong(values.getOrDefault(CONFIG_VERSION, "0")),
+                    values.containsKey(SLOT_DURATION_MINUTES)
+                            ? Integer.parseInt(values.get(SLOT_DURATION_MINUTES))
+                            : defaults.getSlotDurationMinutes(),
+                    values.containsKey(BUSINESS_HOURS_START)
+                            ? LocalTime.parse(values.get(BUSINESS_HOURS_START))
+                            : defaults.getBusinessHours().getStart(),
+                    values.containsKey(BUSINESS_HOURS_END)
+                            ? LocalTime.parse(values.get(BUSINESS_HOURS_END))
+                            : defaults.getBusinessHours().getEnd(),
+                    values.containsKey(OPERATOR_COUNT)
+                            ? Integer.parseInt(values.get(OPERATOR_COUNT))
+                            : defaults.getOperatorCount(),
+                    machineCounts(values, defaults));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid booking configuration: " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<MachineType, Integer> machineCounts(Map<String, String> values, BookingConfig defaults) {
+        Map<MachineType, Integer> counts = new EnumMap<>(MachineType.class);
+        counts.putAll(defaults.getMachineCounts());
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (entry.getKey().startsWith(MACHINE_COUNT_PREFIX)) {
+                String type = entry.getKey().substring(MACHINE_COUNT_PREFIX.length()).toUpperCase(Locale.ROOT);
+                try {
+                    counts.put(MachineType.valueOf(type), Integer.parseInt(entry.getValue()));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid booking configuration: " + entry.getKey() + "=" + entry.getValue(), e);
+                }
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,113 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.config.BookingConfig;
+import com.wam.cricnets_ai.config.PostgresNotificationHandler;
+import com.wam.cricnets_ai.model.SystemConfig;
+import com.wam.cricnets_ai.repository.SystemConfigRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serves the current {@link BookingSettings} from memory. Writes go through {@link #update}, which
+ * bumps the stored {@code config_version} and announces it with {@code pg_notify}; every node,
+ * including this one, swaps in a freshly loaded snapshot when it sees a newer version.
+ */
+@Service
+public class BookingSettingsService implements PostgresNotificationHandler, SmartInitializingSingleton {
+
+    static final String CHANNEL = "booking_settings";
+
+    private final SystemConfigRepository systemConfigRepository;
+    private final BookingConfig bookingConfig;
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicReference<BookingSettings> current = new AtomicReference<>();
+
+    public BookingSettingsService(SystemConfigRepository systemConfigRepository, BookingConfig bookingConfig,
+                                  JdbcTemplate jdbcTemplate) {
+        this.systemConfigRepository = systemConfigRepository;
+        this.bookingConfig = bookingConfig;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    public BookingSettings current() {
+        BookingSettings settings = current.get();
+        return settings != null ? settings : reload();
+    }
+
+    public BookingSettings reload() {
+        Map<String, String> values = new HashMap<>();
+        for (SystemConfig config : systemConfigRepository.findAll()) {
+            values.put(config.getConfigKey(), config.getConfigValue());
+        }
+        BookingSettings loaded = BookingSettings.from(values, bookingConfig);
+        // Never step back to an older version if two reloads race
+        return current.accumulateAndGet(loaded,
+                (existing, fresh) -> existing != null && existing.version() > fresh.version() ? existing : fresh);
+    }
+
+    @Transactional
+    public SystemConfig update(String key, String value) {
+        if (key == null || key.isBlank() || BookingSettings.CONFIG_VERSION.equals(key)) {
+            throw new IllegalArgumentException("Invalid configuration key: " + key);
+        }
+        // Reject values that would not parse before anything is written
+        Map<String, String> values = new HashMap<>();
+        systemConfigRepository.findAll().forEach(c -> values.put(c.getConfigKey(), c.getConfigValue()));
+        values.put(key, value);
+        BookingSettings.from(values, bookingConfig);
+
+        SystemConfig config = systemConfigRepository.findByConfigKey(key)
+                .orElse(new SystemConfig(key, value));
+        config.setConfigValue(value);
+        SystemConfig saved = systemConfigRepository.save(config);
+        systemConfigRepository.flush();
+
+        Long version = jdbcTemplate.queryForObject("""
+                INSERT INTO system_configs (config_key, config_value) VALUES (?, '1')
+                ON CONFLICT (config_key) DO UPDATE SET config_value = (system_configs.config_value::bigint + 1)::text
+                RETURNING config_value::bigint
+                """, Long.class, BookingSettings.CONFIG_VERSION);
+        // Delivered by Postgres only when this transaction commits
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, String.valueOf(version));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        }
+        return saved;
+    }
+
+    @Override
+    public String channel() {
+        return CHANNEL;
+    }
+
+    @Override
+    public void onNotification(String payload) {
+        BookingSettings settings = current.get();
+        if (settings == null || Long.parseLong(payload) > settings.version()) {
+            reload();
+        }
+    }
+
+    @Override
+    public void onListening() {
+        reload();
+    }
+}
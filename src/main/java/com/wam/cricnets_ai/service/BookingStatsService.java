@@ -0,0 +1,166 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.BookingStatus;
+import com.wam.cricnets_ai.model.WicketType;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import com.wam.cricnets_ai.repository.UserRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Dashboard statistics kept as counters. Committed creates and status changes adjust them as they
+ * happen; a periodic reconcile against the database corrects any drift, e.g. from writes made on
+ * other nodes. Utilization and operator load are read off the {@link SlotOccupancyIndex}.
+ */
+@Service
+public class BookingStatsService implements SmartInitializingSingleton {
+
+    private final BookingRepository bookingRepository;
+    private final UserRepository userRepository;
+    private final SlotOccupancyIndex slotOccupancyIndex;
+    private final BookingSettingsService bookingSettingsService;
+
+    // All guarded by this
+    private final long[] byStatus = new long[BookingStatus.values().length];
+    // Live bookings per future start time; entries are dropped from the head as their time passes
+    private final TreeMap<LocalDateTime, Long> upcomingStarts = new TreeMap<>();
+    private long upcoming;
+    private long totalUsers;
+
+    public BookingStatsService(BookingRepository bookingRepository, UserRepository userRepository,
+                               SlotOccupancyIndex slotOccupancyIndex, BookingSettingsService bookingSettingsService) {
+        this.bookingRepository = bookingRepository;
+        this.userRepository = userRepository;
+        this.slotOccupancyIndex = slotOccupancyIndex;
+        this.bookingSettingsService = bookingSettingsService;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "PT5M", initialDelayString = "PT5M")
+    public void reconcile() {
+        long[] statusCounts = new long[byStatus.length];
+        for (Object[] row : bookingRepository.countByStatus()) {
+            statusCounts[BookingStatus.valueOf(row[0].toString()).ordinal()] = ((Number) row[1]).longValue();
+        }
+        TreeMap<LocalDateTime, Long> starts = new TreeMap<>();
+        long upcomingCount = 0;
+        for (Object[] row : bookingRepository.countActiveByStartTimeAfter(LocalDateTime.now())) {
+            long count = ((Number) row[1]).longValue();
+            starts.put((LocalDateTime) row[0], count);
+            upcomingCount += count;
+        }
+        long users = userRepository.count();
+
+        synchronized (this) {
+            System.arraycopy(statusCounts, 0, byStatus, 0, byStatus.length);
+            upcomingStarts.clear();
+            upcomingStarts.putAll(starts);
+            upcoming = upcomingCount;
+            totalUsers = users;
+        }
+    }
+
+    @TransactionalEventListener
+    public void onCommitted(BookingStatusChange change) {
+        apply(change, LocalDateTime.now());
+    }
+
+    synchronized void apply(BookingStatusChange change, LocalDateTime now) {
+        if (change.previous() != null) {
+            byStatus[change.previous().ordinal()]--;
+            if (isLive(change.previous())) {
+                addUpcoming(change.startTime(), -1, now);
+            }
+        }
+        if (change.current() != null) {
+            byStatus[change.current().ordinal()]++;
+            if (isLive(change.current())) {
+                addUpcoming(change.startTime(), 1, now);
+            }
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("totalUsers", totalUsers);
+            long total = 0;
+            Map<BookingStatus, Long> statuses = new EnumMap<>(BookingStatus.class);
+            for (BookingStatus status : BookingStatus.values()) {
+                statuses.put(status, byStatus[status.ordinal()]);
+                total += byStatus[status.ordinal()];
+            }
+            stats.put("totalBookings", total);
+            stats.put("bookingsByStatus", statuses);
+            stats.put("upcomingBookings", upcomingBookings(now));
+        }
+        stats.put("wicketUtilizationToday", wicketUtilization(now.toLocalDate()));
+        stats.put("operatorLoad", operatorLoad(now));
+        return stats;
+    }
+
+    synchronized long upcomingBookings(LocalDateTime now) {
+        // Amortized O(1): each start time is dropped once, when it stops being in the future
+        while (!upcomingStarts.isEmpty() && !upcomingStarts.firstKey().isAfter(now)) {
+            upcoming -= upcomingStarts.pollFirstEntry().getValue();
+        }
+        return upcoming;
+    }
+
+    private void addUpcoming(LocalDateTime startTime, long delta, LocalDateTime now) {
+        if (startTime == null || !startTime.isAfter(now)) {
+            return;
+        }
+        Long updated = upcomingStarts.merge(startTime, delta, Long::sum);
+        if (updated != null && updated <= 0) {
+            upcomingStarts.remove(startTime);
+            upcoming += delta - updated;
+        } else {
+            upcoming += delta;
+        }
+    }
+
+    // Booked share of business hours per wicket, from the in-memory occupancy bitsets
+    private Map<WicketType, Double> wicketUtilization(LocalDate date) {
+        BookingSettings settings = bookingSettingsService.current();
+        int from = SlotOccupancyIndex.startMinute(date.atTime(settings.businessStart()));
+        int to = SlotOccupancyIndex.endMinute(date.atTime(settings.businessStart()), date.atTime(settings.businessEnd()));
+        Map<WicketType, Double> utilization = new EnumMap<>(WicketType.class);
+        for (WicketType wicketType : WicketType.values()) {
+            BitSet occupied = slotOccupancyIndex.occupiedMinutes(date, wicketType);
+            double share = to > from ? (double) occupied.get(from, to).cardinality() / (to - from) : 0;
+            utilization.put(wicketType, Math.round(share * 1000) / 10.0);
+        }
+        return utilization;
+    }
+
+    private Map<String, Object> operatorLoad(LocalDateTime now) {
+        BookingSettings settings = bookingSettingsService.current();
+        LocalDateTime minute = now.withSecond(0).withNano(0);
+        LocalDate today = now.toLocalDate();
+        Map<String, Object> load = new LinkedHashMap<>();
+        load.put("capacity", settings.operatorCount());
+        load.put("busyNow", slotOccupancyIndex.peakOperatorUsage(minute, minute.plusMinutes(1)));
+        load.put("peakToday", slotOccupancyIndex.peakOperatorUsage(today.atStartOfDay(), today.plusDays(1).atStartOfDay()));
+        return load;
+    }
+
+    private static boolean isLive(BookingStatus status) {
+        return status != BookingStatus.CANCELLED;
+    }
+}
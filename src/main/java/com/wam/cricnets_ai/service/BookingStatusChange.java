@@ -0,0 +1,14 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.BookingStatus;
+import com.wam.cricnets_ai.model.WicketType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A booking being created ({@code previous == null}) or moving between statuses. Published by
+ * {@link BookingService} inside the writing transaction.
+ */
+public record BookingStatusChange(LocalDateTime startTime, WicketType wicketType, BookingStatus previous,
+                                  BookingStatus current) {
+}
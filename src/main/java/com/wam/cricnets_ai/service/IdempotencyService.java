@@ -0,0 +1,206 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.Booking;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Replays booking requests retried under the same {@code Idempotency-Key}. The first execution
+ * records the ids it created in {@code idempotency_keys} in the same transaction as the bookings,
+ * also when the {@link BookingSequencer} writer commits them after the caller gave up waiting;
+ * retries are answered from a bounded in-memory cache or that table without booking again, and
+ * duplicates that arrive while the first is still running wait for its outcome. Failed executions
+ * are not recorded, so a retry after a failure runs again.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    static final int MAX_ENTRIES = 10_000;
+    static final int MAX_KEY_LENGTH = 255;
+    static final Duration RETENTION = Duration.ofHours(24);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookingService bookingService;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate, BookingService bookingService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookingService = bookingService;
+    }
+
+    public void createTable() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS idempotency_keys (
+                    user_email varchar(255) NOT NULL,
+                    idempotency_key varchar(255) NOT NULL,
+                    request_hash varchar(64) NOT NULL,
+                    booking_ids text,
+                    created_at timestamp NOT NULL,
+                    PRIMARY KEY (user_email, idempotency_key)
+                )""");
+    }
+
+    /**
+     * Runs {@code action} once per user and key, returning the bookings it created to every caller.
+     * {@code request} identifies the request body; reusing a key for a different body is rejected.
+     */
+    public List<Booking> execute(String userEmail, String idempotencyKey, Object request,
+                                 Supplier<List<Booking>> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters.");
+        }
+        Key key = new Key(userEmail == null ? "" : userEmail, idempotencyKey);
+        String requestHash = hash(String.valueOf(request));
+        Entry candidate = new Entry(requestHash, LocalDateTime.now(), new CompletableFuture<>());
+        Entry entry = entries.compute(key, (k, existing) ->
+                existing != null && !existing.ids().isCompletedExceptionally() ? existing : candidate);
+
+        if (entry == candidate) {
+            List<Booking> bookings;
+            try {
+                bookings = record(key, requestHash, action);
+            } catch (RuntimeException e) {
+                entries.remove(key, candidate);
+                candidate.ids().completeExceptionally(e);
+                throw e;
+            }
+            candidate.ids().complete(bookings.stream().map(Booking::getId).toList());
+            if (entries.size() > MAX_ENTRIES) {
+                evict();
+            }
+            return bookings;
+        }
+        if (!entry.requestHash().equals(requestHash)) {
+            throw reused();
+        }
+        try {
+            return entry.ids().join().stream().map(bookingService::getBookingById).toList();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    // Expired keys may be reused; the table only has to outlive client retries
+    @Scheduled(cron = "0 25 * * * *")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(RETENTION);
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?", Timestamp.valueOf(cutoff));
+        entries.values().removeIf(entry -> entry.createdAt().isBefore(cutoff) && entry.ids().isDone());
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Runs {@code action} without a transaction of its own, so a caller queued on the sequencer holds
+     * no connection while it waits. The key row is inserted with the booking ids by the transaction
+     * that saves the bookings; a duplicate on another node blocks on that insert until it commits,
+     * then fails on the key and finds the stored ids instead.
+     */
+    private List<Booking> record(Key key, String requestHash, Supplier<List<Booking>> action) {
+        Optional<List<Booking>> stored = stored(key, requestHash);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        AtomicBoolean recorded = new AtomicBoolean();
+        List<Booking> bookings;
+        try {
+            bookings = BookingOutcome.listening(saved -> {
+                insert(key, requestHash, saved);
+                recorded.set(true);
+            }, action);
+        } catch (RuntimeException e) {
+            // An earlier attempt that timed out, or a duplicate on another node, may have booked meanwhile
+            return stored(key, requestHash).orElseThrow(() -> e);
+        }
+        if (!recorded.get()) {
+            // The action saved nothing through BookingService, so nothing recorded it yet
+            insert(key, requestHash, bookings);
+        }
+        return bookings;
+    }
+
+    private Optional<List<Booking>> stored(Key key, String requestHash) {
+        List<Stored> stored = jdbcTemplate.query("""
+                SELECT request_hash, booking_ids FROM idempotency_keys
+                WHERE user_email = ? AND idempotency_key = ?""",
+                (rs, rowNum) -> new Stored(rs.getString("request_hash"), rs.getString("booking_ids")),
+                key.userEmail(), key.idempotencyKey());
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!stored.get(0).requestHash().equals(requestHash)) {
+            throw reused();
+        }
+        return Optional.of(decode(stored.get(0).bookingIds()).stream().map(bookingService::getBookingById).toList());
+    }
+
+    private void insert(Key key, String requestHash, List<Booking> bookings) {
+        jdbcTemplate.update("""
+                INSERT INTO idempotency_keys (user_email, idempotency_key, request_hash, booking_ids, created_at)
+                VALUES (?, ?, ?, ?, ?)""",
+                key.userEmail(), key.idempotencyKey(), requestHash,
+                bookings.stream().map(booking -> String.valueOf(booking.getId())).collect(Collectors.joining(",")),
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    // Entries past retention go first; if that is not enough, drop arbitrary finished entries
+    private void evict() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(RETENTION);
+        entries.values().removeIf(entry -> entry.createdAt().isBefore(cutoff) && entry.ids().isDone());
+        var it = entries.values().iterator();
+        while (entries.size() > MAX_ENTRIES && it.hasNext()) {
+            if (it.next().ids().isDone()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static List<Long> decode(String bookingIds) {
+        return bookingIds == null || bookingIds.isEmpty()
+                ? List.of()
+                : Arrays.stream(bookingIds.split(",")).map(Long::valueOf).toList();
+    }
+
+    private static IllegalArgumentException reused() {
+        return new IllegalArgumentException(HEADER + " was already used for a different request.");
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Key(String userEmail, String idempotencyKey) {
+    }
+
+    private record Entry(String requestHash, LocalDateTime createdAt, CompletableFuture<List<Long>> ids) {
+    }
+
+    private record Stored(String requestHash, String bookingIds) {
+    }
+}
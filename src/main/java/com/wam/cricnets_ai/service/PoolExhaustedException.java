@@ -0,0 +1,19 @@
+package com.wam.cricnets_ai.service;
+
+/**
+ * A {@link BookingConflictException} for a full {@link ResourcePool}, naming the pool so that a
+ * request that can do without it, e.g. a self-operated tennis machine, can try again.
+ */
+public class PoolExhaustedException extends BookingConflictException {
+
+    private final ResourcePool pool;
+
+    public PoolExhaustedException(ResourcePool pool) {
+        super("No " + pool.description() + " available for this time slot.");
+        this.pool = pool;
+    }
+
+    public ResourcePool pool() {
+        return pool;
+    }
+}
@@ -0,0 +1,45 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.Booking;
+import com.wam.cricnets_ai.model.MachineType;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A countable resource shared by all wickets that a booking holds for its whole duration: the
+ * machine operators, or the machines of one {@link MachineType}. Every machine type other than
+ * {@code NONE} is a pool of its own, so new types need no changes here.
+ */
+public record ResourcePool(String name) {
+
+    public static final ResourcePool OPERATOR = new ResourcePool("OPERATOR");
+    private static final String MACHINE_PREFIX = "MACHINE:";
+
+    public static ResourcePool machine(MachineType machineType) {
+        return new ResourcePool(MACHINE_PREFIX + machineType.name());
+    }
+
+    // Operators first, so claims always take pools in the same order
+    public static List<ResourcePool> required(MachineType machineType, boolean selfOperated) {
+        if (machineType == null || machineType == MachineType.NONE) {
+            return List.of();
+        }
+        return selfOperated ? List.of(machine(machineType)) : List.of(OPERATOR, machine(machineType));
+    }
+
+    public static List<ResourcePool> required(Booking booking) {
+        return required(booking.getMachineType(), booking.isSelfOperated());
+    }
+
+    public MachineType machineType() {
+        return name.startsWith(MACHINE_PREFIX) ? MachineType.valueOf(name.substring(MACHINE_PREFIX.length())) : null;
+    }
+
+    public String description() {
+        MachineType machineType = machineType();
+        return machineType == null
+                ? "machine operators"
+                : machineType.name().toLowerCase(Locale.ROOT).replace('_', ' ') + "s";
+    }
+}
@@ -0,0 +1,149 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.Booking;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Durable per-slot usage counters for every {@link ResourcePool}, in {@code resource_usage}. A
+ * booking claims one unit of each pool it needs in every slot it covers with a conditional
+ * upsert that only succeeds below capacity, so the check costs one row per slot however many
+ * bookings overlap. {@link SlotOccupancyIndex} mirrors the same counts in memory.
+ */
+@Service
+public class ResourcePoolService {
+
+    private static final String CLAIM = """
+            INSERT INTO resource_usage (pool, slot_start, used, capacity) VALUES (?, ?, ?, ?)
+            ON CONFLICT (pool, slot_start) DO UPDATE
+                SET used = resource_usage.used + EXCLUDED.used, capacity = EXCLUDED.capacity
+                WHERE resource_usage.used + EXCLUDED.used <= EXCLUDED.capacity""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookingRepository bookingRepository;
+    private final BookingSettingsService bookingSettingsService;
+
+    public ResourcePoolService(JdbcTemplate jdbcTemplate, BookingRepository bookingRepository,
+                               BookingSettingsService bookingSettingsService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookingRepository = bookingRepository;
+        this.bookingSettingsService = bookingSettingsService;
+    }
+
+    /**
+     * Claims the units every booking needs, or throws if any slot of any pool is full. Must run
+     * inside the transaction that writes the bookings, so a failure rolls the whole claim back.
+     * A failed claim also gives back the units it did get, so the caller may claim something
+     * else in the same transaction.
+     */
+    public void claim(List<Booking> bookings, BookingSettings settings) {
+        Map<Unit, Integer> amounts = units(bookings, settings.slotDurationMinutes());
+        for (Map.Entry<Unit, Integer> entry : amounts.entrySet()) {
+            if (entry.getValue() > settings.capacity(entry.getKey().pool())) {
+                throw exhausted(entry.getKey().pool());
+            }
+        }
+        if (amounts.isEmpty()) {
+            return;
+        }
+        // Sorted keys lock rows in one global order, so concurrent claims cannot deadlock
+        List<Unit> units = new ArrayList<>(amounts.keySet());
+        int[] updated = jdbcTemplate.batchUpdate(CLAIM, units, units.size(), (ps, unit) -> {
+            ps.setString(1, unit.pool().name());
+            ps.setTimestamp(2, Timestamp.valueOf(unit.slotStart()));
+            ps.setInt(3, amounts.get(unit));
+            ps.setInt(4, settings.capacity(unit.pool()));
+        })[0];
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                List<Unit> claimed = new ArrayList<>();
+                for (int j = 0; j < updated.length; j++) {
+                    if (updated[j] != 0) {
+                        claimed.add(units.get(j));
+                    }
+                }
+                if (!claimed.isEmpty()) {
+                    jdbcTemplate.batchUpdate("UPDATE resource_usage SET used = used - ? WHERE pool = ? AND slot_start = ?",
+                            claimed, claimed.size(), (ps, unit) -> {
+                                ps.setInt(1, amounts.get(unit));
+                                ps.setString(2, unit.pool().name());
+                                ps.setTimestamp(3, Timestamp.valueOf(unit.slotStart()));
+                            });
+                }
+                throw exhausted(units.get(i).pool());
+            }
+        }
+    }
+
+    // Frees every unit in the booking's range, whatever slot length was in force when it was claimed
+    public void release(Booking booking) {
+        for (ResourcePool pool : ResourcePool.required(booking)) {
+            jdbcTemplate.update("""
+                    UPDATE resource_usage SET used = used - 1
+                    WHERE pool = ? AND slot_start >= ? AND slot_start < ? AND used > 0""",
+                    pool.name(), Timestamp.valueOf(booking.getStartTime()), Timestamp.valueOf(booking.getEndTime()));
+        }
+    }
+
+    // Recounts today's and future slots from the bookings table, e.g. after the table is created
+    @Transactional
+    public void rebuild() {
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        BookingSettings settings = bookingSettingsService.current();
+        Map<Unit, Integer> amounts = units(bookingRepository.findActiveBookingsStartingFrom(from),
+                settings.slotDurationMinutes());
+        jdbcTemplate.update("DELETE FROM resource_usage WHERE slot_start >= ?", Timestamp.valueOf(from));
+        jdbcTemplate.batchUpdate("INSERT INTO resource_usage (pool, slot_start, used, capacity) VALUES (?, ?, ?, ?)",
+                new ArrayList<>(amounts.entrySet()), 500, (ps, entry) -> {
+                    ps.setString(1, entry.getKey().pool().name());
+                    ps.setTimestamp(2, Timestamp.valueOf(entry.getKey().slotStart()));
+                    ps.setInt(3, entry.getValue());
+                    ps.setInt(4, settings.capacity(entry.getKey().pool()));
+                });
+    }
+
+    @Scheduled(cron = "0 20 0 * * *")
+    public void purgePastSlots() {
+        jdbcTemplate.update("DELETE FROM resource_usage WHERE slot_start < ?", Timestamp.valueOf(LocalDate.now().atStartOfDay()));
+    }
+
+    public int used(ResourcePool pool, LocalDateTime slotStart) {
+        List<Integer> used = jdbcTemplate.queryForList("SELECT used FROM resource_usage WHERE pool = ? AND slot_start = ?",
+                Integer.class, pool.name(), Timestamp.valueOf(slotStart));
+        return used.isEmpty() ? 0 : used.get(0);
+    }
+
+    static PoolExhaustedException exhausted(ResourcePool pool) {
+        return new PoolExhaustedException(pool);
+    }
+
+    private static Map<Unit, Integer> units(List<Booking> bookings, int slotMinutes) {
+        Map<Unit, Integer> amounts = new TreeMap<>(Unit.ORDER);
+        for (Booking booking : bookings) {
+            for (ResourcePool pool : ResourcePool.required(booking)) {
+                for (LocalDateTime slot = booking.getStartTime(); slot.isBefore(booking.getEndTime());
+                     slot = slot.plusMinutes(slotMinutes)) {
+                    amounts.merge(new Unit(pool, slot), 1, Integer::sum);
+                }
+            }
+        }
+        return amounts;
+    }
+
+    record Unit(ResourcePool pool, LocalDateTime slotStart) {
+        static final Comparator<Unit> ORDER = Comparator.comparing((Unit u) -> u.pool().name())
+                .thenComparing(Unit::slotStart);
+    }
+}
@@ -0,0 +1,43 @@
+package com.wam.cricnets_ai.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.wam.cricnets_ai.model.Booking;
+import com.wam.cricnets_ai.model.WicketType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A range of a wicket becoming booked or free. Published by {@link BookingService} inside the
+ * writing transaction and delivered to listeners only once it commits. A {@code statusOnly} change
+ * is a booking whose status moved without taking or freeing the range, such as a session marked
+ * done; it only moves the version other nodes use for their ETags.
+ */
+public record SlotChange(WicketType wicketType, LocalDateTime startTime, LocalDateTime endTime, boolean booked,
+                         @JsonIgnore List<ResourcePool> pools, @JsonIgnore boolean statusOnly) {
+
+    public SlotChange(WicketType wicketType, LocalDateTime startTime, LocalDateTime endTime, boolean booked,
+                      List<ResourcePool> pools) {
+        this(wicketType, startTime, endTime, booked, pools, false);
+    }
+
+    static SlotChange booked(Booking booking) {
+        return new SlotChange(booking.getWicketType(), booking.getStartTime(), booking.getEndTime(), true,
+                ResourcePool.required(booking));
+    }
+
+    static SlotChange freed(Booking booking) {
+        return new SlotChange(booking.getWicketType(), booking.getStartTime(), booking.getEndTime(), false,
+                ResourcePool.required(booking));
+    }
+
+    static SlotChange statusChanged(Booking booking) {
+        return new SlotChange(booking.getWicketType(), booking.getStartTime(), booking.getEndTime(), true,
+                ResourcePool.required(booking), true);
+    }
+
+    public LocalDate date() {
+        return startTime.toLocalDate();
+    }
+}
@@ -0,0 +1,133 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.WicketType;
+import com.wam.cricnets_ai.service.BookingService.SlotStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of computed slot grids per (date, wicket). An entry is only served while both the
+ * config version and the {@link SlotOccupancyIndex} version of its wicket-day are unchanged, so any
+ * create, cancel or status change on that wicket-day invalidates it and nothing else. Concurrent
+ * misses for the same key share a single computation.
+ */
+@Component
+public class SlotGridCache {
+
+    static final int MAX_ENTRIES = 4096;
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    public SlotGrid get(LocalDate date, WicketType wicketType, long configVersion, long occupancyVersion,
+                        Supplier<SlotGrid> loader) {
+        Key key = new Key(date, wicketType);
+        Entry candidate = new Entry(configVersion, occupancyVersion, new CompletableFuture<>());
+        Entry entry = entries.compute(key, (k, existing) ->
+                existing != null && existing.matches(configVersion, occupancyVersion) ? existing : candidate);
+
+        if (entry == candidate) {
+            try {
+                candidate.grid.complete(loader.get());
+            } catch (RuntimeException e) {
+                entries.remove(key, candidate);
+                candidate.grid.completeExceptionally(e);
+                throw e;
+            }
+            if (entries.size() > MAX_ENTRIES) {
+                evict();
+            }
+        }
+        try {
+            return entry.grid.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // Past days go first; if that is not enough, drop arbitrary entries until back under the bound
+    private void evict() {
+        LocalDate today = LocalDate.now();
+        entries.keySet().removeIf(key -> key.date().isBefore(today));
+        var keys = entries.keySet().iterator();
+        while (entries.size() > MAX_ENTRIES && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private record Key(LocalDate date, WicketType wicketType) {
+    }
+
+    private record Entry(long configVersion, long occupancyVersion, CompletableFuture<SlotGrid> grid) {
+
+        boolean matches(long configVersion, long occupancyVersion) {
+            return this.configVersion == configVersion && this.occupancyVersion == occupancyVersion
+                    && !grid.isCompletedExceptionally();
+        }
+    }
+
+    /**
+     * The booked/available status of every slot of a wicket-day, with the "past" overlay applied
+     * per read so the boundary keeps moving without recomputing the grid.
+     */
+    public static final class SlotGrid {
+        private final LocalDateTime[] starts;
+        private final SlotStatus[] upcoming;
+        private final SlotStatus[] past;
+
+        SlotGrid(List<SlotStatus> slots) {
+            int n = slots.size();
+            this.starts = new LocalDateTime[n];
+            this.upcoming = new SlotStatus[n];
+            this.past = new SlotStatus[n];
+            for (int i = 0; i < n; i++) {
+                SlotStatus slot = slots.get(i);
+                starts[i] = slot.startTime();
+                upcoming[i] = slot;
+                past[i] = new SlotStatus(slot.startTime(), "Unavailable", false);
+            }
+        }
+
+        public List<SlotStatus> at(LocalDateTime now) {
+            int pastCount = pastCount(now);
+            return new AbstractList<>() {
+                @Override
+                public SlotStatus get(int index) {
+                    return index < pastCount ? past[index] : upcoming[index];
+                }
+
+                @Override
+                public int size() {
+                    return upcoming.length;
+                }
+            };
+        }
+
+        // Slot starts are ascending, so the past ones are a prefix
+        public int pastCount(LocalDateTime now) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid].isBefore(now)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
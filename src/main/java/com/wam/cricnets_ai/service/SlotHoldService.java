@@ -0,0 +1,265 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.config.PostgresNotificationHandler;
+import com.wam.cricnets_ai.model.WicketType;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Short holds on a wicket's slots while a player checks out. Each hold is marked in the
+ * {@link SlotOccupancyIndex} and expires from a {@link TimingWheel}; the {@code slot_holds} table
+ * carries an exclusion constraint so two nodes can never hand out the same range, and
+ * {@code pg_notify} on {@value #CHANNEL} tells the other nodes to mark or drop it too.
+ */
+@Service
+public class SlotHoldService implements PostgresNotificationHandler {
+
+    static final String CHANNEL = "slot_holds";
+    static final String HELD = "This slot is being held by another player. Please try again shortly.";
+    public static final int DEFAULT_HOLD_SECONDS = 120;
+    public static final int MAX_HOLD_SECONDS = 600;
+    // One-second ticks; 1024 buckets cover the longest hold without a second revolution
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 1024;
+    private static final String NODE_ID = UUID.randomUUID().toString();
+
+    private static final RowMapper<SlotHold> ROW_MAPPER = (rs, rowNum) -> new SlotHold(
+            rs.getObject("id", UUID.class), WicketType.valueOf(rs.getString("wicket_type")),
+            rs.getTimestamp("start_time").toLocalDateTime(), rs.getTimestamp("end_time").toLocalDateTime(),
+            rs.getTimestamp("expires_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SlotOccupancyIndex slotOccupancyIndex;
+    private final TimingWheel<UUID> wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+    // Holds this node currently marks in the index, local or remote
+    private final ConcurrentHashMap<UUID, Active> active = new ConcurrentHashMap<>();
+
+    public SlotHoldService(JdbcTemplate jdbcTemplate, SlotOccupancyIndex slotOccupancyIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.slotOccupancyIndex = slotOccupancyIndex;
+    }
+
+    public void createTable() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS slot_holds (
+                    id uuid PRIMARY KEY,
+                    wicket_type varchar(255) NOT NULL,
+                    start_time timestamp NOT NULL,
+                    end_time timestamp NOT NULL,
+                    user_email varchar(255) NOT NULL,
+                    expires_at timestamp NOT NULL,
+                    period tsrange GENERATED ALWAYS AS (tsrange(start_time, end_time, '[)')) STORED,
+                    CONSTRAINT slot_holds_no_overlap EXCLUDE USING gist (wicket_type WITH =, period WITH &&)
+                )""");
+    }
+
+    /**
+     * Holds {@code [startTime, endTime)} on the wicket for {@code ttl}. Fails if any of it is booked
+     * or held by someone else; expired holds in the way are cleared first.
+     */
+    @Transactional
+    public SlotHold hold(WicketType wicketType, LocalDateTime startTime, LocalDateTime endTime, Duration ttl,
+                         String userEmail) {
+        if (userEmail == null) {
+            throw new IllegalArgumentException("Holding a slot requires a signed-in user.");
+        }
+        SlotOccupancyIndex.Outcome outcome = slotOccupancyIndex.tryHold(wicketType, startTime, endTime);
+        if (outcome == SlotOccupancyIndex.Outcome.WICKET_TAKEN) {
+            throw new BookingConflictException(BookingService.ALREADY_BOOKED);
+        }
+        if (outcome != SlotOccupancyIndex.Outcome.RESERVED) {
+            throw new BookingConflictException(HELD);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        SlotHold hold = new SlotHold(UUID.randomUUID(), wicketType, startTime, endTime, now.plus(ttl));
+        try {
+            jdbcTemplate.update("""
+                    DELETE FROM slot_holds
+                    WHERE wicket_type = ? AND period && tsrange(?, ?, '[)') AND expires_at <= ?""",
+                    wicketType.name(), Timestamp.valueOf(startTime), Timestamp.valueOf(endTime), Timestamp.valueOf(now));
+            jdbcTemplate.update("""
+                    INSERT INTO slot_holds (id, wicket_type, start_time, end_time, user_email, expires_at)
+                    VALUES (?, ?, ?, ?, ?, ?)""",
+                    hold.id(), wicketType.name(), Timestamp.valueOf(startTime), Timestamp.valueOf(endTime),
+                    userEmail, Timestamp.valueOf(hold.expiresAt()));
+            notify(encode(hold));
+        } catch (DataIntegrityViolationException e) {
+            // SQLSTATE 23P01: another node holds part of the range
+            slotOccupancyIndex.releaseHold(wicketType, startTime, endTime);
+            throw new BookingConflictException(HELD);
+        } catch (RuntimeException e) {
+            slotOccupancyIndex.releaseHold(wicketType, startTime, endTime);
+            throw e;
+        }
+        afterCompletion(committed -> {
+            if (committed) {
+                track(hold);
+            } else {
+                slotOccupancyIndex.releaseHold(wicketType, startTime, endTime);
+            }
+        });
+        return hold;
+    }
+
+    // Gives a hold back before it expires, e.g. when the player leaves checkout
+    @Transactional
+    public void release(UUID holdId, String userEmail) {
+        List<SlotHold> released = jdbcTemplate.query("""
+                DELETE FROM slot_holds WHERE id = ? AND user_email = ?
+                RETURNING id, wicket_type, start_time, end_time, expires_at""", ROW_MAPPER, holdId, userEmail);
+        if (released.isEmpty()) {
+            throw new RuntimeException("Hold not found with id: " + holdId);
+        }
+        notify(String.join("|", "R", NODE_ID, holdId.toString()));
+        afterCompletion(committed -> {
+            if (committed) {
+                forget(holdId);
+            }
+        });
+    }
+
+    /**
+     * Removes a live hold of the user's so it can become a booking in the same transaction. Once
+     * that commits the hold is forgotten everywhere; if it rolls back, the row and its marks stay
+     * until the hold expires.
+     */
+    public SlotHold consume(UUID holdId, String userEmail) {
+        List<SlotHold> consumed = jdbcTemplate.query("""
+                DELETE FROM slot_holds WHERE id = ? AND user_email = ? AND expires_at > ?
+                RETURNING id, wicket_type, start_time, end_time, expires_at""",
+                ROW_MAPPER, holdId, userEmail, Timestamp.valueOf(LocalDateTime.now()));
+        if (consumed.isEmpty()) {
+            throw new IllegalArgumentException("Hold " + holdId + " has expired or does not belong to you.");
+        }
+        notify(String.join("|", "R", NODE_ID, holdId.toString()));
+        afterCompletion(committed -> {
+            if (committed) {
+                forget(holdId);
+            }
+        });
+        return consumed.get(0);
+    }
+
+    // Marks a hold again after a booking made from it rolled back, unless it has expired meanwhile
+    public void restore(SlotHold hold) {
+        active.computeIfPresent(hold.id(), (id, entry) -> {
+            slotOccupancyIndex.markHold(hold.wicketType(), hold.startTime(), hold.endTime());
+            return entry;
+        });
+    }
+
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public void expireHolds() {
+        wheel.advance(System.currentTimeMillis(), this::expire);
+    }
+
+    // Expired rows are only in the way of new holds, which clear them anyway; this keeps the table small
+    @Scheduled(fixedDelayString = "PT10M")
+    public void purgeExpired() {
+        jdbcTemplate.update("DELETE FROM slot_holds WHERE expires_at <= ?", Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public int activeHolds() {
+        return active.size();
+    }
+
+    @Override
+    public String channel() {
+        return CHANNEL;
+    }
+
+    @Override
+    public void onNotification(String payload) {
+        String[] parts = payload.split("\\|", -1);
+        if (parts.length < 3 || NODE_ID.equals(parts[1])) {
+            return;
+        }
+        if ("H".equals(parts[0]) && parts.length == 7) {
+            SlotHold hold = new SlotHold(UUID.fromString(parts[2]), WicketType.valueOf(parts[3]),
+                    LocalDateTime.parse(parts[4]), LocalDateTime.parse(parts[5]), LocalDateTime.parse(parts[6]));
+            slotOccupancyIndex.markHold(hold.wicketType(), hold.startTime(), hold.endTime());
+            track(hold);
+        } else if ("R".equals(parts[0])) {
+            forget(UUID.fromString(parts[2]));
+        }
+    }
+
+    // Holds taken or given back while the listener was down are lost, so start again from the table
+    @Override
+    public void onListening() {
+        List<SlotHold> live = jdbcTemplate.query("""
+                SELECT id, wicket_type, start_time, end_time, expires_at FROM slot_holds WHERE expires_at > ?""",
+                ROW_MAPPER, Timestamp.valueOf(LocalDateTime.now()));
+        active.keySet().forEach(this::forget);
+        for (SlotHold hold : live) {
+            slotOccupancyIndex.markHold(hold.wicketType(), hold.startTime(), hold.endTime());
+            track(hold);
+        }
+    }
+
+    private void track(SlotHold hold) {
+        long deadline = hold.expiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Active previous = active.put(hold.id(), new Active(hold, wheel.schedule(hold.id(), deadline)));
+        if (previous != null) {
+            previous.timeout().cancel();
+        }
+    }
+
+    private void forget(UUID holdId) {
+        Active entry = active.remove(holdId);
+        if (entry != null) {
+            entry.timeout().cancel();
+            slotOccupancyIndex.releaseHold(entry.hold().wicketType(), entry.hold().startTime(), entry.hold().endTime());
+        }
+    }
+
+    // Clears the marks in the same step as dropping the entry, so a concurrent restore cannot re-mark them
+    private void expire(UUID holdId) {
+        active.computeIfPresent(holdId, (id, entry) -> {
+            slotOccupancyIndex.releaseHold(entry.hold().wicketType(), entry.hold().startTime(), entry.hold().endTime());
+            return null;
+        });
+    }
+
+    private void notify(String payload) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payload);
+    }
+
+    private static String encode(SlotHold hold) {
+        return String.join("|", "H", NODE_ID, hold.id().toString(), hold.wicketType().name(),
+                hold.startTime().toString(), hold.endTime().toString(), hold.expiresAt().toString());
+    }
+
+    private static void afterCompletion(Consumer<Boolean> action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.accept(status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            action.accept(true);
+        }
+    }
+
+    private record Active(SlotHold hold, TimingWheel.Timeout<UUID> timeout) {}
+
+    public record SlotHold(UUID id, WicketType wicketType, LocalDateTime startTime, LocalDateTime endTime,
+                           LocalDateTime expiresAt) {}
+}
@@ -0,0 +1,527 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.Booking;
+import com.wam.cricnets_ai.model.BookingStatus;
+import com.wam.cricnets_ai.model.WicketType;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * In-memory view of which minutes are taken on each wicket, per day, plus how many units
+ * of each {@link ResourcePool} are in use in each minute. Rebuilt from {@link BookingRepository}
+ * on startup and kept current by {@link BookingService} on every create, cancel and
+ * status change, so slot reads and conflict checks never need a database round trip. Minutes
+ * under a checkout hold are tracked apart from booked ones and kept current by {@link SlotHoldService}.
+ */
+@Component
+public class SlotOccupancyIndex implements SmartInitializingSingleton {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    public enum Outcome {
+        RESERVED,
+        WICKET_TAKEN,
+        WICKET_HELD,
+        POOL_EXHAUSTED
+    }
+
+    // Sentinel returned by DayOccupancy.tryReserve when the wicket itself is taken
+    private static final ResourcePool WICKET = new ResourcePool("WICKET");
+    // Sentinel returned when the wicket is free but someone else holds it
+    private static final ResourcePool HELD = new ResourcePool("HELD");
+
+    // Shared by all days so a version is never reused, even after a day is evicted or rebuilt
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final BookingRepository bookingRepository;
+    // Versions restart on every boot and differ between nodes, so tags built from them carry this too
+    private final String epoch = UUID.randomUUID().toString();
+    // Replaced as a whole by rebuild; writers hold the read lock so none lands in a map being replaced
+    private volatile ConcurrentHashMap<LocalDate, DayOccupancy> days = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // Claims whose bookings are not committed yet, so a rebuild from the table would miss them
+    private final Set<Claim> pending = ConcurrentHashMap.newKeySet();
+
+    public SlotOccupancyIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Reloads the committed bookings into a new map and swaps it in. Claims still in flight are
+     * carried over, unless the reloaded rows already cover their range: then the claim either
+     * committed in the meantime or is bound to fail on the overlap constraint. Holds are not in the
+     * bookings table, so they are carried over as they are.
+     */
+    public void rebuild() {
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        List<Booking> active = bookingRepository.findActiveBookingsStartingFrom(from);
+        ConcurrentHashMap<LocalDate, DayOccupancy> rebuilt = new ConcurrentHashMap<>();
+        active.forEach(booking -> add(rebuilt, booking));
+        swapLock.writeLock().lock();
+        try {
+            for (Claim claim : pending) {
+                DayOccupancy day = rebuilt.computeIfAbsent(claim.startTime.toLocalDate(), d -> new DayOccupancy());
+                int start = startMinute(claim.startTime);
+                int end = endMinute(claim.startTime, claim.endTime);
+                if (day.isFree(claim.wicketType, start, end)) {
+                    day.mark(claim.wicketType, start, end, claim.pools);
+                    claim.day = day;
+                } else {
+                    claim.day = null;
+                    pending.remove(claim);
+                }
+            }
+            days.forEach((date, day) -> rebuilt.computeIfAbsent(date, d -> new DayOccupancy()).restoreHeld(day.heldSnapshot()));
+            days = rebuilt;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(cron = "0 5 0 * * *")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        days.keySet().removeIf(day -> day.isBefore(today));
+    }
+
+    /**
+     * Atomically checks that the wicket is free for the whole range and that every pool has a
+     * unit left below its capacity in every minute of it. On success the range and one unit of
+     * each pool are marked as taken.
+     */
+    public Claim tryReserve(WicketType wicketType, LocalDateTime startTime, LocalDateTime endTime,
+                            List<ResourcePool> pools, ToIntFunction<ResourcePool> capacity) {
+        return reserve(wicketType, startTime, endTime, pools, capacity, false);
+    }
+
+    /**
+     * Turns a hold into a booking: the held minutes are released and marked as booked in one step,
+     * without checking the wicket again, since the hold already kept everyone else off it. Pools are
+     * still checked, as a hold does not reserve operators or machines. A range this node no longer
+     * sees as held, e.g. because its hold expired here a moment early, falls back to {@link #tryReserve}.
+     */
+    public Claim convertHold(WicketType wicketType, LocalDateTime startTime, LocalDateTime endTime,
+                             List<ResourcePool> pools, ToIntFunction<ResourcePool> capacity) {
+        return reserve(wicketType, startTime, endTime, pools, capacity, true);
+    }
+
+    /**
+     * Marks the range as held if no one has booked or held any of it. Held minutes read as
+     * unavailable but use no resource pool units.
+     */
+    public Outcome tryHold(WicketType wicketType, LocalDateTime startTime, LocalDateTime endTime) {
+        swapLock.readLock().lock();
+        try {
+            DayOccupancy day = days.computeIfAbsent(startTime.toLocalDate(), d -> new DayOccupancy());
+            ResourcePool blocked = day.tryHold(wicketType, startMinute(startTime), endMinute(startTime, endTime));
+            return blocked == null ? Outcome.RESERVED : blocked == WICKET ? Outcome.WICKET_TAKEN : Outcome.WICKET_HELD;
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    // Marks a hold taken elsewhere, e.g. on another node, without checking it
+    public void markHold(WicketType wicketType, LocalDateTime startTime, LocalDateTime endTime) {
+        swapLock.readLock().lock();
+        try {
+            days.computeIfAbsent(startTime.toLocalDate(), d -> new DayOccupancy())
+                    .setHeld(wicketType, startMinute(startTime), endMinute(startTime, endTime), true);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    public void releaseHold(WicketType wicketType, LocalDateTime startTime, LocalDateTime endTime) {
+        swapLock.readLock().lock();
+        try {
+            DayOccupancy day = days.get(startTime.toLocalDate());
+            if (day != null) {
+                day.setHeld(wicketType, startMinute(startTime), endMinute(startTime, endTime), false);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    public void add(Booking booking) {
+        swapLock.readLock().lock();
+        try {
+            add(days, booking);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private static void add(Map<LocalDate, DayOccupancy> days, Booking booking) {
+        if (!isIndexable(booking) || booking.getStatus() == BookingStatus.CANCELLED) {
+            return;
+        }
+        DayOccupancy day = days.computeIfAbsent(booking.getStartTime().toLocalDate(), d -> new DayOccupancy());
+        day.mark(booking.getWicketType(), startMinute(booking.getStartTime()),
+                endMinute(booking.getStartTime(), booking.getEndTime()), ResourcePool.required(booking));
+    }
+
+    public void remove(Booking booking) {
+        if (!isIndexable(booking)) {
+            return;
+        }
+        release(booking.getWicketType(), booking.getStartTime(), booking.getEndTime(), ResourcePool.required(booking));
+    }
+
+    // Applies a change committed elsewhere, e.g. on another node
+    public void apply(SlotChange change) {
+        if (change.statusOnly()) {
+            recordChange();
+            return;
+        }
+        if (!change.booked()) {
+            release(change.wicketType(), change.startTime(), change.endTime(), change.pools());
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            days.computeIfAbsent(change.date(), d -> new DayOccupancy()).mark(change.wicketType(),
+                    startMinute(change.startTime()), endMinute(change.startTime(), change.endTime()), change.pools());
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    public boolean isFree(WicketType wicketType, LocalDateTime startTime, LocalDateTime endTime) {
+        DayOccupancy day = days.get(startTime.toLocalDate());
+        return day == null || day.isFree(wicketType, startMinute(startTime), endMinute(startTime, endTime));
+    }
+
+    /**
+     * Returns a copy of the taken minutes for one wicket on one day; bit {@code n} is minute
+     * {@code n} after midnight.
+     */
+    public BitSet occupiedMinutes(LocalDate date, WicketType wicketType) {
+        DayOccupancy day = days.get(date);
+        return day == null ? new BitSet(MINUTES_PER_DAY) : day.snapshot(wicketType);
+    }
+
+    // Like occupiedMinutes, for the minutes under a hold that has not been booked yet
+    public BitSet heldMinutes(LocalDate date, WicketType wicketType) {
+        DayOccupancy day = days.get(date);
+        return day == null ? new BitSet(MINUTES_PER_DAY) : day.heldSnapshot()[wicketType.ordinal()];
+    }
+
+    /**
+     * Changes whenever the occupancy or holds of this wicket on this day change; 0 if nothing was ever
+     * recorded for it.
+     */
+    public long version(LocalDate date, WicketType wicketType) {
+        DayOccupancy day = days.get(date);
+        return day == null ? 0 : day.version(wicketType);
+    }
+
+    /**
+     * Changes whenever any booking this node knows about changes, including status changes that
+     * leave occupancy alone.
+     */
+    public long version() {
+        return VERSIONS.get();
+    }
+
+    /**
+     * Identifies this index instance. A version only means something together with the epoch it
+     * was read under: another node, or this one after a restart, can reach the same number with
+     * different content.
+     */
+    public String epoch() {
+        return epoch;
+    }
+
+    // For writes such as marking a session done, which must move version() but free no minutes
+    public void recordChange() {
+        VERSIONS.incrementAndGet();
+    }
+
+    public int peakUsage(ResourcePool pool, LocalDateTime startTime, LocalDateTime endTime) {
+        DayOccupancy day = days.get(startTime.toLocalDate());
+        return day == null ? 0 : day.peakUsage(pool, startMinute(startTime), endMinute(startTime, endTime));
+    }
+
+    public int peakOperatorUsage(LocalDateTime startTime, LocalDateTime endTime) {
+        return peakUsage(ResourcePool.OPERATOR, startTime, endTime);
+    }
+
+    static boolean anyOccupied(BitSet occupied, int fromMinute, int toMinute) {
+        int next = occupied.nextSetBit(fromMinute);
+        return next >= 0 && next < toMinute;
+    }
+
+    static int startMinute(LocalDateTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    static int endMinute(LocalDateTime startTime, LocalDateTime endTime) {
+        // A range that runs past midnight is clamped to the end of its start day
+        if (endTime.toLocalDate().isAfter(startTime.toLocalDate())) {
+            return MINUTES_PER_DAY;
+        }
+        return startMinute(endTime);
+    }
+
+    private Claim reserve(WicketType wicketType, LocalDateTime startTime, LocalDateTime endTime,
+                          List<ResourcePool> pools, ToIntFunction<ResourcePool> capacity, boolean fromHold) {
+        swapLock.readLock().lock();
+        try {
+            DayOccupancy day = days.computeIfAbsent(startTime.toLocalDate(), d -> new DayOccupancy());
+            ResourcePool blocked = day.tryReserve(wicketType, startMinute(startTime), endMinute(startTime, endTime),
+                    pools, capacity, fromHold);
+            Outcome outcome = blocked == null ? Outcome.RESERVED
+                    : blocked == WICKET ? Outcome.WICKET_TAKEN
+                    : blocked == HELD ? Outcome.WICKET_HELD
+                    : Outcome.POOL_EXHAUSTED;
+            Claim claim = new Claim(outcome, outcome == Outcome.POOL_EXHAUSTED ? blocked : null, wicketType,
+                    startTime, endTime, pools);
+            if (claim.reserved()) {
+                claim.day = day;
+                pending.add(claim);
+            }
+            return claim;
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void release(WicketType wicketType, LocalDateTime startTime, LocalDateTime endTime, List<ResourcePool> pools) {
+        swapLock.readLock().lock();
+        try {
+            DayOccupancy day = days.get(startTime.toLocalDate());
+            if (day != null) {
+                day.clear(wicketType, startMinute(startTime), endMinute(startTime, endTime), pools);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    int pendingClaims() {
+        return pending.size();
+    }
+
+    private static boolean isIndexable(Booking booking) {
+        return booking.getStartTime() != null && booking.getEndTime() != null && booking.getWicketType() != null;
+    }
+
+    /**
+     * Result of {@link #tryReserve} or {@link #convertHold}. A successful claim is either settled
+     * once its booking is committed, or released exactly once, e.g. when the transaction that made
+     * it rolls back.
+     */
+    public final class Claim {
+        private final Outcome outcome;
+        private final ResourcePool exhaustedPool;
+        private final WicketType wicketType;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final List<ResourcePool> pools;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        // The day the claim is marked in; moved by rebuild, null once the bookings table covers it
+        private DayOccupancy day;
+
+        private Claim(Outcome outcome, ResourcePool exhaustedPool, WicketType wicketType, LocalDateTime startTime,
+                      LocalDateTime endTime, List<ResourcePool> pools) {
+            this.outcome = outcome;
+            this.exhaustedPool = exhaustedPool;
+            this.wicketType = wicketType;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.pools = pools;
+        }
+
+        public Outcome outcome() {
+            return outcome;
+        }
+
+        // The first pool found at capacity when the outcome is POOL_EXHAUSTED
+        public ResourcePool exhaustedPool() {
+            return exhaustedPool;
+        }
+
+        public boolean reserved() {
+            return outcome == Outcome.RESERVED;
+        }
+
+        public void release() {
+            if (!reserved() || !released.compareAndSet(false, true)) {
+                return;
+            }
+            swapLock.readLock().lock();
+            try {
+                pending.remove(this);
+                if (day != null) {
+                    day.clear(wicketType, startMinute(startTime), endMinute(startTime, endTime), pools);
+                }
+            } finally {
+                swapLock.readLock().unlock();
+            }
+        }
+
+        // The booking is committed, so from now on the bookings table accounts for it
+        public void settle() {
+            pending.remove(this);
+        }
+    }
+
+    private static final class DayOccupancy {
+        private final BitSet[] wickets = new BitSet[WicketType.values().length];
+        // Claims per minute behind the wickets bits. Nodes can briefly disagree, so a stale local
+        // claim and a relayed booking may both cover a minute, and releasing one must keep the other
+        private final short[][] claims = new short[WicketType.values().length][];
+        private final BitSet[] held = new BitSet[WicketType.values().length];
+        // Units in use per minute, allocated the first time a pool is used on this day
+        private final Map<ResourcePool, short[]> usage = new HashMap<>();
+        private final long[] versions = new long[WicketType.values().length];
+
+        DayOccupancy() {
+            for (int i = 0; i < wickets.length; i++) {
+                wickets[i] = new BitSet(MINUTES_PER_DAY);
+                claims[i] = new short[MINUTES_PER_DAY];
+                held[i] = new BitSet(MINUTES_PER_DAY);
+            }
+        }
+
+        /**
+         * Returns null on success, WICKET or HELD if the wicket is taken, or the first exhausted pool.
+         * With fromHold, a range that is wholly held is booked without looking at the wicket.
+         */
+        synchronized ResourcePool tryReserve(WicketType wicketType, int from, int to, List<ResourcePool> pools,
+                                             ToIntFunction<ResourcePool> capacity, boolean fromHold) {
+            BitSet heldMinutes = held[wicketType.ordinal()];
+            boolean converting = fromHold && heldMinutes.nextClearBit(from) >= to;
+            if (!converting) {
+                if (anyOccupied(wickets[wicketType.ordinal()], from, to)) {
+                    return WICKET;
+                }
+                if (anyOccupied(heldMinutes, from, to)) {
+                    return HELD;
+                }
+            }
+            for (ResourcePool pool : pools) {
+                if (peakUsage(pool, from, to) >= capacity.applyAsInt(pool)) {
+                    return pool;
+                }
+            }
+            if (converting) {
+                heldMinutes.clear(from, to);
+            }
+            mark(wicketType, from, to, pools);
+            return null;
+        }
+
+        synchronized ResourcePool tryHold(WicketType wicketType, int from, int to) {
+            if (anyOccupied(wickets[wicketType.ordinal()], from, to)) {
+                return WICKET;
+            }
+            if (anyOccupied(held[wicketType.ordinal()], from, to)) {
+                return HELD;
+            }
+            setHeld(wicketType, from, to, true);
+            return null;
+        }
+
+        synchronized void setHeld(WicketType wicketType, int from, int to, boolean value) {
+            held[wicketType.ordinal()].set(from, to, value);
+            versions[wicketType.ordinal()] = VERSIONS.incrementAndGet();
+        }
+
+        synchronized BitSet[] heldSnapshot() {
+            BitSet[] copy = new BitSet[held.length];
+            for (int i = 0; i < held.length; i++) {
+                copy[i] = (BitSet) held[i].clone();
+            }
+            return copy;
+        }
+
+        synchronized void restoreHeld(BitSet[] minutes) {
+            for (int i = 0; i < held.length; i++) {
+                held[i].or(minutes[i]);
+                if (!minutes[i].isEmpty()) {
+                    versions[i] = VERSIONS.incrementAndGet();
+                }
+            }
+        }
+
+        synchronized void mark(WicketType wicketType, int from, int to, List<ResourcePool> pools) {
+            short[] claimed = claims[wicketType.ordinal()];
+            for (int m = from; m < to; m++) {
+                claimed[m]++;
+            }
+            wickets[wicketType.ordinal()].set(from, to);
+            versions[wicketType.ordinal()] = VERSIONS.incrementAndGet();
+            for (ResourcePool pool : pools) {
+                short[] used = usage.computeIfAbsent(pool, p -> new short[MINUTES_PER_DAY]);
+                for (int m = from; m < to; m++) {
+                    used[m]++;
+                }
+            }
+        }
+
+        synchronized void clear(WicketType wicketType, int from, int to, List<ResourcePool> pools) {
+            short[] claimed = claims[wicketType.ordinal()];
+            for (int m = from; m < to; m++) {
+                if (claimed[m] > 0 && --claimed[m] == 0) {
+                    wickets[wicketType.ordinal()].clear(m);
+                }
+            }
+            versions[wicketType.ordinal()] = VERSIONS.incrementAndGet();
+            for (ResourcePool pool : pools) {
+                short[] used = usage.get(pool);
+                if (used == null) {
+                    continue;
+                }
+                for (int m = from; m < to; m++) {
+                    if (used[m] > 0) {
+                        used[m]--;
+                    }
+                }
+            }
+        }
+
+        synchronized boolean isFree(WicketType wicketType, int from, int to) {
+            return !anyOccupied(wickets[wicketType.ordinal()], from, to);
+        }
+
+        synchronized long version(WicketType wicketType) {
+            return versions[wicketType.ordinal()];
+        }
+
+        synchronized BitSet snapshot(WicketType wicketType) {
+            return (BitSet) wickets[wicketType.ordinal()].clone();
+        }
+
+        synchronized int peakUsage(ResourcePool pool, int from, int to) {
+            short[] used = usage.get(pool);
+            int peak = 0;
+            for (int m = from; used != null && m < to; m++) {
+                peak = Math.max(peak, used[m]);
+            }
+            return peak;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.WicketType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes committed {@link SlotChange}s to Server-Sent Event subscribers of one wicket-day. Each
+ * subscriber has a small bounded queue drained by its own virtual thread, so publishing never
+ * blocks the booking thread. A subscriber that falls behind loses its queued deltas and is sent a
+ * fresh snapshot instead.
+ */
+@Service
+public class SlotStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotStreamService.class);
+
+    static final int BUFFER_SIZE = 64;
+    private static final Duration EMITTER_TIMEOUT = Duration.ofMinutes(30);
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(25);
+    // Queued to wake a subscriber thread up; never sent to the client
+    private static final SlotChange WAKE_UP = new SlotChange(null, null, null, false, List.of());
+
+    private final BookingService bookingService;
+    private final ConcurrentHashMap<Topic, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    public SlotStreamService(BookingService bookingService) {
+        this.bookingService = bookingService;
+    }
+
+    public SseEmitter subscribe(LocalDate date, WicketType wicketType) {
+        Topic topic = new Topic(date, wicketType);
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT.toMillis());
+        Subscriber subscriber = new Subscriber(topic, emitter);
+        subscribers.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        Thread.ofVirtual().name("slot-stream-" + date + "-" + wicketType).start(subscriber::run);
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void onCommitted(SlotChange change) {
+        publish(change);
+    }
+
+    // Also called for changes committed on other nodes
+    void publish(SlotChange change) {
+        // Subscribers follow availability, which a status-only change leaves alone
+        if (change.wicketType() == null || change.startTime() == null || change.statusOnly()) {
+            return;
+        }
+        Set<Subscriber> topicSubscribers = subscribers.get(new Topic(change.date(), change.wicketType()));
+        if (topicSubscribers != null) {
+            topicSubscribers.forEach(subscriber -> subscriber.offer(change));
+        }
+    }
+
+    int subscriberCount(LocalDate date, WicketType wicketType) {
+        Set<Subscriber> topicSubscribers = subscribers.get(new Topic(date, wicketType));
+        return topicSubscribers == null ? 0 : topicSubscribers.size();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.topic, (topic, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private record Topic(LocalDate date, WicketType wicketType) {
+    }
+
+    private final class Subscriber {
+        private final Topic topic;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SlotChange> queue = new ArrayBlockingQueue<>(BUFFER_SIZE);
+        // Starts set so the first thing a subscriber receives is the current grid
+        private final AtomicBoolean resync = new AtomicBoolean(true);
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        Subscriber(Topic topic, SseEmitter emitter) {
+            this.topic = topic;
+            this.emitter = emitter;
+        }
+
+        void offer(SlotChange change) {
+            if (!queue.offer(change)) {
+                // Deltas are useless once one is missing; drop them all and send a snapshot instead
+                resync.set(true);
+                wakeUp();
+            }
+        }
+
+        private void wakeUp() {
+            queue.clear();
+            queue.offer(WAKE_UP);
+        }
+
+        void run() {
+            try {
+                while (!closed.get()) {
+                    if (resync.getAndSet(false)) {
+                        queue.clear();
+                        emitter.send(SseEmitter.event().name("snapshot")
+                                .data(bookingService.getSlotsForDay(topic.date(), topic.wicketType())));
+                        continue;
+                    }
+                    SlotChange change = queue.poll(HEARTBEAT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+                    if (change == WAKE_UP) {
+                        continue;
+                    }
+                    if (change == null) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    } else {
+                        emitter.send(SseEmitter.event().name(change.booked() ? "booked" : "freed").data(change));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Slot stream subscriber for {} disconnected: {}", topic, e.getMessage());
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                unsubscribe(this);
+                wakeUp();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.wam.cricnets_ai.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: each entry lands in the bucket of its deadline tick, with a count of full
+ * revolutions still to wait when the deadline is further out than the wheel is long. Scheduling
+ * and cancelling are O(1) and each tick only looks at one bucket, however many entries are pending.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<Set<Timeout<T>>> buckets;
+    // The next tick to expire; everything before it has already been handed out
+    private long currentTick;
+    private int pending;
+
+    TimingWheel(long tickMillis, int size, long startMillis) {
+        if (tickMillis <= 0 || size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Tick must be positive and size a power of two.");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new LinkedHashSet<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    // A deadline already in the past expires on the next advance
+    synchronized Timeout<T> schedule(T item, long deadlineMillis) {
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick);
+        Timeout<T> timeout = new Timeout<>(this, item, (tick - currentTick) / buckets.size(), (int) (tick & mask));
+        buckets.get(timeout.bucket).add(timeout);
+        pending++;
+        return timeout;
+    }
+
+    /**
+     * Expires every entry whose deadline is at or before {@code nowMillis}. The callback runs after
+     * the wheel's lock is released, so it may schedule or cancel entries itself.
+     */
+    void advance(long nowMillis, Consumer<T> onExpired) {
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            long lastTick = nowMillis / tickMillis;
+            for (; currentTick <= lastTick; currentTick++) {
+                var it = buckets.get((int) (currentTick & mask)).iterator();
+                while (it.hasNext()) {
+                    Timeout<T> timeout = it.next();
+                    if (timeout.rounds > 0) {
+                        timeout.rounds--;
+                        continue;
+                    }
+                    it.remove();
+                    timeout.done = true;
+                    pending--;
+                    expired.add(timeout.item);
+                }
+                if (pending == 0) {
+                    // Nothing left to expire; skip the idle ticks in one step
+                    currentTick = lastTick;
+                }
+            }
+        }
+        expired.forEach(onExpired);
+    }
+
+    synchronized int size() {
+        return pending;
+    }
+
+    private synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.done) {
+            return false;
+        }
+        timeout.done = true;
+        buckets.get(timeout.bucket).remove(timeout);
+        pending--;
+        return true;
+    }
+
+    static final class Timeout<T> {
+        private final TimingWheel<T> wheel;
+        private final T item;
+        private final int bucket;
+        private long rounds;
+        private boolean done;
+
+        private Timeout(TimingWheel<T> wheel, T item, long rounds, int bucket) {
+            this.wheel = wheel;
+            this.item = item;
+            this.rounds = rounds;
+            this.bucket = bucket;
+        }
+
+        // Returns false if the entry already expired or was cancelled
+        boolean cancel() {
+            return wheel.cancel(this);
+        }
+    }
+}
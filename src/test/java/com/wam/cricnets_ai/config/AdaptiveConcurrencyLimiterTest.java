@@ -0,0 +1,66 @@
+package com.wam.cricnets_ai.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    void testRequestsOverTheLimitAreRejected() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("write", 2, 1, 10);
+
+        AdaptiveConcurrencyLimiter.Permit first = limiter.tryAcquire();
+        assertNotNull(first);
+        assertNotNull(limiter.tryAcquire());
+        assertNull(limiter.tryAcquire());
+        assertEquals(1, limiter.snapshot().rejected());
+
+        first.onIgnore();
+        assertNotNull(limiter.tryAcquire());
+    }
+
+    @Test
+    void testLimitGrowsWhileLatencyHoldsAndShrinksWhenItRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read", 10, 2, 100);
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(10 * MILLIS, 10);
+        }
+        int grown = limiter.getLimit();
+        assertTrue(grown > 10, "limit should grow at steady latency, was " + grown);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(100 * MILLIS, grown);
+        }
+        assertTrue(limiter.getLimit() < grown, "limit should shrink when latency rises");
+    }
+
+    @Test
+    void testIdleLimitDoesNotGrow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read", 20, 2, 100);
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(10 * MILLIS, 1);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void testDropsBackOffButNeverBelowTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("write", 10, 4, 100);
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            permits.add(limiter.tryAcquire());
+        }
+        permits.get(0).onDropped();
+        assertEquals(9, limiter.getLimit());
+
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::onDropped);
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.snapshot().inFlight());
+    }
+}
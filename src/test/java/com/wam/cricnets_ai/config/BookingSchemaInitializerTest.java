@@ -0,0 +1,42 @@
+package com.wam.cricnets_ai.config;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BookingSchemaInitializerTest {
+
+    private final JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    private final BookingSchemaInitializer initializer = new BookingSchemaInitializer();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOverlappingBookingsFailStartupWithTheirIds() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any(Object[].class))).thenReturn(0);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of("3/8", "5/9"));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> initializer.addOverlapConstraint(jdbcTemplate));
+
+        assertTrue(exception.getMessage().contains("3/8, 5/9"), exception.getMessage());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConstraintIsAddedWhenNothingOverlaps() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any(Object[].class))).thenReturn(0);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of());
+
+        initializer.addOverlapConstraint(jdbcTemplate);
+
+        verify(jdbcTemplate).execute(contains("ADD CONSTRAINT " + BookingSchemaInitializer.OVERLAP_CONSTRAINT));
+    }
+}
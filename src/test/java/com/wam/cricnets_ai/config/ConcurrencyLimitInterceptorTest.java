@@ -0,0 +1,57 @@
+package com.wam.cricnets_ai.config;
+
+import com.wam.cricnets_ai.service.BookingConflictException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitInterceptorTest {
+
+    private final ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(new BookingConfig());
+
+    @Test
+    void testRejectedBookingsDoNotShrinkTheWriteLimit() {
+        int before = writeLimit();
+
+        for (int i = 0; i < 10; i++) {
+            complete(409, null);
+            complete(400, null);
+        }
+
+        assertTrue(writeLimit() >= before, "4xx answers are not overload");
+    }
+
+    @Test
+    void testServerErrorsShrinkTheWriteLimit() {
+        int before = writeLimit();
+
+        complete(500, null);
+
+        assertTrue(writeLimit() < before);
+    }
+
+    @Test
+    void testOnlyOverloadSignalsAreDrops() {
+        assertFalse(ConcurrencyLimitInterceptor.isOverload(200, null));
+        assertFalse(ConcurrencyLimitInterceptor.isOverload(409, null));
+        assertFalse(ConcurrencyLimitInterceptor.isOverload(500, new BookingConflictException("This wicket is already booked for the selected time.")));
+        assertFalse(ConcurrencyLimitInterceptor.isOverload(500, new IllegalArgumentException("Duration must be 30 or 60 minutes")));
+        assertTrue(ConcurrencyLimitInterceptor.isOverload(200, new QueryTimeoutException("timed out")));
+        assertTrue(ConcurrencyLimitInterceptor.isOverload(503, null));
+    }
+
+    private void complete(int status, Exception ex) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/bookings");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(request, response, new Object()));
+        response.setStatus(status);
+        interceptor.afterCompletion(request, response, new Object(), ex);
+    }
+
+    private int writeLimit() {
+        return interceptor.snapshots().get(1).limit();
+    }
+}
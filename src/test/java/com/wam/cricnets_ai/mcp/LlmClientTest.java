@@ -0,0 +1,227 @@
+package com.wam.cricnets_ai.mcp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmClientTest {
+
+    private static final String COMPLETION = "{\"choices\": [{\"message\": {\"content\": \"{\\\"tool\\\": \\\"get_upcoming_bookings\\\"}\"}}]}";
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile Handler handler = exchange -> respond(exchange, 200, COMPLETION);
+    private SimpleMeterRegistry meterRegistry;
+    private LlmClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/chat/completions", exchange -> {
+            requests.incrementAndGet();
+            try {
+                handler.handle(exchange);
+            } catch (Exception e) {
+                exchange.close();
+            }
+        });
+        server.start();
+        meterRegistry = new SimpleMeterRegistry();
+        client = client(4, 3, 5, Duration.ofSeconds(30), Duration.ofMillis(300));
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testReturnsTheFirstChoice() {
+        AtomicReference<String> body = new AtomicReference<>();
+        AtomicReference<String> auth = new AtomicReference<>();
+        handler = exchange -> {
+            body.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            auth.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            respond(exchange, 200, COMPLETION);
+        };
+
+        assertEquals("{\"tool\": \"get_upcoming_bookings\"}", client.chatJson("system prompt", "show bookings"));
+        assertEquals("Bearer test-key", auth.get());
+        assertTrue(body.get().contains("\"model\":\"test-model\""));
+        assertTrue(body.get().contains("\"content\":\"show bookings\""));
+        assertEquals(1, meterRegistry.get("mcp.llm.calls").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void testServerErrorsAreRetried() {
+        handler = exchange -> {
+            if (requests.get() < 3) {
+                respond(exchange, 503, "busy");
+            } else {
+                respond(exchange, 200, COMPLETION);
+            }
+        };
+
+        assertEquals("{\"tool\": \"get_upcoming_bookings\"}", client.chatJson("system", "user"));
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void testClientErrorsAreNotRetried() {
+        handler = exchange -> respond(exchange, 400, "bad request");
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> client.chatJson("system", "user"));
+
+        assertFalse(exception instanceof LlmClient.UnavailableException);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void testSlowResponsesTimeOut() {
+        handler = exchange -> {
+            sleep(2_000);
+            respond(exchange, 200, COMPLETION);
+        };
+
+        long started = System.nanoTime();
+        assertThrows(LlmClient.UnavailableException.class, () -> client.chatJson("system", "user"));
+
+        assertEquals(3, requests.get());
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(2), "Each attempt should give up after the read timeout");
+    }
+
+    @Test
+    void testBulkheadRefusesCallsOverTheLimit() throws Exception {
+        client.close();
+        // Long enough a read timeout that the first call outlasts the bulkhead wait
+        client = client(1, 1, 5, Duration.ofSeconds(30), Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch arrived = new CountDownLatch(1);
+        handler = exchange -> {
+            arrived.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, COMPLETION);
+        };
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> client.chatJson("system", "first"));
+        assertTrue(arrived.await(5, TimeUnit.SECONDS));
+
+        assertThrows(LlmClient.UnavailableException.class, () -> client.chatJson("system", "second"));
+        release.countDown();
+
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, requests.get());
+        assertEquals(1, meterRegistry.get("mcp.llm.calls").tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    void testBreakerOpensAfterRepeatedFailuresAndClosesAfterATrial() {
+        client.close();
+        client = client(4, 1, 2, Duration.ofMillis(300), Duration.ofMillis(300));
+        handler = exchange -> respond(exchange, 500, "down");
+
+        assertThrows(LlmClient.UnavailableException.class, () -> client.chatJson("system", "user"));
+        assertThrows(LlmClient.UnavailableException.class, () -> client.chatJson("system", "user"));
+        // Open: fails without a request
+        assertThrows(LlmClient.UnavailableException.class, () -> client.chatJson("system", "user"));
+        assertEquals(2, requests.get());
+
+        sleep(400);
+        handler = exchange -> respond(exchange, 200, COMPLETION);
+        assertNotNull(client.chatJson("system", "user"));
+        assertNotNull(client.chatJson("system", "user"));
+        assertEquals(4, requests.get());
+    }
+
+    @Test
+    void testOnlyTheTrialEndsTheTrial() throws Exception {
+        client.close();
+        client = client(4, 1, 1, Duration.ofMillis(300), Duration.ofSeconds(5));
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        CountDownLatch releaseTrial = new CountDownLatch(1);
+        CountDownLatch slowArrived = new CountDownLatch(1);
+        CountDownLatch trialArrived = new CountDownLatch(1);
+        AtomicInteger seen = new AtomicInteger();
+        handler = exchange -> {
+            switch (seen.incrementAndGet()) {
+                case 1 -> {
+                    // Let through while the breaker was closed, fails once the trial is running
+                    slowArrived.countDown();
+                    releaseSlow.await(5, TimeUnit.SECONDS);
+                    respond(exchange, 500, "down");
+                }
+                case 2 -> respond(exchange, 500, "down");
+                case 3 -> {
+                    trialArrived.countDown();
+                    releaseTrial.await(5, TimeUnit.SECONDS);
+                    respond(exchange, 200, COMPLETION);
+                }
+                default -> respond(exchange, 200, COMPLETION);
+            }
+        };
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> client.chatJson("system", "slow"));
+        assertTrue(slowArrived.await(5, TimeUnit.SECONDS));
+        assertThrows(LlmClient.UnavailableException.class, () -> client.chatJson("system", "user"));
+
+        sleep(400);
+        CompletableFuture<String> trial = CompletableFuture.supplyAsync(() -> client.chatJson("system", "trial"));
+        assertTrue(trialArrived.await(5, TimeUnit.SECONDS));
+        releaseSlow.countDown();
+        assertThrows(Exception.class, () -> slow.get(5, TimeUnit.SECONDS));
+
+        // The slow call ending must not let a second trial through
+        sleep(400);
+        assertThrows(LlmClient.UnavailableException.class, () -> client.chatJson("system", "user"));
+        assertEquals(3, requests.get());
+
+        releaseTrial.countDown();
+        assertNotNull(trial.get(5, TimeUnit.SECONDS));
+        assertNotNull(client.chatJson("system", "user"));
+    }
+
+    private LlmClient client(int maxConcurrent, int maxAttempts, int failureThreshold, Duration openDuration,
+                             Duration readTimeout) {
+        URI url = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/chat/completions");
+        return new LlmClient(new LlmClient.Settings(url, "test-key", "test-model", 0.1, Duration.ofSeconds(1),
+                readTimeout, maxConcurrent, maxAttempts, Duration.ofMillis(10), failureThreshold, openDuration),
+                meterRegistry);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws Exception;
+    }
+}
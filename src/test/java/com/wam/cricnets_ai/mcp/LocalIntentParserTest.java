@@ -0,0 +1,125 @@
+package com.wam.cricnets_ai.mcp;
+
+import com.wam.cricnets_ai.service.BookingSettings;
+import com.wam.cricnets_ai.service.BookingSettingsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+class LocalIntentParserTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 4, 10, 0);
+    private static final String USER = "player@example.com";
+
+    private LocalIntentParser parser;
+
+    @BeforeEach
+    void setUp() {
+        BookingSettingsService bookingSettingsService = Mockito.mock(BookingSettingsService.class);
+        Mockito.when(bookingSettingsService.current()).thenReturn(
+                new BookingSettings(1, 30, LocalTime.of(7, 0), LocalTime.of(23, 0), 2, Map.of()));
+        parser = new LocalIntentParser(bookingSettingsService);
+    }
+
+    @Test
+    void testCorpus() throws IOException {
+        List<String> failures = new ArrayList<>();
+        List<String> corpus = corpus();
+        int routedLocally = 0;
+        for (String line : corpus) {
+            String[] parts = line.split("\\|");
+            String command = parts[0].trim();
+            String[] expected = parts[1].trim().split(" ");
+            Optional<LocalIntentParser.Intent> intent = parser.parse(command, USER, NOW);
+            if (intent.isPresent()) {
+                routedLocally++;
+            }
+            if (expected[0].equals("llm")) {
+                intent.ifPresent(i -> failures.add(command + ": expected llm, got " + describe(i)));
+                continue;
+            }
+            Map<String, String> args = new TreeMap<>();
+            for (int i = 1; i < expected.length; i++) {
+                String[] kv = expected[i].split("=", 2);
+                args.put(kv[0], kv[1]);
+            }
+            String want = expected[0] + " " + args;
+            if (intent.isEmpty()) {
+                failures.add(command + ": expected " + want + ", got llm");
+            } else if (!describe(intent.get()).equals(want)) {
+                failures.add(command + ": expected " + want + ", got " + describe(intent.get()));
+            }
+        }
+        assertTrue(failures.isEmpty(), String.join("\n", failures));
+        // The common phrasings in the corpus should mostly skip the LLM
+        assertTrue(routedLocally * 2 > corpus.size(),
+                "Only " + routedLocally + " of " + corpus.size() + " commands were routed locally");
+    }
+
+    @Test
+    void testMyBookingsNeedsTheUser() {
+        assertTrue(parser.parse("show my bookings", null, NOW).isEmpty());
+        assertTrue(parser.parse("book turf tomorrow at 6pm with leather", null, NOW).isEmpty());
+    }
+
+    @Test
+    void testOversizedIdFallsBackToTheLlm() {
+        assertTrue(parser.parse("cancel booking 12345678901234567890123", USER, NOW).isEmpty());
+        assertTrue(parser.parse("cancel booking 42", USER, NOW).isPresent());
+    }
+
+    @Test
+    void testLocalRouteSkipsTheLlmAndIsCounted() {
+        ToolRegistry registry = Mockito.mock(ToolRegistry.class);
+        Mockito.when(registry.callTool(any(), any())).thenReturn(List.of());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NaturalLanguageMcpService service = new NaturalLanguageMcpService(registry, parser, new RoutingCache(100),
+                Mockito.mock(LlmClient.class), meterRegistry);
+
+        NaturalLanguageMcpService.RouteAndResult result = service.interpret("show my bookings", true, USER);
+
+        assertEquals("local", result.route);
+        assertEquals("get_user_bookings", result.tool);
+        assertTrue(result.executed);
+        Mockito.verify(registry).callTool("get_user_bookings", Map.of("email", USER));
+        Mockito.verify(registry, Mockito.never()).listTools();
+        assertEquals(1, meterRegistry.get("mcp.interpret").tag("route", "local").timer().count());
+        assertEquals(1.0, meterRegistry.get("mcp.interpret.local.ratio").gauge().value());
+    }
+
+    // Sorted by key so the order the parser builds args in does not matter
+    private static String describe(LocalIntentParser.Intent intent) {
+        Map<String, String> args = new TreeMap<>();
+        intent.args().forEach((key, value) -> args.put(key, String.valueOf(value)));
+        return intent.tool() + " " + args;
+    }
+
+    private static List<String> corpus() throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                LocalIntentParserTest.class.getResourceAsStream("/mcp/intent-corpus.txt"), StandardCharsets.UTF_8))) {
+            for (String line; (line = reader.readLine()) != null; ) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+}
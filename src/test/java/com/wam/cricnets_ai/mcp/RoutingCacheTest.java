@@ -0,0 +1,123 @@
+package com.wam.cricnets_ai.mcp;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+class RoutingCacheTest {
+
+    // A Wednesday
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 4);
+    private static final int CATALOG = 1;
+
+    private RoutingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RoutingCache(100);
+    }
+
+    @Test
+    void testNormalize() {
+        RoutingCache.Normalized normalized = RoutingCache.normalize("  Reserve   the Turf TOMORROW evening, not Friday!");
+
+        assertEquals("reserve the turf {today+1} evening, not {friday}", normalized.key());
+        assertEquals(List.of("today+1", "friday"), normalized.placeholders());
+    }
+
+    @Test
+    void testRelativeDatesAreResolvedOnEveryHit() {
+        cache.put("reserve turf tomorrow 6pm", CATALOG, TODAY, "book_session",
+                Map.of("startTime", "2026-03-05T18:00:00", "wicketType", "INDOOR_ASTRO_TURF"));
+
+        Optional<RoutingCache.Route> route = cache.get("Reserve  turf TOMORROW 6pm.", CATALOG, TODAY.plusDays(10));
+
+        assertTrue(route.isPresent());
+        assertEquals("book_session", route.get().tool());
+        assertEquals(Map.of("startTime", "2026-03-15T18:00:00", "wicketType", "INDOOR_ASTRO_TURF"), route.get().args());
+    }
+
+    @Test
+    void testWeekdaysAndListsAreTemplated() {
+        cache.put("two slots on friday at 6 and 7", CATALOG, TODAY, "book_multiple_slots",
+                Map.of("startTimes", List.of("2026-03-06T18:00", "2026-03-06T19:00")));
+
+        // The following Monday: friday is now four days away
+        Map<String, Object> args = cache.get("two slots on friday at 6 and 7", CATALOG, TODAY.plusDays(5)).orElseThrow().args();
+
+        assertEquals(List.of("2026-03-13T18:00", "2026-03-13T19:00"), args.get("startTimes"));
+    }
+
+    @Test
+    void testDatesWrittenInTheCommandAreKept() {
+        cache.put("what is free on 2026-04-01 outdoors", CATALOG, TODAY, "get_available_slots",
+                Map.of("date", "2026-04-01"));
+
+        assertEquals(Map.of("date", "2026-04-01"),
+                cache.get("what is free on 2026-04-01 outdoors", CATALOG, TODAY.plusDays(3)).orElseThrow().args());
+    }
+
+    @Test
+    void testDatesNotTiedToTheCommandAreNotCached() {
+        // "next week" has no placeholder, so the date would be stale tomorrow
+        cache.put("anything free next week", CATALOG, TODAY, "get_available_slots", Map.of("date", "2026-03-09"));
+        // Today is also "wednesday", so the date could stand for either word
+        cache.put("today or wednesday", CATALOG, TODAY, "get_available_slots", Map.of("date", "2026-03-04"));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testCatalogChangeDropsEntries() {
+        cache.put("upcoming stuff", CATALOG, TODAY, "get_upcoming_bookings", Map.of());
+
+        assertTrue(cache.get("upcoming stuff", CATALOG, TODAY).isPresent());
+        assertTrue(cache.get("upcoming stuff", CATALOG + 1, TODAY).isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        cache = new RoutingCache(2);
+        cache.put("first", CATALOG, TODAY, "a", Map.of());
+        cache.put("second", CATALOG, TODAY, "b", Map.of());
+        cache.get("first", CATALOG, TODAY);
+        cache.put("third", CATALOG, TODAY, "c", Map.of());
+
+        assertTrue(cache.get("first", CATALOG, TODAY).isPresent());
+        assertTrue(cache.get("second", CATALOG, TODAY).isEmpty());
+        assertTrue(cache.get("third", CATALOG, TODAY).isPresent());
+    }
+
+    @Test
+    void testRepeatedCommandSkipsTheLlmButRunsTheTool() {
+        ToolRegistry registry = Mockito.mock(ToolRegistry.class);
+        Mockito.when(registry.listTools()).thenReturn(List.of());
+        Mockito.when(registry.callTool(any(), any())).thenReturn(List.of());
+        LocalIntentParser parser = Mockito.mock(LocalIntentParser.class);
+        Mockito.when(parser.parse(any(), any(), any())).thenReturn(Optional.empty());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LlmClient llmClient = Mockito.mock(LlmClient.class);
+        Mockito.when(llmClient.chatJson(any(), any())).thenReturn("{\"tool\": \"get_upcoming_bookings\", \"args\": {}}");
+        NaturalLanguageMcpService service = new NaturalLanguageMcpService(registry, parser, cache, llmClient, meterRegistry);
+
+        NaturalLanguageMcpService.RouteAndResult first = service.interpret("anything coming up for the club?", true);
+        NaturalLanguageMcpService.RouteAndResult second = service.interpret("Anything coming up   for the club?", true);
+
+        assertEquals("llm", first.route);
+        assertEquals("cache", second.route);
+        assertEquals("get_upcoming_bookings", second.tool);
+        Mockito.verify(llmClient, Mockito.times(1)).chatJson(any(), any());
+        Mockito.verify(registry, Mockito.times(2)).callTool("get_upcoming_bookings", Map.of());
+        assertEquals(1, meterRegistry.get("mcp.interpret").tag("route", "cache").timer().count());
+    }
+}
@@ -0,0 +1,110 @@
+package com.wam.cricnets_ai.mcp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+class ToolBatchServiceTest {
+
+    private ToolRegistry registry;
+    private ToolBatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        registry = Mockito.mock(ToolRegistry.class);
+        Mockito.when(registry.isReadOnly("read_a")).thenReturn(true);
+        Mockito.when(registry.isReadOnly("read_b")).thenReturn(true);
+        batchService = new ToolBatchService(registry, Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testReadsRunConcurrentlyAndResultsKeepOrder() {
+        // Each read only returns once the other has started
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Mockito.when(registry.callTool(any(), any())).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(2, TimeUnit.SECONDS), "Reads should run at the same time");
+            return invocation.getArgument(0) + "-result";
+        });
+
+        List<ToolBatchService.ToolResult> results = batchService.execute(List.of(
+                new ToolBatchService.ToolCall("read_a", Map.of()),
+                new ToolBatchService.ToolCall("read_b", null)));
+
+        assertEquals(List.of("read_a", "read_b"), results.stream().map(ToolBatchService.ToolResult::name).toList());
+        assertTrue(results.stream().allMatch(ToolBatchService.ToolResult::ok));
+        assertEquals("read_a-result", results.get(0).result());
+        assertEquals("read_b-result", results.get(1).result());
+    }
+
+    @Test
+    void testWriteWaitsForEarlierReads() {
+        AtomicBoolean readFinished = new AtomicBoolean();
+        Mockito.when(registry.callTool(eq("read_a"), any())).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            readFinished.set(true);
+            return "slots";
+        });
+        Mockito.when(registry.callTool(eq("book_session"), any())).thenAnswer(invocation -> readFinished.get());
+
+        List<ToolBatchService.ToolResult> results = batchService.execute(List.of(
+                new ToolBatchService.ToolCall("read_a", Map.of()),
+                new ToolBatchService.ToolCall("book_session", Map.of())));
+
+        assertEquals(true, results.get(1).result());
+    }
+
+    @Test
+    void testFailuresAreReportedPerCall() {
+        Mockito.when(registry.callTool(eq("read_a"), any())).thenThrow(new IllegalArgumentException("Bad date"));
+        Mockito.when(registry.callTool(eq("read_b"), any())).thenReturn("ok");
+        Mockito.when(registry.callTool(eq("missing"), any())).thenThrow(new IllegalArgumentException("Unknown tool: missing"));
+
+        List<ToolBatchService.ToolResult> results = batchService.execute(List.of(
+                new ToolBatchService.ToolCall("read_a", Map.of()),
+                new ToolBatchService.ToolCall("read_b", Map.of()),
+                new ToolBatchService.ToolCall("missing", Map.of())));
+
+        assertFalse(results.get(0).ok());
+        assertEquals("Bad date", results.get(0).error());
+        assertTrue(results.get(1).ok());
+        assertEquals("Unknown tool: missing", results.get(2).error());
+    }
+
+    @Test
+    void testSlowReadsTimeOutAndLaterWritesDoNotRun() {
+        batchService = new ToolBatchService(registry, Duration.ofMillis(200));
+        Mockito.when(registry.callTool(eq("read_a"), any())).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return "late";
+        });
+
+        List<ToolBatchService.ToolResult> results = batchService.execute(List.of(
+                new ToolBatchService.ToolCall("read_a", Map.of()),
+                new ToolBatchService.ToolCall("book_session", Map.of())));
+
+        assertEquals("Timed out after 200 ms.", results.get(0).error());
+        assertEquals("Not run: the batch timed out.", results.get(1).error());
+        Mockito.verify(registry, Mockito.never()).callTool(eq("book_session"), any());
+    }
+
+    @Test
+    void testBatchSizeIsLimited() {
+        List<ToolBatchService.ToolCall> calls = Collections.nCopies(ToolBatchService.MAX_CALLS + 1,
+                new ToolBatchService.ToolCall("read_a", Map.of()));
+
+        assertThrows(IllegalArgumentException.class, () -> batchService.execute(calls));
+    }
+}
@@ -0,0 +1,140 @@
+package com.wam.cricnets_ai.mcp;
+
+import com.wam.cricnets_ai.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compiled {@link ToolInvoker} with the reflective dispatch it replaced, on a tool
+ * shaped like {@code book_session}. Run with {@code ./gradlew jmh -PjmhArgs=ToolRegistryBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToolRegistryBenchmark {
+
+    private final Tools tools = new Tools();
+    private Method method;
+    private ToolInvoker invoker;
+    private Map<String, Object> namedArgs;
+    private Map<String, Object> positionalArgs;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        method = Tools.class.getDeclaredMethod("bookSession", LocalDateTime.class, Integer.class, BallType.class,
+                WicketType.class, MachineType.class, LeatherBallOption.class, Boolean.class, String.class);
+        method.setAccessible(true);
+        invoker = ToolInvoker.compile(tools, method);
+        namedArgs = Map.of("startTime", "2026-03-01T10:00", "durationMinutes", 60, "ballType", "LEATHER",
+                "wicketType", "OUTDOOR_TURF", "machineType", "NONE", "leatherBallOption", "NONE",
+                "selfOperated", false, "email", "bench@example.com");
+        positionalArgs = Map.of("arg0", "2026-03-01T10:00", "arg1", 60, "arg2", "LEATHER", "arg3", "OUTDOOR_TURF",
+                "arg4", "NONE", "arg5", "NONE", "arg6", false, "arg7", "bench@example.com");
+    }
+
+    @Benchmark
+    public Object compiledNamed() throws Throwable {
+        return invoker.invoke(invoker.bind(namedArgs));
+    }
+
+    @Benchmark
+    public Object reflectiveNamed() throws Exception {
+        return method.invoke(tools, resolveArguments(method, namedArgs));
+    }
+
+    @Benchmark
+    public Object compiledPositional() throws Throwable {
+        return invoker.invoke(invoker.bind(positionalArgs));
+    }
+
+    @Benchmark
+    public Object reflectivePositional() throws Exception {
+        return method.invoke(tools, resolveArguments(method, positionalArgs));
+    }
+
+    public static class Tools {
+
+        public int bookSession(LocalDateTime startTime, Integer durationMinutes, BallType ballType,
+                               WicketType wicketType, MachineType machineType, LeatherBallOption leatherBallOption,
+                               Boolean selfOperated, String email) {
+            return startTime.getHour() + durationMinutes + ballType.ordinal() + wicketType.ordinal()
+                    + machineType.ordinal() + leatherBallOption.ordinal() + (selfOperated ? 1 : 0) + email.length();
+        }
+    }
+
+    // The previous ToolRegistry dispatch, kept here as the baseline
+
+    private static Object[] resolveArguments(Method m, Map<String, Object> args) {
+        Parameter[] params = m.getParameters();
+        Object[] resolved = new Object[params.length];
+        Map<String, Object> lowerArgs = new HashMap<>();
+        args.forEach((k, v) -> lowerArgs.put(k.toLowerCase(Locale.ROOT), v));
+
+        for (int i = 0; i < params.length; i++) {
+            Parameter p = params[i];
+            Object raw = lowerArgs.get(p.getName().toLowerCase(Locale.ROOT));
+            if (raw == null) {
+                List<String> sortedKeys = new ArrayList<>(args.keySet());
+                Collections.sort(sortedKeys);
+                if (i < sortedKeys.size()) {
+                    raw = args.get(sortedKeys.get(i));
+                }
+            }
+            resolved[i] = convert(raw, p.getType());
+        }
+        return resolved;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object convert(Object raw, Class<?> target) {
+        if (raw == null) {
+            return null;
+        }
+        if (target.isInstance(raw)) {
+            return raw;
+        }
+        if (target == String.class) {
+            return String.valueOf(raw);
+        }
+        if (target == Long.class || target == long.class) {
+            if (raw instanceof Number n) return n.longValue();
+            return Long.parseLong(String.valueOf(raw));
+        }
+        if (target == Integer.class || target == int.class) {
+            if (raw instanceof Number n) return n.intValue();
+            return Integer.parseInt(String.valueOf(raw));
+        }
+        if (target == Double.class || target == double.class) {
+            if (raw instanceof Number n) return n.doubleValue();
+            return Double.parseDouble(String.valueOf(raw));
+        }
+        if (target == Boolean.class || target == boolean.class) {
+            if (raw instanceof Boolean b) return b;
+            return Boolean.parseBoolean(String.valueOf(raw));
+        }
+        if (target == LocalDate.class) {
+            return LocalDate.parse(String.valueOf(raw));
+        }
+        if (target == LocalDateTime.class) {
+            try {
+                return LocalDateTime.parse(String.valueOf(raw));
+            } catch (DateTimeParseException e) {
+                return LocalDate.parse(String.valueOf(raw)).atStartOfDay();
+            }
+        }
+        if (target.isEnum()) {
+            return Enum.valueOf((Class<Enum>) target, String.valueOf(raw));
+        }
+        return raw;
+    }
+}
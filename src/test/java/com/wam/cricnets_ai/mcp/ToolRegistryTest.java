@@ -1,10 +1,12 @@
 package com.wam.cricnets_ai.mcp;
  
 import com.wam.cricnets_ai.model.*;
-import com.wam.cricnets_ai.repository.BookingRepository;
 import com.wam.cricnets_ai.repository.SystemConfigRepository;
 import com.wam.cricnets_ai.repository.UserRepository;
+import com.wam.cricnets_ai.service.BookingAdmissionService;
 import com.wam.cricnets_ai.service.BookingService;
+import com.wam.cricnets_ai.service.BookingSettingsService;
+import com.wam.cricnets_ai.service.BookingStatsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -23,19 +25,21 @@ class ToolRegistryTest {
     private BookingMcpTools bookingMcpTools;
     private AdminMcpTools adminMcpTools;
     private UserRepository userRepository;
-    private BookingRepository bookingRepository;
+    private BookingStatsService bookingStatsService;
     private SystemConfigRepository systemConfigRepository;
+    private BookingSettingsService bookingSettingsService;
     private ToolRegistry registry;
 
     @BeforeEach
     void setUp() {
         bookingService = Mockito.mock(BookingService.class);
         userRepository = Mockito.mock(UserRepository.class);
-        bookingRepository = Mockito.mock(BookingRepository.class);
+        bookingStatsService = Mockito.mock(BookingStatsService.class);
         systemConfigRepository = Mockito.mock(SystemConfigRepository.class);
+        bookingSettingsService = Mockito.mock(BookingSettingsService.class);
         
-        bookingMcpTools = new BookingMcpTools(bookingService);
-        adminMcpTools = new AdminMcpTools(userRepository, bookingRepository, systemConfigRepository, bookingService);
+        bookingMcpTools = new BookingMcpTools(bookingService, Mockito.mock(BookingAdmissionService.class));
+        adminMcpTools = new AdminMcpTools(userRepository, bookingStatsService, systemConfigRepository, bookingService, bookingSettingsService);
         
         registry = new ToolRegistry(bookingMcpTools, adminMcpTools);
     }
@@ -68,6 +72,32 @@ class ToolRegistryTest {
         Mockito.verify(bookingService).getSlotsForDay(eq(date), eq(WicketType.INDOOR_ASTRO_TURF));
     }
 
+    @Test
+    void testCallToolIgnoresArgumentCase() {
+        LocalDate date = LocalDate.of(2026, 1, 25);
+        registry.callTool("get_available_slots", Map.of("DATE", "2026-01-25", "WicketType", "OUTDOOR_TURF"));
+
+        Mockito.verify(bookingService).getSlotsForDay(eq(date), eq(WicketType.OUTDOOR_TURF));
+    }
+
+    @Test
+    void testCallToolWrapsConversionFailures() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+                registry.callTool("get_available_slots", Map.of("date", "not a date")));
+
+        assertEquals("Failed to call tool 'get_available_slots'", exception.getMessage());
+    }
+
+    @Test
+    void testCallToolRethrowsToolExceptions() {
+        Mockito.when(bookingService.getSlotsForDay(any(), any())).thenThrow(new IllegalArgumentException("Closed"));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+                registry.callTool("get_available_slots", Map.of("date", "2026-01-25")));
+
+        assertEquals("Closed", exception.getMessage());
+    }
+
     @Test
     void testCallAdminTool() {
         registry.callTool("list_all_users", Map.of());
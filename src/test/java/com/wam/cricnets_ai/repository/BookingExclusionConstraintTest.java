@@ -0,0 +1,82 @@
+package com.wam.cricnets_ai.repository;
+
+import com.wam.cricnets_ai.model.*;
+import com.wam.cricnets_ai.service.BookingService;
+import com.wam.cricnets_ai.service.SlotOccupancyIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("local")
+class BookingExclusionConstraintTest {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private SlotOccupancyIndex slotOccupancyIndex;
+
+    private final LocalDateTime startTime = LocalDate.now().plusYears(2).atTime(9, 0);
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        slotOccupancyIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll();
+        slotOccupancyIndex.rebuild();
+    }
+
+    @Test
+    void testOverlappingBookingOnSameWicketIsRejected() {
+        bookingRepository.saveAndFlush(booking(startTime, 60, WicketType.OUTDOOR_TURF));
+
+        assertThrows(DataIntegrityViolationException.class, () ->
+            bookingRepository.saveAndFlush(booking(startTime.plusMinutes(30), 30, WicketType.OUTDOOR_TURF)));
+    }
+
+    @Test
+    void testAdjacentOtherWicketAndCancelledBookingsAreAllowed() {
+        bookingRepository.saveAndFlush(booking(startTime, 60, WicketType.OUTDOOR_TURF));
+
+        assertDoesNotThrow(() -> bookingRepository.saveAndFlush(booking(startTime.plusMinutes(60), 30, WicketType.OUTDOOR_TURF)));
+        assertDoesNotThrow(() -> bookingRepository.saveAndFlush(booking(startTime, 60, WicketType.OUTDOOR_CEMENT)));
+
+        Booking cancelled = booking(startTime, 30, WicketType.OUTDOOR_TURF);
+        cancelled.setStatus(BookingStatus.CANCELLED);
+        assertDoesNotThrow(() -> bookingRepository.saveAndFlush(cancelled));
+    }
+
+    @Test
+    void testServiceReportsConflictMissedByLocalIndex() {
+        // Simulates a booking made by another node that this node's index has not seen
+        bookingRepository.saveAndFlush(booking(startTime, 30, WicketType.INDOOR_ASTRO_TURF));
+
+        Exception exception = assertThrows(RuntimeException.class, () ->
+            bookingService.createBooking(startTime, BallType.TENNIS, "second@example.com"));
+
+        assertEquals("This wicket is already booked for the selected time.", exception.getMessage());
+        assertTrue(slotOccupancyIndex.isFree(WicketType.INDOOR_ASTRO_TURF, startTime, startTime.plusMinutes(30)));
+    }
+
+    private Booking booking(LocalDateTime start, int minutes, WicketType wicketType) {
+        return new Booking(start, start.plusMinutes(minutes), BallType.TENNIS, wicketType, MachineType.NONE,
+            LeatherBallOption.NONE, false, "first@example.com", "First");
+    }
+}
@@ -0,0 +1,112 @@
+package com.wam.cricnets_ai.repository;
+
+import com.wam.cricnets_ai.model.*;
+import com.wam.cricnets_ai.service.BookingService;
+import com.wam.cricnets_ai.service.SlotOccupancyIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("local")
+class BookingPaginationTest {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private SlotOccupancyIndex slotOccupancyIndex;
+
+    private final LocalDate day = LocalDate.now().plusYears(2);
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        List<Booking> bookings = new ArrayList<>();
+        // Two bookings per start time (one per wicket) so pages must break ties on id
+        for (int i = 0; i < 10; i++) {
+            LocalDateTime start = day.atTime(8, 0).plusMinutes(30L * i);
+            bookings.add(booking(start, WicketType.OUTDOOR_TURF, i % 2 == 0 ? "even@example.com" : "odd@example.com"));
+            bookings.add(booking(start, WicketType.OUTDOOR_CEMENT, "cement@example.com"));
+        }
+        bookingRepository.saveAllAndFlush(bookings);
+        slotOccupancyIndex.rebuild();
+        signIn("admin@example.com", "ROLE_ADMIN");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        bookingRepository.deleteAll();
+        slotOccupancyIndex.rebuild();
+    }
+
+    @Test
+    void testPagesCoverEveryBookingOnceInOrder() {
+        List<Booking> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            BookingService.BookingPage page = bookingService.findBookings(BookingFilter.none(), cursor, 3);
+            assertTrue(page.items().size() <= 3);
+            seen.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(20, seen.size());
+        assertEquals(20, seen.stream().map(Booking::getId).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            Booking previous = seen.get(i - 1);
+            Booking current = seen.get(i);
+            assertTrue(previous.getStartTime().isBefore(current.getStartTime())
+                    || (previous.getStartTime().equals(current.getStartTime()) && previous.getId() < current.getId()));
+        }
+    }
+
+    @Test
+    void testFiltersCombine() {
+        BookingFilter filter = new BookingFilter(day.atTime(9, 0), day.atTime(11, 0), WicketType.OUTDOOR_TURF,
+                BookingStatus.PENDING, "even@example.com", MachineType.NONE);
+
+        List<Booking> page = bookingRepository.findPage(filter, null, null, 50);
+
+        // 09:00, 10:00 (09:30 and 10:30 belong to the odd user; 11:00 is excluded)
+        assertEquals(List.of(day.atTime(9, 0), day.atTime(10, 0)), page.stream().map(Booking::getStartTime).toList());
+    }
+
+    @Test
+    void testListingAllBookingsIsAdminOnly() {
+        signIn("even@example.com", "ROLE_USER");
+
+        assertThrows(AccessDeniedException.class, () -> bookingService.getAllBookings(null, null));
+        assertThrows(AccessDeniedException.class, () -> bookingService.findBookings(BookingFilter.none(), null, null));
+        // A player's own listing is not affected
+        assertEquals(5, bookingService.getBookingsByEmail("even@example.com", null, null).items().size());
+    }
+
+    private static void signIn(String email, String role) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                email, null, List.of(new SimpleGrantedAuthority(role))));
+    }
+
+    private Booking booking(LocalDateTime start, WicketType wicketType, String email) {
+        return new Booking(start, start.plusMinutes(30), BallType.TENNIS, wicketType, MachineType.NONE,
+                LeatherBallOption.NONE, false, email, "Page");
+    }
+}
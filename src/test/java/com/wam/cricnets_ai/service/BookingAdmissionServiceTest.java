@@ -0,0 +1,105 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.config.BookingConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingAdmissionServiceTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private MeterRegistry meterRegistry;
+    private BookingAdmissionService admissionService;
+
+    @BeforeEach
+    void setUp() {
+        BookingConfig.Admission config = new BookingConfig.Admission();
+        config.setPermitsPerSecond(2);
+        config.setBurst(1);
+        config.setMaxQueue(3);
+        config.setPerUserLimit(1);
+        config.setMaxWait(Duration.ofMillis(10));
+        config.setClaimWindow(Duration.ofSeconds(5));
+        meterRegistry = new SimpleMeterRegistry();
+        admissionService = new BookingAdmissionService(config, meterRegistry, now::get);
+    }
+
+    @Test
+    void testBurstPassesStraightThroughThenCallersQueueInOrder() throws InterruptedException {
+        assertEquals(BookingAdmissionService.Status.ADMITTED, admissionService.admit("a", null).status());
+
+        BookingAdmissionService.Decision b = admissionService.admit("b", null);
+        BookingAdmissionService.Decision c = admissionService.admit("c", null);
+
+        assertEquals(BookingAdmissionService.Status.QUEUED, b.status());
+        assertEquals(1, b.position());
+        assertEquals(2, c.position());
+        assertEquals(Duration.ofSeconds(1), c.estimatedWait());
+        assertEquals(2.0, meterRegistry.get("booking.admission.queue.depth").gauge().value());
+    }
+
+    @Test
+    void testDrainAdmitsTheHeadAtTheConfiguredRate() throws InterruptedException {
+        admissionService.admit("a", null);
+        BookingAdmissionService.Decision b = admissionService.admit("b", null);
+        BookingAdmissionService.Decision c = admissionService.admit("c", null);
+
+        now.addAndGet(Duration.ofMillis(500).toNanos());
+        admissionService.drain();
+
+        assertEquals(BookingAdmissionService.Status.ADMITTED, admissionService.admit("b", b.ticket()).status());
+        BookingAdmissionService.Decision stillWaiting = admissionService.admit("c", c.ticket());
+        assertEquals(BookingAdmissionService.Status.QUEUED, stillWaiting.status());
+        assertEquals(1, stillWaiting.position());
+        assertEquals(2, meterRegistry.get("booking.admission.wait").timer().count());
+    }
+
+    @Test
+    void testPerUserLimitAndQueueBound() throws InterruptedException {
+        admissionService.admit("a", null);
+        admissionService.admit("b", null);
+
+        assertEquals(BookingAdmissionService.Status.USER_LIMIT, admissionService.admit("b", null).status());
+
+        admissionService.admit("c", null);
+        admissionService.admit("d", null);
+        assertEquals(BookingAdmissionService.Status.QUEUE_FULL, admissionService.admit("e", null).status());
+    }
+
+    @Test
+    void testRefusedCallerLeavesTheQueue() {
+        admissionService.admitOrRefuse("a");
+
+        BookingAdmissionService.RefusedException refused = assertThrows(BookingAdmissionService.RefusedException.class,
+                () -> admissionService.admitOrRefuse("b"));
+        assertEquals(BookingAdmissionService.Status.QUEUED, refused.decision().status());
+        assertEquals(1, refused.decision().position());
+        assertEquals(0, admissionService.queueDepth());
+
+        // Nothing left behind counts against the caller's limit
+        refused = assertThrows(BookingAdmissionService.RefusedException.class, () -> admissionService.admitOrRefuse("b"));
+        assertEquals(BookingAdmissionService.Status.QUEUED, refused.decision().status());
+    }
+
+    @Test
+    void testUnclaimedAdmissionExpires() throws InterruptedException {
+        admissionService.admit("a", null);
+        BookingAdmissionService.Decision b = admissionService.admit("b", null);
+
+        now.addAndGet(Duration.ofMillis(500).toNanos());
+        admissionService.drain();
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+        admissionService.drain();
+
+        // The ticket is gone, so the caller starts again, and permits have built back up meanwhile
+        BookingAdmissionService.Decision retry = admissionService.admit("b", b.ticket());
+        assertEquals(BookingAdmissionService.Status.ADMITTED, retry.status());
+        assertEquals(0, admissionService.queueDepth());
+    }
+}
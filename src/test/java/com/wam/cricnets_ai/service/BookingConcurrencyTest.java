@@ -15,6 +15,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @ActiveProfiles("local")
@@ -27,15 +28,12 @@ class BookingConcurrencyTest {
     private BookingRepository bookingRepository;
 
     @Autowired
-    private com.wam.cricnets_ai.repository.BookingLockRepository bookingLockRepository;
+    private SlotOccupancyIndex slotOccupancyIndex;
 
     @Test
     void testConcurrentBookings() throws InterruptedException {
-        bookingLockRepository.deleteAll();
         bookingRepository.deleteAll();
-        
-        // Pre-create the lock to avoid race on insert
-        bookingLockRepository.saveAndFlush(new com.wam.cricnets_ai.model.BookingLock("GENERAL_LOCK"));
+        slotOccupancyIndex.rebuild();
 
         LocalDateTime startTime = LocalDate.now().plusYears(1).atTime(14, 0);
         int threads = 10;
@@ -63,8 +61,48 @@ class BookingConcurrencyTest {
 
         assertEquals(1, successCount.get(), "Only one booking should succeed");
         assertEquals(threads - 1, failureCount.get(), "All other bookings should fail");
-        
+
+        // Cleanup
+        bookingRepository.deleteAll();
+        slotOccupancyIndex.rebuild();
+    }
+
+    @Test
+    void testNonConflictingParallelBookingsAllSucceed() throws InterruptedException {
+        bookingRepository.deleteAll();
+        slotOccupancyIndex.rebuild();
+
+        int bookings = 40;
+        bookAll(8, bookings, LocalDate.now().plusYears(1));
+
+        assertEquals(bookings, bookingRepository.count(), "Independent slots should never conflict");
+
         // Cleanup
         bookingRepository.deleteAll();
+        slotOccupancyIndex.rebuild();
+    }
+
+    // Spreads bookings over different days and non-overlapping slots of the same wicket
+    private void bookAll(int threads, int bookings, LocalDate firstDay) throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger failureCount = new AtomicInteger(0);
+        for (int i = 0; i < bookings; i++) {
+            LocalDateTime startTime = firstDay.plusDays(i % 10).atTime(8 + i / 10, 0);
+            final int index = i;
+            executorService.submit(() -> {
+                try {
+                    latch.await();
+                    bookingService.createBooking(startTime, BallType.LEATHER, "player" + index + "@example.com");
+                } catch (Exception e) {
+                    failureCount.incrementAndGet();
+                }
+            });
+        }
+        latch.countDown();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(60, java.util.concurrent.TimeUnit.SECONDS));
+
+        assertEquals(0, failureCount.get(), "No booking on an independent slot should fail");
     }
 }
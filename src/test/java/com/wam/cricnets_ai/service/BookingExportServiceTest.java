@@ -0,0 +1,98 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.*;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("local")
+class BookingExportServiceTest {
+
+    @Autowired
+    private BookingExportService bookingExportService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private SlotOccupancyIndex slotOccupancyIndex;
+
+    private final LocalDate day = LocalDate.now().plusYears(3);
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            LocalDateTime start = day.plusDays(i / 20).atTime(8, 0).plusMinutes(30L * (i % 20));
+            Booking booking = new Booking(start, start.plusMinutes(30), BallType.TENNIS, WicketType.OUTDOOR_TURF,
+                    MachineType.NONE, LeatherBallOption.NONE, false, "export@example.com", i == 0 ? "Smith, \"Jo\"" : "Player");
+            if (i % 5 == 0) {
+                booking.setStatus(BookingStatus.CANCELLED);
+            }
+            bookings.add(booking);
+        }
+        bookingRepository.saveAllAndFlush(bookings);
+        slotOccupancyIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll();
+        slotOccupancyIndex.rebuild();
+    }
+
+    @Test
+    void testNdjsonExportsOneLinePerBookingInOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bookingExportService.export(null, null, null, BookingExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(250, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":"));
+        assertTrue(lines[0].contains("\"startTime\":\"" + day.atTime(8, 0) + ":00\""));
+    }
+
+    @Test
+    void testCsvExportAppliesRangeAndStatusFilters() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bookingExportService.export(day.atStartOfDay(), day.plusDays(2).atStartOfDay(),
+                List.of(BookingStatus.CANCELLED), BookingExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        // 40 bookings in the first two days, every fifth one cancelled, plus the header
+        assertEquals(9, lines.length);
+        assertTrue(lines[0].startsWith("id,startTime,endTime"));
+        assertTrue(lines[1].endsWith(",CANCELLED,\"Smith, \"\"Jo\"\"\",export@example.com"));
+    }
+
+    @Test
+    void testCsvFieldNeutralizesFormulas() {
+        assertEquals("'=SUM(A1)", BookingExportService.csvField("=SUM(A1)"));
+        assertEquals("plain", BookingExportService.csvField("plain"));
+        assertEquals("", BookingExportService.csvField(null));
+    }
+
+    @Test
+    void testRejectsEmptyRange() {
+        LocalDateTime at = day.atStartOfDay();
+        assertThrows(IllegalArgumentException.class, () ->
+                bookingExportService.export(at, at, null, BookingExportService.Format.CSV, new ByteArrayOutputStream()));
+    }
+}
@@ -0,0 +1,145 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.*;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("local")
+class BookingPartitionServiceTest {
+
+    @Autowired
+    private BookingPartitionService bookingPartitionService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Well past the partitions created ahead of time, so new rows start in the default partition
+    private final YearMonth month = YearMonth.now().plusYears(6);
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        bookingRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM bookings_archive WHERE user_email = 'partition@example.com'");
+    }
+
+    @Test
+    void testBookingsTableIsPartitioned() {
+        assertTrue(bookingPartitionService.isPartitioned());
+        String current = BookingPartitionService.partitionName(YearMonth.now());
+        assertEquals(YearMonth.now(), BookingPartitionService.monthOf(current));
+        assertNull(BookingPartitionService.monthOf(BookingPartitionService.DEFAULT_PARTITION));
+    }
+
+    @Test
+    void testNewPartitionTakesOverRowsFromTheDefault() {
+        Booking booking = bookingRepository.saveAndFlush(booking(month.atDay(10).atTime(10, 0), BookingStatus.PENDING));
+
+        bookingPartitionService.createPartition(month);
+
+        assertEquals(BookingPartitionService.partitionName(month), partitionOf(booking.getId()));
+        assertEquals(booking.getStartTime(), bookingRepository.findById(booking.getId()).orElseThrow().getStartTime());
+    }
+
+    @Test
+    void testArchiveMovesOnlyCompletedSessions() {
+        bookingPartitionService.createPartition(month);
+        List<Booking> saved = bookingRepository.saveAllAndFlush(List.of(
+                booking(month.atDay(3).atTime(9, 0), BookingStatus.DONE),
+                booking(month.atDay(3).atTime(10, 0), BookingStatus.CANCELLED),
+                booking(month.atDay(3).atTime(11, 0), BookingStatus.PENDING)));
+        long doneBefore = doneCount();
+
+        bookingPartitionService.archive(BookingPartitionService.partitionName(month));
+
+        Long doneId = saved.get(0).getId();
+        assertTrue(bookingRepository.findById(doneId).isEmpty());
+        assertEquals(BookingStatus.DONE, bookingService.getBookingById(doneId).getStatus());
+        assertTrue(bookingRepository.findById(saved.get(2).getId()).isPresent());
+        // Archived rows still count towards the dashboard totals
+        assertEquals(doneBefore, doneCount());
+    }
+
+    @Test
+    void testArchivedBookingsStayInTheUsersHistory() {
+        bookingPartitionService.createPartition(month);
+        List<Booking> saved = bookingRepository.saveAllAndFlush(List.of(
+                booking(month.atDay(4).atTime(9, 0), BookingStatus.DONE),
+                booking(month.atDay(4).atTime(10, 0), BookingStatus.PENDING),
+                booking(month.atDay(4).atTime(11, 0), BookingStatus.CANCELLED)));
+
+        bookingPartitionService.archive(BookingPartitionService.partitionName(month));
+
+        BookingService.BookingPage first = bookingService.getBookingsByEmail("partition@example.com", null, 2);
+        BookingService.BookingPage second = bookingService.getBookingsByEmail("partition@example.com", first.nextCursor(), 2);
+        List<Long> ids = new ArrayList<>();
+        first.items().forEach(b -> ids.add(b.getId()));
+        second.items().forEach(b -> ids.add(b.getId()));
+        assertEquals(saved.stream().map(Booking::getId).toList(), ids);
+        assertNull(second.nextCursor());
+
+        Long archivedId = saved.get(0).getId();
+        assertTrue(bookingService.isBookingOwner(archivedId, () -> "partition@example.com"));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "admin@example.com", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        assertThrows(BookingConflictException.class, () -> bookingService.markAsDone(archivedId));
+    }
+
+    @Test
+    void testArchivingAnEmptiedPartitionDropsIt() {
+        bookingPartitionService.createPartition(month.plusMonths(1));
+        bookingRepository.saveAndFlush(booking(month.plusMonths(1).atDay(1).atTime(9, 0), BookingStatus.DONE));
+
+        bookingPartitionService.archive(BookingPartitionService.partitionName(month.plusMonths(1)));
+
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                BookingPartitionService.partitionName(month.plusMonths(1)));
+        assertEquals(Boolean.FALSE, exists);
+    }
+
+    private long doneCount() {
+        return bookingRepository.countByStatus().stream()
+                .filter(row -> BookingStatus.DONE.name().equals(row[0].toString()))
+                .mapToLong(row -> ((Number) row[1]).longValue())
+                .sum();
+    }
+
+    private String partitionOf(Long id) {
+        return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM bookings WHERE id = ?", String.class, id);
+    }
+
+    private Booking booking(LocalDateTime start, BookingStatus status) {
+        Booking booking = new Booking(start, start.plusMinutes(30), BallType.TENNIS, WicketType.OUTDOOR_TURF,
+                MachineType.NONE, LeatherBallOption.NONE, false, "partition@example.com", "Partition");
+        booking.setStatus(status);
+        return booking;
+    }
+}
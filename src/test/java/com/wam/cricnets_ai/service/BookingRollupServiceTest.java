@@ -0,0 +1,123 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.*;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("local")
+class BookingRollupServiceTest {
+
+    @Autowired
+    private BookingRollupService bookingRollupService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDate day = LocalDate.now().plusYears(4);
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM booking_rollup_dirty_days");
+        jdbcTemplate.update("DELETE FROM booking_rollup_hourly");
+        Booking cancelled = booking(day.atTime(12, 0), 30, WicketType.OUTDOOR_TURF, MachineType.NONE);
+        cancelled.setStatus(BookingStatus.CANCELLED);
+        bookingRepository.saveAllAndFlush(List.of(
+                booking(day.atTime(10, 0), 60, WicketType.OUTDOOR_TURF, MachineType.TENNIS_BALL_MACHINE),
+                booking(day.atTime(10, 30), 60, WicketType.OUTDOOR_CEMENT, MachineType.NONE),
+                cancelled));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM booking_rollup_dirty_days");
+        jdbcTemplate.update("DELETE FROM booking_rollup_hourly");
+    }
+
+    @Test
+    void testRefreshRollsQueuedDaysIntoHours() {
+        bookingRollupService.markDirty(day);
+        bookingRollupService.markDirty(day);
+
+        assertEquals(1, bookingRollupService.refreshDirtyDays());
+        assertEquals(0, bookingRollupService.refreshDirtyDays());
+
+        List<BookingRollupService.HeatmapCell> heatmap = bookingRollupService.getHeatmap(day, day.plusDays(1), null);
+        assertEquals(2, heatmap.size());
+        BookingRollupService.HeatmapCell ten = heatmap.get(0);
+        assertEquals(day.getDayOfWeek(), ten.dayOfWeek());
+        assertEquals(10, ten.hour());
+        assertEquals(90, ten.bookedMinutes());
+        assertEquals(2, ten.sessions());
+        assertEquals(60, ten.operatorMinutes());
+        // 90 of the 180 minutes three wickets had between 10:00 and 11:00
+        assertEquals(50.0, ten.utilizationPercent());
+        BookingRollupService.HeatmapCell eleven = heatmap.get(1);
+        assertEquals(11, eleven.hour());
+        assertEquals(30, eleven.bookedMinutes());
+        assertEquals(0, eleven.sessions());
+    }
+
+    @Test
+    void testTrendFiltersAndBuckets() {
+        bookingRollupService.markDirty(day);
+        bookingRollupService.refreshDirtyDays();
+
+        List<BookingRollupService.TrendPoint> daily = bookingRollupService.getTrend(day.minusDays(3), day.plusDays(3),
+                BookingRollupService.Bucket.DAY, null, null);
+        assertEquals(1, daily.size());
+        assertEquals(day, daily.get(0).bucketStart());
+        assertEquals(120, daily.get(0).bookedMinutes());
+
+        List<BookingRollupService.TrendPoint> machines = bookingRollupService.getTrend(day, day.plusDays(1),
+                BookingRollupService.Bucket.MONTH, WicketType.OUTDOOR_TURF, MachineType.TENNIS_BALL_MACHINE);
+        assertEquals(1, machines.size());
+        assertEquals(day.withDayOfMonth(1), machines.get(0).bucketStart());
+        assertEquals(60, machines.get(0).operatorMinutes());
+    }
+
+    @Test
+    void testOnlyOccupancyChangesQueueTheirDay() {
+        LocalDateTime start = day.plusDays(1).atTime(9, 0);
+
+        bookingRollupService.onStatusChange(new BookingStatusChange(start, WicketType.OUTDOOR_TURF,
+                BookingStatus.PENDING, BookingStatus.DONE));
+        assertEquals(0, dirtyDays());
+
+        bookingRollupService.onStatusChange(new BookingStatusChange(start, WicketType.OUTDOOR_TURF,
+                BookingStatus.PENDING, BookingStatus.CANCELLED));
+        assertEquals(1, dirtyDays());
+    }
+
+    @Test
+    void testRejectsEmptyRange() {
+        assertThrows(IllegalArgumentException.class, () -> bookingRollupService.getHeatmap(day, day, null));
+    }
+
+    private int dirtyDays() {
+        Integer count = jdbcTemplate.queryForObject("SELECT count(*) FROM booking_rollup_dirty_days", Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    private Booking booking(LocalDateTime start, int minutes, WicketType wicketType, MachineType machineType) {
+        return new Booking(start, start.plusMinutes(minutes), BallType.TENNIS, wicketType, machineType,
+                LeatherBallOption.NONE, false, "rollup@example.com", "Rollup");
+    }
+}
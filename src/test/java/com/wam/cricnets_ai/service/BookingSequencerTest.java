@@ -0,0 +1,264 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.*;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "booking.sequencer.enabled=true")
+@ActiveProfiles("local")
+class BookingSequencerTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingSequencer bookingSequencer;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private SlotOccupancyIndex slotOccupancyIndex;
+
+    @Autowired
+    private BookingSettingsService bookingSettingsService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        slotOccupancyIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (!bookingSequencer.isRunning()) {
+            bookingSequencer.start();
+        }
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE user_email = 'keyed@example.com'");
+        bookingRepository.deleteAll();
+        slotOccupancyIndex.rebuild();
+    }
+
+    @Test
+    void testOnlyOneOfConcurrentRequestsWins() throws InterruptedException {
+        assertTrue(bookingSequencer.isEnabled());
+        LocalDateTime startTime = LocalDate.now().plusYears(1).atTime(14, 0);
+
+        Result result = rush(10, 10, i -> startTime);
+
+        assertEquals(1, result.booked());
+        assertEquals(9, result.alreadyBooked());
+        assertEquals(1, bookingRepository.count());
+    }
+
+    @Test
+    void testBookingIsCommittedBeforeTheCallerReturns() {
+        LocalDateTime startTime = LocalDate.now().plusYears(1).atTime(9, 0);
+
+        List<Booking> bookings = bookingService.createMultiBooking(
+                List.of(startTime, startTime.plusMinutes(30), startTime.plusHours(2)), BallType.LEATHER,
+                "sequenced@example.com");
+
+        assertEquals(2, bookings.size());
+        bookings.forEach(booking -> assertNotNull(booking.getId()));
+        assertEquals(2, bookingRepository.count());
+        Exception exception = assertThrows(RuntimeException.class, () ->
+                bookingService.createBooking(startTime.plusMinutes(30), BallType.LEATHER, "late@example.com"));
+        assertEquals(BookingService.ALREADY_BOOKED, exception.getMessage());
+    }
+
+    @Test
+    void testWriterRecordsTheIdempotencyKeyWithTheBooking() {
+        LocalDateTime startTime = LocalDate.now().plusYears(1).atTime(10, 0);
+        String key = UUID.randomUUID().toString();
+
+        Booking booking = idempotencyService.execute("keyed@example.com", key, "request",
+                () -> List.of(bookingService.createBooking(startTime, BallType.LEATHER, "keyed@example.com"))).get(0);
+
+        assertEquals(String.valueOf(booking.getId()), jdbcTemplate.queryForObject(
+                "SELECT booking_ids FROM idempotency_keys WHERE idempotency_key = ?", String.class, key));
+    }
+
+    @Test
+    void testBatchThatFailsPartwayCommitsTheRestOneByOne() throws Exception {
+        LocalDateTime taken = LocalDate.now().plusYears(1).atTime(11, 0);
+        bookingRepository.saveAndFlush(booking(taken, "first@example.com"));
+        FixedCommand free = new FixedCommand(booking(taken.plusHours(1), "free@example.com"));
+        FixedCommand clash = new FixedCommand(booking(taken, "clash@example.com"));
+        BookingSequencer.Pending freePending = pending(free);
+        BookingSequencer.Pending clashPending = pending(clash);
+
+        // The free booking is flushed, and gets its id, before the clash rolls the batch back
+        bookingSequencer.process(List.of(freePending, clashPending));
+
+        Booking saved = freePending.result().get(5, TimeUnit.SECONDS).get(0);
+        assertTrue(bookingRepository.findById(saved.getId()).isPresent());
+        assertEquals(2, free.saves);
+        assertFalse(free.undone);
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> clashPending.result().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(BookingConflictException.class, exception.getCause());
+        assertEquals(BookingService.ALREADY_BOOKED, exception.getCause().getMessage());
+        assertTrue(clash.undone);
+        assertEquals(2, bookingRepository.count());
+    }
+
+    @Test
+    void testOnlyOverlapsAreReportedAsAlreadyBooked() {
+        Booking invalid = booking(LocalDate.now().plusYears(1).atTime(13, 0), "invalid@example.com");
+        invalid.setPlayerName(null);
+        FixedCommand command = new FixedCommand(invalid);
+        BookingSequencer.Pending pending = pending(command);
+
+        bookingSequencer.process(List.of(pending));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> pending.result().get(5, TimeUnit.SECONDS));
+        assertFalse(exception.getCause() instanceof BookingConflictException, String.valueOf(exception.getCause()));
+        assertTrue(command.undone);
+    }
+
+    @Test
+    void testWithdrawnCommandIsSkipped() {
+        FixedCommand command = new FixedCommand(booking(LocalDate.now().plusYears(1).atTime(12, 0), "gone@example.com"));
+        BookingSequencer.Pending pending = pending(command);
+
+        assertTrue(pending.withdraw());
+        bookingSequencer.process(List.of(pending));
+
+        assertFalse(pending.result().isDone());
+        assertEquals(0, command.saves);
+        assertEquals(0, bookingRepository.count());
+    }
+
+    /**
+     * Opening rush: many players go for the same few slots of one wicket at once. Runs the same
+     * workload through the sequencer and through the direct path (occupancy index plus the
+     * exclusion constraint); both must book every slot exactly once. The rates are reported for
+     * comparison but not asserted, as wall-clock throughput depends on the machine.
+     */
+    @Test
+    void testOpeningRushAgainstDirectPath(TestReporter testReporter) throws InterruptedException {
+        int requests = 400;
+        int slots = 32;
+        LocalDate sequencedDay = LocalDate.now().plusYears(1);
+        LocalDate directDay = sequencedDay.plusDays(1);
+
+        Result sequenced = rush(32, requests, i -> sequencedDay.atTime(7, 0).plusMinutes(30L * (i % slots)));
+        bookingSequencer.stop();
+        assertFalse(bookingSequencer.isEnabled());
+        Result direct = rush(32, requests, i -> directDay.atTime(7, 0).plusMinutes(30L * (i % slots)));
+
+        assertEquals(slots, sequenced.booked());
+        assertEquals(slots, direct.booked());
+        assertEquals(0, sequenced.failed());
+        assertEquals(0, direct.failed());
+        testReporter.publishEntry(Map.of(
+                "sequencedPerSecond", String.format("%.1f", sequenced.perSecond(requests)),
+                "directPerSecond", String.format("%.1f", direct.perSecond(requests))));
+    }
+
+    private Result rush(int threads, int requests, IntFunction<LocalDateTime> startTimes)
+            throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger alreadyBooked = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        for (int i = 0; i < requests; i++) {
+            LocalDateTime startTime = startTimes.apply(i);
+            String email = "rush" + i + "@example.com";
+            executorService.submit(() -> {
+                try {
+                    latch.await();
+                    bookingService.createBooking(startTime, BallType.LEATHER, email);
+                    booked.incrementAndGet();
+                } catch (RuntimeException e) {
+                    if (BookingService.ALREADY_BOOKED.equals(e.getMessage())) {
+                        alreadyBooked.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        long started = System.nanoTime();
+        latch.countDown();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(60, TimeUnit.SECONDS));
+        return new Result(booked.get(), alreadyBooked.get(), failed.get(), System.nanoTime() - started);
+    }
+
+    private BookingSequencer.Pending pending(BookingSequencer.Command command) {
+        return new BookingSequencer.Pending(command, bookingSettingsService.current(), new CompletableFuture<>());
+    }
+
+    private static Booking booking(LocalDateTime startTime, String email) {
+        return new Booking(startTime, startTime.plusMinutes(30), BallType.LEATHER, WicketType.INDOOR_ASTRO_TURF,
+                MachineType.NONE, LeatherBallOption.NONE, false, email, "Sequenced");
+    }
+
+    // Decides a fixed booking without touching the occupancy index
+    private static final class FixedCommand implements BookingSequencer.Command {
+        private final Booking booking;
+        private int saves;
+        private boolean undone;
+
+        private FixedCommand(Booking booking) {
+            this.booking = booking;
+        }
+
+        @Override
+        public List<Booking> decide() {
+            return List.of(booking);
+        }
+
+        @Override
+        public void saved(List<Booking> bookings) {
+            saves++;
+        }
+
+        @Override
+        public void undo() {
+            undone = true;
+        }
+    }
+
+    private record Result(int booked, int alreadyBooked, int failed, long elapsedNanos) {
+
+        double perSecond(int requests) {
+            return requests / (elapsedNanos / 1e9);
+        }
+    }
+}
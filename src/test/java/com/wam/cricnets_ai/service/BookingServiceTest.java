@@ -2,7 +2,7 @@ package com.wam.cricnets_ai.service;
 
 import com.wam.cricnets_ai.config.BookingConfig;
 import com.wam.cricnets_ai.model.*;
-import com.wam.cricnets_ai.repository.BookingLockRepository;
+import com.wam.cricnets_ai.repository.BookingFilter;
 import com.wam.cricnets_ai.repository.BookingRepository;
 import com.wam.cricnets_ai.repository.SystemConfigRepository;
 import com.wam.cricnets_ai.repository.UserRepository;
@@ -10,16 +10,24 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class BookingServiceTest {
@@ -28,7 +36,7 @@ class BookingServiceTest {
     private BookingRepository bookingRepository;
 
     @Mock
-    private BookingLockRepository bookingLockRepository;
+    private ResourcePoolService resourcePoolService;
 
     @Mock
     private SystemConfigRepository systemConfigRepository;
@@ -36,32 +44,54 @@ class BookingServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private SlotHoldService slotHoldService;
+
+    @Mock
+    private BookingSequencer bookingSequencer;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private BookingService bookingService;
     private BookingConfig bookingConfig;
+    private BookingSettingsService bookingSettingsService;
+    private SlotOccupancyIndex slotOccupancyIndex;
+    private SlotGridCache slotGridCache;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
         bookingConfig = new BookingConfig();
+        slotOccupancyIndex = new SlotOccupancyIndex(bookingRepository);
+        bookingSettingsService = new BookingSettingsService(systemConfigRepository, bookingConfig, jdbcTemplate);
         // default 30 min, 7-23 business hours
-        bookingService = new BookingService(bookingRepository, bookingLockRepository, systemConfigRepository, userRepository, bookingConfig);
-        when(bookingLockRepository.findByResourceId(any())).thenReturn(Optional.of(new BookingLock("GENERAL_LOCK")));
+        slotGridCache = new SlotGridCache();
+        bookingService = new BookingService(bookingRepository, resourcePoolService, userRepository, bookingSettingsService,
+                slotOccupancyIndex, slotGridCache, slotHoldService, bookingSequencer,
+                new TransactionTemplate(transactionManager), eventPublisher);
         
         // Mock empty system config by default
-        when(systemConfigRepository.findByConfigKey(anyString())).thenReturn(Optional.empty());
+        when(systemConfigRepository.findAll()).thenReturn(List.of());
     }
 
     @Test
     void testCreateBooking_FromDatabaseConfig() {
         // Change slot duration to 60 minutes in DB
-        when(systemConfigRepository.findByConfigKey("slot_duration_minutes"))
-                .thenReturn(Optional.of(new SystemConfig("slot_duration_minutes", "60")));
+        when(systemConfigRepository.findAll())
+                .thenReturn(List.of(new SystemConfig("slot_duration_minutes", "60")));
+        bookingSettingsService.reload();
         
         LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(10, 0);
         String userEmail = "john@example.com";
         when(userRepository.findByEmail(userEmail)).thenReturn(Optional.of(new com.wam.cricnets_ai.model.User(userEmail, "John", null, com.wam.cricnets_ai.model.Role.USER)));
-        when(bookingRepository.findOverlappingBookings(any(), any(), any())).thenReturn(Collections.emptyList());
-        when(bookingRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // This should now succeed with 60 min duration (default)
         Booking booking = bookingService.createBooking(startTime, null, BallType.TENNIS_MACHINE, userEmail);
@@ -82,15 +112,14 @@ class BookingServiceTest {
         com.wam.cricnets_ai.model.User user = new com.wam.cricnets_ai.model.User(userEmail, userName, null, com.wam.cricnets_ai.model.Role.USER);
         
         when(userRepository.findByEmail(userEmail)).thenReturn(Optional.of(user));
-        when(bookingRepository.findOverlappingBookings(any(), any(), any())).thenReturn(Collections.emptyList());
-        when(bookingRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         Booking booking = bookingService.createBooking(startTime, BallType.TENNIS_MACHINE, userEmail);
 
         assertNotNull(booking);
         assertEquals(userEmail, booking.getUserEmail());
         assertEquals(userName, booking.getPlayerName());
-        verify(bookingRepository).save(any());
+        verify(bookingRepository).saveAllAndFlush(any());
     }
 
     @Test
@@ -98,8 +127,7 @@ class BookingServiceTest {
         LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(10, 0);
         String userEmail = "john@example.com";
         when(userRepository.findByEmail(userEmail)).thenReturn(Optional.of(new com.wam.cricnets_ai.model.User(userEmail, "John", null, com.wam.cricnets_ai.model.Role.USER)));
-        when(bookingRepository.findOverlappingBookings(any(), any(), any())).thenReturn(Collections.emptyList());
-        when(bookingRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         Booking booking = bookingService.createBooking(startTime, 60, BallType.TENNIS_MACHINE, userEmail);
 
@@ -111,7 +139,7 @@ class BookingServiceTest {
     @Test
     void testCreateBooking_Overlap() {
         LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(10, 0);
-        when(bookingRepository.findOverlappingBookings(any(), any(), any())).thenReturn(List.of(new Booking()));
+        slotOccupancyIndex.add(new Booking(startTime, startTime.plusMinutes(30), BallType.LEATHER, WicketType.INDOOR_ASTRO_TURF, MachineType.NONE, LeatherBallOption.NONE, false, "john@example.com", "John"));
 
         Exception exception = assertThrows(RuntimeException.class, () -> 
             bookingService.createBooking(startTime, BallType.TENNIS_MACHINE, "jane@example.com"));
@@ -119,6 +147,114 @@ class BookingServiceTest {
         assertEquals("This wicket is already booked for the selected time.", exception.getMessage());
     }
 
+    @Test
+    void testCreateBooking_SequencerDecidesAndCommits() {
+        LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(10, 0);
+        when(bookingSequencer.isEnabled()).thenReturn(true);
+        when(bookingSequencer.submit(eq(WicketType.INDOOR_ASTRO_TURF), any(), any())).thenAnswer(invocation -> {
+            BookingSequencer.Command command = invocation.getArgument(2);
+            List<Booking> bookings = command.decide();
+            // A second request for the same slot is rejected in memory
+            assertThrows(RuntimeException.class, command::decide);
+            command.undo();
+            return bookings;
+        });
+
+        Booking booking = bookingService.createBooking(startTime, BallType.LEATHER, "john@example.com");
+
+        assertEquals(startTime, booking.getStartTime());
+        verify(bookingRepository, never()).saveAllAndFlush(any());
+        // Undoing the command gave the slot back
+        when(bookingSequencer.isEnabled()).thenReturn(false);
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        assertNotNull(bookingService.createBooking(startTime, BallType.LEATHER, "jane@example.com"));
+    }
+
+    @Test
+    void testCreateBooking_ClaimsOnlyRequiredPools() {
+        LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(10, 0);
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Booking leather = bookingService.createBooking(startTime, 60, BallType.LEATHER, WicketType.OUTDOOR_TURF,
+            MachineType.LEATHER_BALL_MACHINE, LeatherBallOption.MACHINE_BALL, false, "user@example.com");
+        verify(resourcePoolService).claim(eq(List.of(leather)), any());
+        assertEquals(1, slotOccupancyIndex.peakOperatorUsage(startTime, startTime.plusMinutes(60)));
+        assertEquals(1, slotOccupancyIndex.peakUsage(ResourcePool.machine(MachineType.LEATHER_BALL_MACHINE),
+            startTime, startTime.plusMinutes(60)));
+
+        // Bookings without a machine need no pool at all
+        bookingService.createBooking(startTime, 60, BallType.TENNIS, "other@example.com");
+        assertEquals(1, slotOccupancyIndex.peakOperatorUsage(startTime, startTime.plusMinutes(60)));
+    }
+
+    @Test
+    void testCreateBooking_MachinePoolCapacity() {
+        when(systemConfigRepository.findAll())
+                .thenReturn(List.of(new SystemConfig("machine_count.tennis_ball_machine", "1")));
+        bookingSettingsService.reload();
+        LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(10, 0);
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        bookingService.createBooking(startTime, 30, BallType.TENNIS_MACHINE, WicketType.OUTDOOR_TURF,
+            MachineType.TENNIS_BALL_MACHINE, LeatherBallOption.NONE, true, "first@example.com");
+
+        Exception exception = assertThrows(RuntimeException.class, () ->
+            bookingService.createBooking(startTime, 30, BallType.TENNIS_MACHINE, WicketType.OUTDOOR_CEMENT,
+                MachineType.TENNIS_BALL_MACHINE, LeatherBallOption.NONE, true, "second@example.com"));
+        assertEquals("No tennis ball machines available for this time slot.", exception.getMessage());
+        assertTrue(slotOccupancyIndex.isFree(WicketType.OUTDOOR_CEMENT, startTime, startTime.plusMinutes(30)));
+    }
+
+    @Test
+    void testCreateBooking_TennisFallsBackToSelfOperated() {
+        when(systemConfigRepository.findAll())
+                .thenReturn(List.of(new SystemConfig("operator_count", "0")));
+        bookingSettingsService.reload();
+        LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(10, 0);
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Booking booking = bookingService.createBooking(startTime, 30, BallType.TENNIS_MACHINE, WicketType.OUTDOOR_TURF,
+            MachineType.TENNIS_BALL_MACHINE, LeatherBallOption.NONE, false, "user@example.com");
+
+        assertTrue(booking.isSelfOperated());
+        Exception exception = assertThrows(RuntimeException.class, () ->
+            bookingService.createBooking(startTime, 30, BallType.LEATHER, WicketType.OUTDOOR_CEMENT,
+                MachineType.LEATHER_BALL_MACHINE, LeatherBallOption.MACHINE_BALL, false, "leather@example.com"));
+        assertEquals("No machine operators available for this time slot.", exception.getMessage());
+    }
+
+    @Test
+    void testCreateBooking_ExclusionViolationFromDatabase() {
+        LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(10, 0);
+        when(bookingRepository.saveAllAndFlush(any())).thenThrow(new DataIntegrityViolationException("insert failed",
+            new SQLException("conflicting key value violates exclusion constraint \"bookings_no_overlap\"", "23P01")));
+
+        Exception exception = assertThrows(RuntimeException.class, () ->
+            bookingService.createBooking(startTime, BallType.TENNIS, "late@example.com"));
+
+        assertEquals("This wicket is already booked for the selected time.", exception.getMessage());
+        assertTrue(slotOccupancyIndex.isFree(WicketType.INDOOR_ASTRO_TURF, startTime, startTime.plusMinutes(30)),
+            "A rejected insert must give its claim back");
+    }
+
+    @Test
+    void testCreateBooking_ReleasedSlotCanBeRebooked() {
+        LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(10, 0);
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Booking first = bookingService.createBooking(startTime, BallType.TENNIS, "first@example.com");
+        first.setId(1L);
+        assertThrows(RuntimeException.class, () ->
+            bookingService.createBooking(startTime, 60, BallType.TENNIS, "second@example.com"));
+
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(first));
+        bookingService.cancelBooking(1L);
+
+        Booking second = bookingService.createBooking(startTime, BallType.TENNIS, "second@example.com");
+        assertEquals(startTime, second.getStartTime());
+        assertFalse(slotOccupancyIndex.isFree(WicketType.INDOOR_ASTRO_TURF, startTime, startTime.plusMinutes(30)));
+    }
+
     @Test
     void testCreateBooking_InvalidTime() {
         LocalDateTime tomorrow = LocalDate.now().plusDays(1).atStartOfDay();
@@ -146,8 +282,7 @@ class BookingServiceTest {
     void testCreateMultiBooking_Contiguous() {
         LocalDateTime startTime1 = LocalDate.now().plusDays(1).atTime(10, 0);
         LocalDateTime startTime2 = LocalDate.now().plusDays(1).atTime(10, 30);
-        when(bookingRepository.findOverlappingBookings(any(), any(), any())).thenReturn(Collections.emptyList());
-        when(bookingRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         List<Booking> bookings = bookingService.createMultiBooking(List.of(startTime1, startTime2), BallType.TENNIS, "multi@example.com");
 
@@ -160,8 +295,7 @@ class BookingServiceTest {
     void testCreateMultiBooking_NonContiguous() {
         LocalDateTime startTime1 = LocalDate.now().plusDays(1).atTime(10, 0);
         LocalDateTime startTime2 = LocalDate.now().plusDays(1).atTime(12, 0);
-        when(bookingRepository.findOverlappingBookings(any(), any(), any())).thenReturn(Collections.emptyList());
-        when(bookingRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         List<Booking> bookings = bookingService.createMultiBooking(List.of(startTime1, startTime2), BallType.TENNIS, "multi@example.com");
 
@@ -172,13 +306,57 @@ class BookingServiceTest {
         assertEquals(startTime2.plusMinutes(30), bookings.get(1).getEndTime());
     }
 
+    @Test
+    void testCreateMultiBooking_SingleBatchInsert() {
+        LocalDate day = LocalDate.now().plusDays(1);
+        when(userRepository.findByEmail("multi@example.com")).thenReturn(Optional.of(new com.wam.cricnets_ai.model.User("multi@example.com", "Multi", null, com.wam.cricnets_ai.model.Role.USER)));
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Booking> bookings = bookingService.createMultiBooking(
+            List.of(day.atTime(10, 0), day.atTime(10, 30), day.atTime(12, 0), day.atTime(15, 0), day.atTime(15, 30)),
+            BallType.TENNIS, "multi@example.com");
+
+        assertEquals(3, bookings.size());
+        verify(bookingRepository, times(1)).saveAllAndFlush(any());
+        verify(userRepository, times(1)).findByEmail("multi@example.com");
+        verify(systemConfigRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testCreateMultiBooking_PublishesOneSlotChangePerBooking() {
+        LocalDate day = LocalDate.now().plusDays(1);
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        bookingService.createMultiBooking(List.of(day.atTime(10, 0), day.atTime(10, 30), day.atTime(12, 0)),
+            BallType.TENNIS, "multi@example.com");
+
+        verify(eventPublisher).publishEvent(new SlotChange(WicketType.INDOOR_ASTRO_TURF, day.atTime(10, 0), day.atTime(11, 0), true, List.of()));
+        verify(eventPublisher).publishEvent(new SlotChange(WicketType.INDOOR_ASTRO_TURF, day.atTime(12, 0), day.atTime(12, 30), true, List.of()));
+        verify(eventPublisher).publishEvent(new BookingStatusChange(day.atTime(10, 0), WicketType.INDOOR_ASTRO_TURF, null, BookingStatus.PENDING));
+        verify(eventPublisher).publishEvent(new BookingStatusChange(day.atTime(12, 0), WicketType.INDOOR_ASTRO_TURF, null, BookingStatus.PENDING));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void testCreateMultiBooking_ConflictBooksNothing() {
+        LocalDate day = LocalDate.now().plusDays(1);
+        slotOccupancyIndex.add(new Booking(day.atTime(12, 0), day.atTime(12, 30), BallType.LEATHER, WicketType.INDOOR_ASTRO_TURF, MachineType.NONE, LeatherBallOption.NONE, false, "taken@example.com", "Taken"));
+
+        assertThrows(RuntimeException.class, () -> bookingService.createMultiBooking(
+            List.of(day.atTime(10, 0), day.atTime(12, 0)), BallType.TENNIS, "multi@example.com"));
+
+        verify(bookingRepository, never()).saveAllAndFlush(any());
+        assertTrue(slotOccupancyIndex.isFree(WicketType.INDOOR_ASTRO_TURF, day.atTime(10, 0), day.atTime(10, 30)),
+            "Groups claimed before the conflict must be released");
+    }
+
     @Test
     void testGetSlotsForDay() {
         LocalDate date = LocalDate.now().plusDays(1);
         LocalDateTime bookedSlot = date.atTime(10, 0);
         Booking existing = new Booking(bookedSlot, bookedSlot.plusMinutes(30), BallType.LEATHER, WicketType.INDOOR_ASTRO_TURF, MachineType.NONE, LeatherBallOption.NONE, false, "exist@example.com", "Existing Player");
         
-        when(bookingRepository.findBookingsByDay(any(), any(), any())).thenReturn(List.of(existing));
+        slotOccupancyIndex.add(existing);
 
         List<BookingService.SlotStatus> slots = bookingService.getSlotsForDay(date, WicketType.INDOOR_ASTRO_TURF);
         
@@ -198,11 +376,188 @@ class BookingServiceTest {
         assertTrue(sevenAM.available());
     }
 
+    @Test
+    void testGetSlotsForDay_HeldSlotsAreUnavailable() {
+        LocalDate date = LocalDate.now().plusDays(3);
+        LocalDateTime slot = date.atTime(11, 0);
+
+        assertEquals(SlotOccupancyIndex.Outcome.RESERVED,
+                slotOccupancyIndex.tryHold(WicketType.INDOOR_ASTRO_TURF, slot, slot.plusMinutes(30)));
+
+        BookingService.SlotStatus held = statusAt(bookingService.getSlotsForDay(date, WicketType.INDOOR_ASTRO_TURF), slot);
+        assertEquals("Held", held.status());
+        assertFalse(held.available());
+        Exception exception = assertThrows(RuntimeException.class, () ->
+                bookingService.createBooking(slot, 30, BallType.TENNIS, "rush@example.com"));
+        assertEquals(SlotHoldService.HELD, exception.getMessage());
+
+        slotOccupancyIndex.releaseHold(WicketType.INDOOR_ASTRO_TURF, slot, slot.plusMinutes(30));
+        assertTrue(statusAt(bookingService.getSlotsForDay(date, WicketType.INDOOR_ASTRO_TURF), slot).available());
+    }
+
+    @Test
+    void testCreateBooking_ConvertsHold() {
+        LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(12, 0);
+        LocalDateTime endTime = startTime.plusMinutes(30);
+        UUID holdId = UUID.randomUUID();
+        slotOccupancyIndex.tryHold(WicketType.OUTDOOR_TURF, startTime, endTime);
+        when(slotHoldService.consume(holdId, "holder@example.com")).thenReturn(new SlotHoldService.SlotHold(
+                holdId, WicketType.OUTDOOR_TURF, startTime, endTime, LocalDateTime.now().plusMinutes(2)));
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Booking booking = bookingService.createBooking(startTime, 30, BallType.TENNIS, WicketType.OUTDOOR_TURF,
+                MachineType.NONE, LeatherBallOption.NONE, false, "holder@example.com", holdId);
+
+        assertEquals(startTime, booking.getStartTime());
+        assertFalse(slotOccupancyIndex.isFree(WicketType.OUTDOOR_TURF, startTime, endTime));
+        assertTrue(slotOccupancyIndex.heldMinutes(startTime.toLocalDate(), WicketType.OUTDOOR_TURF).isEmpty());
+    }
+
+    @Test
+    void testCreateBooking_HoldMustCoverTheSession() {
+        LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(12, 0);
+        UUID holdId = UUID.randomUUID();
+        when(slotHoldService.consume(holdId, "holder@example.com")).thenReturn(new SlotHoldService.SlotHold(
+                holdId, WicketType.OUTDOOR_TURF, startTime, startTime.plusMinutes(30), LocalDateTime.now().plusMinutes(2)));
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+                bookingService.createBooking(startTime, 60, BallType.TENNIS, WicketType.OUTDOOR_TURF,
+                        MachineType.NONE, LeatherBallOption.NONE, false, "holder@example.com", holdId));
+        assertEquals("The hold does not cover the requested session.", exception.getMessage());
+        verify(bookingRepository, never()).saveAllAndFlush(any());
+    }
+
+    @Test
+    void testGetSlotsForDay_CachedGridFollowsBookingChanges() {
+        LocalDate date = LocalDate.now().plusDays(2);
+        LocalDateTime slot = date.atTime(9, 0);
+        Booking booking = new Booking(slot, slot.plusMinutes(30), BallType.LEATHER, WicketType.INDOOR_ASTRO_TURF, MachineType.NONE, LeatherBallOption.NONE, false, "cache@example.com", "Cache");
+
+        assertTrue(statusAt(bookingService.getSlotsForDay(date, WicketType.INDOOR_ASTRO_TURF), slot).available());
+        assertEquals(1, slotGridCache.size());
+
+        slotOccupancyIndex.add(booking);
+        assertEquals("Booked", statusAt(bookingService.getSlotsForDay(date, WicketType.INDOOR_ASTRO_TURF), slot).status());
+        // Other wicket-days are untouched by the write
+        assertTrue(statusAt(bookingService.getSlotsForDay(date, WicketType.OUTDOOR_CEMENT), date.atTime(9, 0)).available());
+
+        slotOccupancyIndex.remove(booking);
+        assertEquals("Available", statusAt(bookingService.getSlotsForDay(date, WicketType.INDOOR_ASTRO_TURF), slot).status());
+        assertEquals(2, slotGridCache.size());
+    }
+
+    @Test
+    void testVersionedSlots_ETagChangesOnlyWithItsWicketDay() {
+        LocalDate date = LocalDate.now().plusDays(3);
+        LocalDateTime slot = date.atTime(11, 0);
+        String turf = bookingService.getVersionedSlotsForDay(date, WicketType.OUTDOOR_TURF).etag();
+        String cement = bookingService.getVersionedSlotsForDay(date, WicketType.OUTDOOR_CEMENT).etag();
+        assertEquals(turf, bookingService.getVersionedSlotsForDay(date, WicketType.OUTDOOR_TURF).etag());
+
+        slotOccupancyIndex.add(new Booking(slot, slot.plusMinutes(30), BallType.LEATHER, WicketType.OUTDOOR_TURF, MachineType.NONE, LeatherBallOption.NONE, false, "etag@example.com", "ETag"));
+
+        assertNotEquals(turf, bookingService.getVersionedSlotsForDay(date, WicketType.OUTDOOR_TURF).etag());
+        assertEquals(cement, bookingService.getVersionedSlotsForDay(date, WicketType.OUTDOOR_CEMENT).etag());
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void testUpcomingETag_ChangesOnStatusChangeWithoutQuery() {
+        Booking booking = new Booking(LocalDate.now().plusDays(1).atTime(10, 0), LocalDate.now().plusDays(1).atTime(10, 30), BallType.LEATHER, WicketType.OUTDOOR_TURF, MachineType.NONE, LeatherBallOption.NONE, false, "done@example.com", "Done");
+        booking.setId(7L);
+        when(bookingRepository.findById(7L)).thenReturn(Optional.of(booking));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        String before = bookingService.getUpcomingBookingsETag();
+        bookingService.markAsDone(7L);
+
+        assertNotEquals(before, bookingService.getUpcomingBookingsETag());
+        verify(bookingRepository, never()).findPage(any(), any(), any(), anyInt());
+        // Relayed so the ETags of other nodes move as well
+        verify(eventPublisher).publishEvent(SlotChange.statusChanged(booking));
+    }
+
+    @Test
+    void testETagsDifferAfterARestart() {
+        LocalDate date = LocalDate.now().plusDays(3);
+        String slots = bookingService.getVersionedSlotsForDay(date, WicketType.OUTDOOR_TURF).etag();
+        String upcoming = bookingService.getUpcomingBookingsETag();
+
+        // Same versions, fresh index: a tag from before the restart must not match
+        BookingService restarted = new BookingService(bookingRepository, resourcePoolService, userRepository,
+                bookingSettingsService, new SlotOccupancyIndex(bookingRepository), new SlotGridCache(), slotHoldService,
+                bookingSequencer, new TransactionTemplate(transactionManager), eventPublisher);
+
+        assertNotEquals(slots, restarted.getVersionedSlotsForDay(date, WicketType.OUTDOOR_TURF).etag());
+        assertNotEquals(upcoming, restarted.getUpcomingBookingsETag());
+    }
+
+    private static BookingService.SlotStatus statusAt(List<BookingService.SlotStatus> slots, LocalDateTime start) {
+        return slots.stream().filter(s -> s.startTime().equals(start)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void testGetAvailability_MultiDayGrid() {
+        LocalDate from = LocalDate.now().plusDays(1);
+        LocalDateTime booked = from.plusDays(1).atTime(18, 0);
+        slotOccupancyIndex.add(new Booking(booked, booked.plusMinutes(90), BallType.LEATHER, WicketType.OUTDOOR_TURF, MachineType.NONE, LeatherBallOption.NONE, false, "grid@example.com", "Grid"));
+
+        List<BookingService.DayAvailability> grid = bookingService.getAvailability(from, from.plusDays(2),
+            List.of(WicketType.OUTDOOR_TURF, WicketType.OUTDOOR_CEMENT)).toList();
+
+        assertEquals(6, grid.size());
+        BookingService.DayAvailability turf = grid.stream()
+                .filter(d -> d.date().equals(booked.toLocalDate()) && d.wicketType() == WicketType.OUTDOOR_TURF)
+                .findFirst().orElseThrow();
+        assertEquals(32, turf.slots().size());
+        assertEquals(3, turf.slots().stream().filter(slot -> "Booked".equals(slot.status())).count());
+        assertTrue(grid.stream()
+                .filter(d -> d.wicketType() == WicketType.OUTDOOR_CEMENT)
+                .allMatch(d -> d.slots().stream().allMatch(BookingService.SlotStatus::available)));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void testGetAvailability_RejectsInvalidWindow() {
+        LocalDate from = LocalDate.now().plusDays(1);
+        assertThrows(IllegalArgumentException.class, () -> bookingService.getAvailability(from, from.minusDays(1), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> bookingService.getAvailability(from, from.plusDays(31), List.of()));
+    }
+
     @Test
     void testGetAllBookings() {
-        when(bookingRepository.findAll()).thenReturn(List.of(new Booking(), new Booking()));
-        List<Booking> bookings = bookingService.getAllBookings();
-        assertEquals(2, bookings.size());
+        when(bookingRepository.findPage(any(), any(), any(), anyInt())).thenReturn(List.of(new Booking(), new Booking()));
+        BookingService.BookingPage page = bookingService.getAllBookings(null, null);
+        assertEquals(2, page.items().size());
+        assertNull(page.nextCursor());
+        verify(bookingRepository).findPage(BookingFilter.none(), null, null, BookingService.DEFAULT_PAGE_SIZE + 1);
+    }
+
+    @Test
+    void testFindBookings_CursorSeeksPastLastItem() {
+        LocalDateTime start = LocalDate.now().plusDays(1).atTime(10, 0);
+        List<Booking> rows = new java.util.ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            Booking booking = new Booking(start, start.plusMinutes(30), BallType.TENNIS, WicketType.OUTDOOR_TURF, MachineType.NONE, LeatherBallOption.NONE, false, "page@example.com", "Page");
+            booking.setId(id);
+            rows.add(booking);
+        }
+        when(bookingRepository.findPage(any(), any(), any(), anyInt())).thenReturn(rows);
+
+        BookingService.BookingPage first = bookingService.findBookings(BookingFilter.none(), null, 2);
+        assertEquals(2, first.items().size());
+        assertNotNull(first.nextCursor());
+
+        bookingService.findBookings(BookingFilter.none(), first.nextCursor(), 2);
+        verify(bookingRepository).findPage(BookingFilter.none(), start, 2L, 3);
+    }
+
+    @Test
+    void testFindBookings_RejectsInvalidCursorAndClampsSize() {
+        assertThrows(IllegalArgumentException.class, () -> bookingService.findBookings(BookingFilter.none(), "not-a-cursor", null));
+
+        bookingService.findBookings(BookingFilter.none(), null, 10_000);
+        verify(bookingRepository).findPage(BookingFilter.none(), null, null, BookingService.MAX_PAGE_SIZE + 1);
     }
 
     @Test
@@ -233,12 +588,39 @@ class BookingServiceTest {
         verify(bookingRepository).save(booking);
     }
 
+    @Test
+    void testCancelBooking_PublishesFreedSlot() {
+        LocalDateTime start = LocalDate.now().plusDays(1).atTime(16, 0);
+        Booking booking = new Booking(start, start.plusMinutes(30), BallType.LEATHER, WicketType.OUTDOOR_TURF, MachineType.NONE, LeatherBallOption.NONE, false, "free@example.com", "Free");
+        booking.setId(2L);
+        when(bookingRepository.findById(2L)).thenReturn(Optional.of(booking));
+
+        bookingService.cancelBooking(2L);
+
+        verify(eventPublisher).publishEvent(new SlotChange(WicketType.OUTDOOR_TURF, start, start.plusMinutes(30), false, List.of()));
+        verify(eventPublisher).publishEvent(new BookingStatusChange(start, WicketType.OUTDOOR_TURF, BookingStatus.PENDING, BookingStatus.CANCELLED));
+    }
+
     @Test
     void testCancelBooking_NotFound() {
         when(bookingRepository.findById(1L)).thenReturn(Optional.empty());
         assertThrows(RuntimeException.class, () -> bookingService.cancelBooking(1L));
     }
 
+    @Test
+    void testCancelBooking_ArchivedIsRejected() {
+        Booking archived = new Booking();
+        archived.setId(1L);
+        archived.setStatus(BookingStatus.DONE);
+        when(bookingRepository.findById(1L)).thenReturn(Optional.empty());
+        when(bookingRepository.findArchivedById(1L)).thenReturn(Optional.of(archived));
+
+        BookingConflictException exception = assertThrows(BookingConflictException.class, () -> bookingService.cancelBooking(1L));
+
+        assertEquals("Booking 1 is archived and can no longer be changed.", exception.getMessage());
+        verify(bookingRepository, never()).save(any());
+    }
+
     @Test
     void testMarkAsDone_Success() {
         Booking booking = new Booking();
@@ -273,11 +655,11 @@ class BookingServiceTest {
         Booking b1 = new Booking(startTime, endTime, BallType.LEATHER, WicketType.OUTDOOR_CEMENT, MachineType.LEATHER_BALL_MACHINE, LeatherBallOption.MACHINE_BALL, false, "u1@e.com", "P1");
         Booking b2 = new Booking(startTime, endTime, BallType.LEATHER, WicketType.OUTDOOR_TURF, MachineType.LEATHER_BALL_MACHINE, LeatherBallOption.MACHINE_BALL, false, "u2@e.com", "P2");
         
-        when(bookingRepository.findOverlappingBookings(any(), any(), eq(WicketType.INDOOR_ASTRO_TURF))).thenReturn(List.of());
-        when(bookingRepository.findAllOverlappingBookings(startTime, endTime)).thenReturn(List.of(b1, b2));
+        slotOccupancyIndex.add(b1);
+        slotOccupancyIndex.add(b2);
         // Default operator count is 2
         
-        when(bookingRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         Booking result = bookingService.createBooking(startTime, 30, BallType.TENNIS, WicketType.INDOOR_ASTRO_TURF, 
             MachineType.TENNIS_BALL_MACHINE, LeatherBallOption.NONE, false, "user@example.com");
@@ -286,6 +668,37 @@ class BookingServiceTest {
         assertTrue(result.isSelfOperated(), "Should automatically switch to self-operated if operators are busy");
     }
 
+    @Test
+    void testCreateBooking_OperatorTakenOnAnotherNode_TennisMachineSelfOperated() {
+        LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(10, 0);
+        // This node's index has both operators free, but the database counters do not
+        doThrow(ResourcePoolService.exhausted(ResourcePool.OPERATOR)).doNothing()
+                .when(resourcePoolService).claim(any(), any());
+        when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Booking result = bookingService.createBooking(startTime, 30, BallType.TENNIS, WicketType.INDOOR_ASTRO_TURF,
+                MachineType.TENNIS_BALL_MACHINE, LeatherBallOption.NONE, false, "user@example.com");
+
+        assertTrue(result.isSelfOperated());
+        // The operator the first attempt counted in the index was given back
+        for (WicketType wicket : List.of(WicketType.OUTDOOR_CEMENT, WicketType.OUTDOOR_TURF)) {
+            Booking withOperator = bookingService.createBooking(startTime, 30, BallType.TENNIS, wicket,
+                    MachineType.TENNIS_BALL_MACHINE, LeatherBallOption.NONE, false, "user@example.com");
+            assertFalse(withOperator.isSelfOperated());
+        }
+    }
+
+    @Test
+    void testCreateBooking_OperatorTakenOnAnotherNode_LeatherMachineFails() {
+        LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(10, 0);
+        doThrow(ResourcePoolService.exhausted(ResourcePool.OPERATOR)).when(resourcePoolService).claim(any(), any());
+
+        assertThrows(BookingConflictException.class, () -> bookingService.createBooking(startTime, 30,
+                BallType.LEATHER, WicketType.INDOOR_ASTRO_TURF, MachineType.LEATHER_BALL_MACHINE,
+                LeatherBallOption.MACHINE_BALL, false, "user@example.com"));
+        verify(resourcePoolService, times(1)).claim(any(), any());
+    }
+
     @Test
     void testCreateBooking_OperatorLimitReached_LeatherMachineFails() {
         LocalDateTime startTime = LocalDate.now().plusDays(1).atTime(10, 0);
@@ -294,8 +707,8 @@ class BookingServiceTest {
         Booking b1 = new Booking(startTime, endTime, BallType.LEATHER, WicketType.OUTDOOR_CEMENT, MachineType.LEATHER_BALL_MACHINE, LeatherBallOption.MACHINE_BALL, false, "u1@e.com", "P1");
         Booking b2 = new Booking(startTime, endTime, BallType.LEATHER, WicketType.OUTDOOR_TURF, MachineType.LEATHER_BALL_MACHINE, LeatherBallOption.MACHINE_BALL, false, "u2@e.com", "P2");
         
-        when(bookingRepository.findOverlappingBookings(any(), any(), eq(WicketType.INDOOR_ASTRO_TURF))).thenReturn(List.of());
-        when(bookingRepository.findAllOverlappingBookings(startTime, endTime)).thenReturn(List.of(b1, b2));
+        slotOccupancyIndex.add(b1);
+        slotOccupancyIndex.add(b2);
         
         Exception exception = assertThrows(RuntimeException.class, () -> 
             bookingService.createBooking(startTime, 30, BallType.LEATHER, WicketType.INDOOR_ASTRO_TURF, 
@@ -306,8 +719,8 @@ class BookingServiceTest {
 
     @Test
     void testGetBookingsByEmail() {
-        when(bookingRepository.findByUserEmail("john@example.com")).thenReturn(List.of(new Booking()));
-        List<Booking> results = bookingService.getBookingsByEmail("john@example.com");
-        assertEquals(1, results.size());
+        when(bookingRepository.findPage(eq(BookingFilter.forUser("john@example.com")), any(), any(), anyInt())).thenReturn(List.of(new Booking()));
+        BookingService.BookingPage results = bookingService.getBookingsByEmail("john@example.com", null, null);
+        assertEquals(1, results.items().size());
     }
 }
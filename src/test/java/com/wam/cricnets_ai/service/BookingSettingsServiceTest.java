@@ -0,0 +1,81 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.config.BookingConfig;
+import com.wam.cricnets_ai.model.SystemConfig;
+import com.wam.cricnets_ai.repository.SystemConfigRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BookingSettingsServiceTest {
+
+    @Mock
+    private SystemConfigRepository systemConfigRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private BookingSettingsService settingsService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        settingsService = new BookingSettingsService(systemConfigRepository, new BookingConfig(), jdbcTemplate);
+        when(systemConfigRepository.findAll()).thenReturn(List.of());
+    }
+
+    @Test
+    void testDefaultsComeFromBookingConfig() {
+        BookingSettings settings = settingsService.current();
+
+        assertEquals(0, settings.version());
+        assertEquals(30, settings.slotDurationMinutes());
+        assertEquals(LocalTime.of(7, 0), settings.businessStart());
+        assertEquals(LocalTime.of(23, 0), settings.businessEnd());
+        assertEquals(2, settings.operatorCount());
+    }
+
+    @Test
+    void testSnapshotIsServedFromMemory() {
+        settingsService.current();
+        settingsService.current();
+        settingsService.current();
+
+        verify(systemConfigRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testNotificationReloadsOnlyForNewerVersions() {
+        when(systemConfigRepository.findAll()).thenReturn(List.of(
+                new SystemConfig("config_version", "3"), new SystemConfig("operator_count", "4")));
+        settingsService.reload();
+
+        settingsService.onNotification("3");
+        verify(systemConfigRepository, times(1)).findAll();
+
+        when(systemConfigRepository.findAll()).thenReturn(List.of(
+                new SystemConfig("config_version", "4"), new SystemConfig("operator_count", "5")));
+        settingsService.onNotification("4");
+
+        assertEquals(4, settingsService.current().version());
+        assertEquals(5, settingsService.current().operatorCount());
+    }
+
+    @Test
+    void testUpdateRejectsInvalidValuesBeforeWriting() {
+        assertThrows(IllegalArgumentException.class, () -> settingsService.update("slot_duration_minutes", "abc"));
+        assertThrows(IllegalArgumentException.class, () -> settingsService.update("business_hours_end", "06:00"));
+        assertThrows(IllegalArgumentException.class, () -> settingsService.update("config_version", "99"));
+
+        verify(systemConfigRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,103 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.config.BookingConfig;
+import com.wam.cricnets_ai.model.BookingStatus;
+import com.wam.cricnets_ai.model.WicketType;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import com.wam.cricnets_ai.repository.SystemConfigRepository;
+import com.wam.cricnets_ai.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BookingStatsServiceTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private SystemConfigRepository systemConfigRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private BookingStatsService bookingStatsService;
+    private final LocalDateTime now = LocalDateTime.now().withSecond(0).withNano(0);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(systemConfigRepository.findAll()).thenReturn(List.of());
+        BookingSettingsService bookingSettingsService =
+                new BookingSettingsService(systemConfigRepository, new BookingConfig(), jdbcTemplate);
+        bookingStatsService = new BookingStatsService(bookingRepository, userRepository,
+                new SlotOccupancyIndex(bookingRepository), bookingSettingsService);
+    }
+
+    @Test
+    void testReconcileLoadsCountsFromTheDatabase() {
+        when(bookingRepository.countByStatus()).thenReturn(List.of(
+                new Object[]{BookingStatus.PENDING, 3L},
+                new Object[]{BookingStatus.CANCELLED, 2L}));
+        when(bookingRepository.countActiveByStartTimeAfter(any())).thenReturn(List.<Object[]>of(
+                new Object[]{now.plusHours(1), 2L},
+                new Object[]{now.plusHours(2), 1L}));
+        when(userRepository.count()).thenReturn(7L);
+
+        bookingStatsService.reconcile();
+        Map<String, Object> stats = bookingStatsService.snapshot();
+
+        assertEquals(7L, stats.get("totalUsers"));
+        assertEquals(5L, stats.get("totalBookings"));
+        assertEquals(3L, ((Map<?, ?>) stats.get("bookingsByStatus")).get(BookingStatus.PENDING));
+        assertEquals(3L, stats.get("upcomingBookings"));
+        assertTrue(stats.containsKey("wicketUtilizationToday"));
+        assertTrue(stats.containsKey("operatorLoad"));
+    }
+
+    @Test
+    void testCommittedChangesAdjustCountersWithoutQuerying() {
+        LocalDateTime start = now.plusDays(1);
+
+        bookingStatsService.apply(new BookingStatusChange(start, WicketType.OUTDOOR_TURF, null, BookingStatus.PENDING), now);
+        bookingStatsService.apply(new BookingStatusChange(start, WicketType.OUTDOOR_CEMENT, null, BookingStatus.PENDING), now);
+        assertEquals(2, bookingStatsService.upcomingBookings(now));
+
+        bookingStatsService.apply(new BookingStatusChange(start, WicketType.OUTDOOR_TURF,
+                BookingStatus.PENDING, BookingStatus.CANCELLED), now);
+        bookingStatsService.apply(new BookingStatusChange(start, WicketType.OUTDOOR_CEMENT,
+                BookingStatus.PENDING, BookingStatus.DONE), now);
+
+        Map<?, ?> byStatus = (Map<?, ?>) bookingStatsService.snapshot().get("bookingsByStatus");
+        assertEquals(0L, byStatus.get(BookingStatus.PENDING));
+        assertEquals(1L, byStatus.get(BookingStatus.CANCELLED));
+        assertEquals(1L, byStatus.get(BookingStatus.DONE));
+        assertEquals(1, bookingStatsService.upcomingBookings(now));
+        verify(bookingRepository, never()).countByStatus();
+    }
+
+    @Test
+    void testUpcomingDropsBookingsOnceTheyStart() {
+        bookingStatsService.apply(new BookingStatusChange(now.plusMinutes(30), WicketType.OUTDOOR_TURF,
+                null, BookingStatus.PENDING), now);
+        bookingStatsService.apply(new BookingStatusChange(now.plusMinutes(90), WicketType.OUTDOOR_TURF,
+                null, BookingStatus.PENDING), now);
+
+        assertEquals(2, bookingStatsService.upcomingBookings(now));
+        assertEquals(1, bookingStatsService.upcomingBookings(now.plusMinutes(30)));
+        assertEquals(0, bookingStatsService.upcomingBookings(now.plusHours(2)));
+    }
+}
@@ -0,0 +1,130 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.*;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("local")
+class IdempotencyServiceTest {
+
+    private static final String EMAIL = "retry@example.com";
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private SlotOccupancyIndex slotOccupancyIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime start = LocalDate.now().plusDays(6).atTime(8, 0);
+
+    @BeforeEach
+    void setUp() {
+        clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        clear();
+    }
+
+    @Test
+    void testRetryReturnsTheOriginalBooking() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger executions = new AtomicInteger();
+
+        Booking first = idempotencyService.execute(EMAIL, key, "request", () -> book(executions)).get(0);
+        Booking retry = idempotencyService.execute(EMAIL, key, "request", () -> book(executions)).get(0);
+
+        assertEquals(first.getId(), retry.getId());
+        assertEquals(1, executions.get());
+        assertEquals(1, bookingRepository.count());
+    }
+
+    @Test
+    void testKeyCannotBeReusedForAnotherRequest() {
+        String key = UUID.randomUUID().toString();
+        idempotencyService.execute(EMAIL, key, "request", () -> book(new AtomicInteger()));
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+                idempotencyService.execute(EMAIL, key, "other request", () -> book(new AtomicInteger())));
+        assertEquals("Idempotency-Key was already used for a different request.", exception.getMessage());
+    }
+
+    @Test
+    void testFailedAttemptIsNotRecorded() {
+        String key = UUID.randomUUID().toString();
+
+        assertThrows(RuntimeException.class, () -> idempotencyService.execute(EMAIL, key, "request", () -> {
+            throw new RuntimeException("Boom");
+        }));
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM idempotency_keys WHERE idempotency_key = ?",
+                Integer.class, key));
+        assertEquals(1, idempotencyService.execute(EMAIL, key, "request", () -> book(new AtomicInteger())).size());
+    }
+
+    @Test
+    void testConcurrentDuplicatesShareOneExecution() throws Exception {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<Booking>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> {
+                ready.await();
+                return idempotencyService.execute(EMAIL, key, "request", () -> book(executions));
+            }));
+        }
+        ready.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        Long id = results.get(0).get().get(0).getId();
+        for (Future<List<Booking>> result : results) {
+            assertEquals(id, result.get().get(0).getId());
+        }
+        assertEquals(1, executions.get());
+    }
+
+    private List<Booking> book(AtomicInteger executions) {
+        executions.incrementAndGet();
+        return List.of(bookingService.createBooking(start, BallType.TENNIS, EMAIL));
+    }
+
+    private void clear() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE user_email = ?", EMAIL);
+        bookingRepository.deleteAll();
+        slotOccupancyIndex.rebuild();
+    }
+}
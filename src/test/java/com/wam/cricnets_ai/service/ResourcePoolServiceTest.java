@@ -0,0 +1,109 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("local")
+class ResourcePoolServiceTest {
+
+    @Autowired
+    private ResourcePoolService resourcePoolService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime start = LocalDate.now().plusYears(5).atTime(10, 0);
+    // Two operators, one leather ball machine, tennis ball machines unlimited
+    private final BookingSettings settings = new BookingSettings(0, 30, LocalTime.of(7, 0),
+            LocalTime.of(23, 0), 2, Map.of(MachineType.LEATHER_BALL_MACHINE, 1));
+
+    @BeforeEach
+    void setUp() {
+        clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        clear();
+    }
+
+    @Test
+    void testClaimsOneUnitPerPoolAndSlot() {
+        resourcePoolService.claim(List.of(booking(WicketType.OUTDOOR_TURF, MachineType.LEATHER_BALL_MACHINE, false)), settings);
+
+        assertEquals(1, resourcePoolService.used(ResourcePool.OPERATOR, start));
+        assertEquals(1, resourcePoolService.used(ResourcePool.OPERATOR, start.plusMinutes(30)));
+        assertEquals(1, resourcePoolService.used(ResourcePool.machine(MachineType.LEATHER_BALL_MACHINE), start.plusMinutes(30)));
+        assertEquals(0, resourcePoolService.used(ResourcePool.OPERATOR, start.plusMinutes(60)));
+    }
+
+    @Test
+    void testClaimBeyondCapacityFails() {
+        resourcePoolService.claim(List.of(booking(WicketType.OUTDOOR_TURF, MachineType.LEATHER_BALL_MACHINE, false)), settings);
+
+        Exception exception = assertThrows(RuntimeException.class, () -> resourcePoolService.claim(
+                List.of(booking(WicketType.OUTDOOR_CEMENT, MachineType.LEATHER_BALL_MACHINE, false)), settings));
+        assertEquals("No leather ball machines available for this time slot.", exception.getMessage());
+
+        // Tennis machines are unlimited, but the two operators run out on the third session
+        resourcePoolService.claim(List.of(booking(WicketType.OUTDOOR_CEMENT, MachineType.TENNIS_BALL_MACHINE, false)), settings);
+        exception = assertThrows(RuntimeException.class, () -> resourcePoolService.claim(
+                List.of(booking(WicketType.INDOOR_ASTRO_TURF, MachineType.TENNIS_BALL_MACHINE, false)), settings));
+        assertEquals("No machine operators available for this time slot.", exception.getMessage());
+    }
+
+    @Test
+    void testFailedClaimGivesBackWhatItGot() {
+        Booking later = new Booking(start.plusMinutes(30), start.plusMinutes(60), BallType.LEATHER, WicketType.OUTDOOR_TURF,
+                MachineType.TENNIS_BALL_MACHINE, LeatherBallOption.NONE, false, "pool@example.com", "Pool");
+        Booking other = new Booking(start.plusMinutes(30), start.plusMinutes(60), BallType.LEATHER, WicketType.OUTDOOR_CEMENT,
+                MachineType.TENNIS_BALL_MACHINE, LeatherBallOption.NONE, false, "pool@example.com", "Pool");
+        resourcePoolService.claim(List.of(later, other), settings);
+
+        // The first slot has an operator free, the second does not
+        PoolExhaustedException exception = assertThrows(PoolExhaustedException.class, () -> resourcePoolService.claim(
+                List.of(booking(WicketType.INDOOR_ASTRO_TURF, MachineType.TENNIS_BALL_MACHINE, false)), settings));
+
+        assertEquals(ResourcePool.OPERATOR, exception.pool());
+        assertEquals(0, resourcePoolService.used(ResourcePool.OPERATOR, start));
+        assertEquals(0, resourcePoolService.used(ResourcePool.machine(MachineType.TENNIS_BALL_MACHINE), start));
+        assertEquals(2, resourcePoolService.used(ResourcePool.OPERATOR, start.plusMinutes(30)));
+    }
+
+    @Test
+    void testReleaseFreesTheUnits() {
+        Booking booking = booking(WicketType.OUTDOOR_TURF, MachineType.TENNIS_BALL_MACHINE, true);
+        resourcePoolService.claim(List.of(booking), settings);
+
+        resourcePoolService.release(booking);
+
+        assertEquals(0, resourcePoolService.used(ResourcePool.machine(MachineType.TENNIS_BALL_MACHINE), start));
+        assertEquals(0, resourcePoolService.used(ResourcePool.OPERATOR, start));
+    }
+
+    private void clear() {
+        jdbcTemplate.update("DELETE FROM resource_usage WHERE slot_start >= ? AND slot_start < ?",
+                Timestamp.valueOf(start.toLocalDate().atStartOfDay()), Timestamp.valueOf(start.toLocalDate().plusDays(1).atStartOfDay()));
+    }
+
+    private Booking booking(WicketType wicketType, MachineType machineType, boolean selfOperated) {
+        return new Booking(start, start.plusMinutes(60), BallType.LEATHER, wicketType, machineType,
+                LeatherBallOption.MACHINE_BALL, selfOperated, "pool@example.com", "Pool");
+    }
+}
@@ -0,0 +1,109 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.WicketType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotGridCacheTest {
+
+    private final SlotGridCache cache = new SlotGridCache();
+    private final LocalDate date = LocalDate.now().plusDays(1);
+
+    @Test
+    void testServesCachedGridUntilAVersionChanges() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(date, WicketType.OUTDOOR_TURF, 1, 5, () -> grid(loads));
+        cache.get(date, WicketType.OUTDOOR_TURF, 1, 5, () -> grid(loads));
+        assertEquals(1, loads.get());
+
+        cache.get(date, WicketType.OUTDOOR_TURF, 1, 6, () -> grid(loads));
+        assertEquals(2, loads.get(), "An occupancy change must recompute the grid");
+
+        cache.get(date, WicketType.OUTDOOR_TURF, 2, 6, () -> grid(loads));
+        assertEquals(3, loads.get(), "A config change must recompute the grid");
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneComputation() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int threads = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+
+        Future<?> first = executorService.submit(() -> cache.get(date, WicketType.OUTDOOR_TURF, 1, 1, () -> {
+            loading.countDown();
+            await(release);
+            return grid(loads);
+        }));
+        loading.await();
+        List<Future<SlotGridCache.SlotGrid>> others = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            others.add(executorService.submit(() -> cache.get(date, WicketType.OUTDOOR_TURF, 1, 1, () -> grid(loads))));
+        }
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        for (Future<SlotGridCache.SlotGrid> other : others) {
+            assertNotNull(other.get(5, TimeUnit.SECONDS));
+        }
+        executorService.shutdown();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        assertThrows(IllegalStateException.class, () -> cache.get(date, WicketType.OUTDOOR_TURF, 1, 1, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertNotNull(cache.get(date, WicketType.OUTDOOR_TURF, 1, 1, () -> grid(loads)));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testPastBoundaryMovesWithoutRecompute() {
+        SlotGridCache.SlotGrid grid = cache.get(date, WicketType.OUTDOOR_TURF, 1, 1, () -> grid(new AtomicInteger()));
+
+        List<BookingService.SlotStatus> morning = grid.at(date.atTime(9, 0));
+        assertEquals("Unavailable", morning.get(1).status());
+        assertEquals("Booked", morning.get(2).status());
+        assertEquals("Available", morning.get(3).status());
+
+        List<BookingService.SlotStatus> evening = grid.at(date.atTime(23, 0));
+        assertTrue(evening.stream().allMatch(slot -> "Unavailable".equals(slot.status())));
+    }
+
+    // 08:00, 08:30, 09:00 (booked), 09:30
+    private SlotGridCache.SlotGrid grid(AtomicInteger loads) {
+        loads.incrementAndGet();
+        LocalDateTime start = date.atTime(8, 0);
+        return new SlotGridCache.SlotGrid(List.of(
+                new BookingService.SlotStatus(start, "Available", true),
+                new BookingService.SlotStatus(start.plusMinutes(30), "Available", true),
+                new BookingService.SlotStatus(start.plusMinutes(60), "Booked", false),
+                new BookingService.SlotStatus(start.plusMinutes(90), "Available", true)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
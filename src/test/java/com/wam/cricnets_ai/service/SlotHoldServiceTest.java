@@ -0,0 +1,98 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.*;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("local")
+class SlotHoldServiceTest {
+
+    @Autowired
+    private SlotHoldService slotHoldService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private SlotOccupancyIndex slotOccupancyIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime start = LocalDate.now().plusDays(5).atTime(18, 0);
+
+    @BeforeEach
+    void setUp() {
+        clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        clear();
+    }
+
+    @Test
+    void testHeldSlotCannotBeHeldOrBookedByOthers() {
+        SlotHoldService.SlotHold hold = bookingService.holdSlot(start, 60, WicketType.OUTDOOR_CEMENT, 60, "first@example.com");
+
+        assertEquals(start.plusMinutes(60), hold.endTime());
+        Exception exception = assertThrows(RuntimeException.class, () ->
+                bookingService.holdSlot(start.plusMinutes(30), 30, WicketType.OUTDOOR_CEMENT, 60, "second@example.com"));
+        assertEquals(SlotHoldService.HELD, exception.getMessage());
+        exception = assertThrows(RuntimeException.class, () -> bookingService.createBooking(start, 30, BallType.TENNIS,
+                WicketType.OUTDOOR_CEMENT, MachineType.NONE, LeatherBallOption.NONE, false, "second@example.com"));
+        assertEquals(SlotHoldService.HELD, exception.getMessage());
+        assertFalse(bookingService.getSlotsForDay(start.toLocalDate(), WicketType.OUTDOOR_CEMENT).stream()
+                .filter(slot -> slot.startTime().equals(start)).findFirst().orElseThrow().available());
+    }
+
+    @Test
+    void testReleasedHoldFreesTheSlot() {
+        SlotHoldService.SlotHold hold = bookingService.holdSlot(start, 30, WicketType.OUTDOOR_CEMENT, 60, "first@example.com");
+
+        slotHoldService.release(hold.id(), "first@example.com");
+
+        assertTrue(slotOccupancyIndex.heldMinutes(start.toLocalDate(), WicketType.OUTDOOR_CEMENT).isEmpty());
+        assertNotNull(bookingService.holdSlot(start, 30, WicketType.OUTDOOR_CEMENT, 60, "second@example.com"));
+    }
+
+    @Test
+    void testHoldBecomesBooking() {
+        SlotHoldService.SlotHold hold = bookingService.holdSlot(start, 30, WicketType.OUTDOOR_CEMENT, 60, "first@example.com");
+
+        Booking booking = bookingService.createBooking(start, 30, BallType.TENNIS, WicketType.OUTDOOR_CEMENT,
+                MachineType.NONE, LeatherBallOption.NONE, false, "first@example.com", hold.id());
+
+        assertEquals(BookingStatus.PENDING, booking.getStatus());
+        assertFalse(slotOccupancyIndex.isFree(WicketType.OUTDOOR_CEMENT, start, start.plusMinutes(30)));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM slot_holds WHERE id = ?", Integer.class, hold.id()));
+        // A hold is used once
+        assertThrows(IllegalArgumentException.class, () -> bookingService.createBooking(start, 30, BallType.TENNIS,
+                WicketType.OUTDOOR_CEMENT, MachineType.NONE, LeatherBallOption.NONE, false, "first@example.com", hold.id()));
+    }
+
+    private void clear() {
+        jdbcTemplate.update("DELETE FROM slot_holds WHERE start_time >= ? AND start_time < ?",
+                Timestamp.valueOf(start.toLocalDate().atStartOfDay()), Timestamp.valueOf(start.toLocalDate().plusDays(1).atStartOfDay()));
+        slotOccupancyIndex.releaseHold(WicketType.OUTDOOR_CEMENT, start.toLocalDate().atStartOfDay(),
+                start.toLocalDate().atTime(23, 59));
+        bookingRepository.deleteAll();
+        slotOccupancyIndex.rebuild();
+    }
+}
@@ -0,0 +1,87 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.BallType;
+import com.wam.cricnets_ai.model.Booking;
+import com.wam.cricnets_ai.model.LeatherBallOption;
+import com.wam.cricnets_ai.model.MachineType;
+import com.wam.cricnets_ai.model.WicketType;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class SlotOccupancyIndexTest {
+
+    private final BookingRepository bookingRepository = Mockito.mock(BookingRepository.class);
+    private final SlotOccupancyIndex index = new SlotOccupancyIndex(bookingRepository);
+    private final LocalDateTime start = LocalDate.now().plusDays(1).atTime(18, 0);
+    private final LocalDateTime end = start.plusMinutes(30);
+
+    @Test
+    void testFailedStaleClaimKeepsTheRelayedBooking() {
+        List<ResourcePool> pools = ResourcePool.required(MachineType.LEATHER_BALL_MACHINE, false);
+        // This node claims before it hears of the booking another node already committed
+        SlotOccupancyIndex.Claim stale = index.tryReserve(WicketType.OUTDOOR_TURF, start, end, pools, pool -> 5);
+        assertTrue(stale.reserved());
+        index.apply(new SlotChange(WicketType.OUTDOOR_TURF, start, end, true, pools));
+
+        // The local insert then fails on the overlap constraint
+        stale.release();
+
+        assertFalse(index.isFree(WicketType.OUTDOOR_TURF, start, end));
+        assertEquals(1, index.peakOperatorUsage(start, end));
+    }
+
+    @Test
+    void testRebuildKeepsClaimsThatHaveNotCommitted() {
+        when(bookingRepository.findActiveBookingsStartingFrom(any())).thenReturn(List.of());
+        SlotOccupancyIndex.Claim inFlight = index.tryReserve(WicketType.OUTDOOR_TURF, start, end,
+                ResourcePool.required(MachineType.LEATHER_BALL_MACHINE, false), pool -> 5);
+
+        index.rebuild();
+
+        assertFalse(index.isFree(WicketType.OUTDOOR_TURF, start, end));
+        assertEquals(1, index.peakOperatorUsage(start, end));
+        // Rolled back after the rebuild: released from the rebuilt map
+        inFlight.release();
+        assertTrue(index.isFree(WicketType.OUTDOOR_TURF, start, end));
+        assertEquals(0, index.peakOperatorUsage(start, end));
+        assertEquals(0, index.pendingClaims());
+    }
+
+    @Test
+    void testRebuildDoesNotCountACommittedClaimTwice() {
+        SlotOccupancyIndex.Claim committed = index.tryReserve(WicketType.OUTDOOR_TURF, start, end,
+                ResourcePool.required(MachineType.LEATHER_BALL_MACHINE, false), pool -> 5);
+        // Committed before the reload, but not settled yet
+        when(bookingRepository.findActiveBookingsStartingFrom(any())).thenReturn(List.of(new Booking(start, end,
+                BallType.LEATHER, WicketType.OUTDOOR_TURF, MachineType.LEATHER_BALL_MACHINE, LeatherBallOption.MACHINE_BALL,
+                false, "committed@example.com", "Committed")));
+
+        index.rebuild();
+        committed.settle();
+
+        assertEquals(1, index.peakOperatorUsage(start, end));
+        assertEquals(0, index.pendingClaims());
+    }
+
+    @Test
+    void testMinutesFreeUpOnceEveryClaimIsReleased() {
+        index.apply(new SlotChange(WicketType.OUTDOOR_TURF, start, end, true, List.of()));
+        index.apply(new SlotChange(WicketType.OUTDOOR_TURF, start, start.plusMinutes(60), true, List.of()));
+
+        index.apply(new SlotChange(WicketType.OUTDOOR_TURF, start, start.plusMinutes(60), false, List.of()));
+        assertFalse(index.isFree(WicketType.OUTDOOR_TURF, start, end));
+        assertTrue(index.isFree(WicketType.OUTDOOR_TURF, end, start.plusMinutes(60)));
+
+        index.apply(new SlotChange(WicketType.OUTDOOR_TURF, start, end, false, List.of()));
+        assertTrue(index.isFree(WicketType.OUTDOOR_TURF, start, end));
+    }
+}
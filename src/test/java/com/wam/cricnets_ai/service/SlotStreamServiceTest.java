@@ -0,0 +1,113 @@
+package com.wam.cricnets_ai.service;
+
+import com.wam.cricnets_ai.model.BallType;
+import com.wam.cricnets_ai.model.Booking;
+import com.wam.cricnets_ai.model.LeatherBallOption;
+import com.wam.cricnets_ai.model.MachineType;
+import com.wam.cricnets_ai.model.WicketType;
+import com.wam.cricnets_ai.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SlotStreamServiceTest {
+
+    @Mock
+    private BookingService bookingService;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SlotStreamService slotStreamService;
+    private SlotOccupancyIndex slotOccupancyIndex;
+    private final LocalDate date = LocalDate.now().plusDays(1);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(bookingService.getSlotsForDay(any(), any())).thenReturn(List.of());
+        slotStreamService = new SlotStreamService(bookingService);
+        slotOccupancyIndex = new SlotOccupancyIndex(bookingRepository);
+    }
+
+    @Test
+    void testPublishingNeverBlocksOnASlowSubscriber() {
+        SseEmitter emitter = slotStreamService.subscribe(date, WicketType.OUTDOOR_TURF);
+        assertNotNull(emitter);
+        assertEquals(1, slotStreamService.subscriberCount(date, WicketType.OUTDOOR_TURF));
+
+        // Nobody drains the emitter, so the subscriber's buffer overflows many times over
+        long started = System.nanoTime();
+        for (int i = 0; i < SlotStreamService.BUFFER_SIZE * 100; i++) {
+            LocalDateTime start = date.atTime(7, 0).plusMinutes(30L * (i % 32));
+            slotStreamService.publish(new SlotChange(WicketType.OUTDOOR_TURF, start, start.plusMinutes(30), i % 2 == 0, List.of()));
+        }
+        assertTrue(System.nanoTime() - started < 1_000_000_000L, "Publishing must not wait for the subscriber");
+    }
+
+    @Test
+    void testChangesOnlyReachTheirWicketDay() {
+        slotStreamService.subscribe(date, WicketType.OUTDOOR_TURF);
+        assertEquals(0, slotStreamService.subscriberCount(date, WicketType.OUTDOOR_CEMENT));
+        assertEquals(0, slotStreamService.subscriberCount(date.plusDays(1), WicketType.OUTDOOR_TURF));
+    }
+
+    @Test
+    void testRelayAppliesChangesFromOtherNodes() {
+        BookingChangeRelay relay = new BookingChangeRelay(jdbcTemplate, slotOccupancyIndex, slotStreamService);
+        LocalDateTime start = date.atTime(9, 0);
+        List<ResourcePool> pools = ResourcePool.required(MachineType.LEATHER_BALL_MACHINE, false);
+        SlotChange booked = new SlotChange(WicketType.OUTDOOR_CEMENT, start, start.plusMinutes(60), true, pools);
+
+        relay.onNotification(BookingChangeRelay.encode("other-node", booked));
+        assertFalse(slotOccupancyIndex.isFree(WicketType.OUTDOOR_CEMENT, start, start.plusMinutes(30)));
+        assertEquals(1, slotOccupancyIndex.peakOperatorUsage(start, start.plusMinutes(60)));
+        assertEquals(1, slotOccupancyIndex.peakUsage(ResourcePool.machine(MachineType.LEATHER_BALL_MACHINE), start, start.plusMinutes(60)));
+
+        SlotChange freed = new SlotChange(WicketType.OUTDOOR_CEMENT, start, start.plusMinutes(60), false, pools);
+        relay.onNotification(BookingChangeRelay.encode("other-node", freed));
+        assertTrue(slotOccupancyIndex.isFree(WicketType.OUTDOOR_CEMENT, start, start.plusMinutes(60)));
+        assertEquals(0, slotOccupancyIndex.peakOperatorUsage(start, start.plusMinutes(60)));
+    }
+
+    @Test
+    void testRelayedStatusChangeOnlyMovesTheVersion() {
+        BookingChangeRelay relay = new BookingChangeRelay(jdbcTemplate, slotOccupancyIndex, slotStreamService);
+        LocalDateTime start = date.atTime(9, 0);
+        Booking booking = new Booking(start, start.plusMinutes(30), BallType.LEATHER_MACHINE, WicketType.OUTDOOR_TURF,
+                MachineType.LEATHER_BALL_MACHINE, LeatherBallOption.MACHINE_BALL, false, "done@example.com", "Done");
+        slotOccupancyIndex.add(booking);
+        long version = slotOccupancyIndex.version();
+
+        relay.onNotification(BookingChangeRelay.encode("other-node", SlotChange.statusChanged(booking)));
+
+        assertNotEquals(version, slotOccupancyIndex.version());
+        // The session still holds its slot and is not counted twice
+        assertFalse(slotOccupancyIndex.isFree(WicketType.OUTDOOR_TURF, start, start.plusMinutes(30)));
+        assertEquals(1, slotOccupancyIndex.peakOperatorUsage(start, start.plusMinutes(30)));
+    }
+
+    @Test
+    void testRelaySendsChangesInsideTheTransaction() {
+        BookingChangeRelay relay = new BookingChangeRelay(jdbcTemplate, slotOccupancyIndex, slotStreamService);
+        LocalDateTime start = date.atTime(9, 0);
+
+        relay.send(new SlotChange(WicketType.OUTDOOR_TURF, start, start.plusMinutes(30), true, List.of()));
+
+        verify(jdbcTemplate).queryForList(eq("SELECT pg_notify(?, ?)"), eq(BookingChangeRelay.CHANNEL), any(String.class));
+    }
+}
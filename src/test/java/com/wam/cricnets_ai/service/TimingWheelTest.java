@@ -0,0 +1,67 @@
+package com.wam.cricnets_ai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void testEntriesExpireAtTheirDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        wheel.schedule("a", 2_500);
+        wheel.schedule("b", 1_000);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(999, expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(1_000, expired::add);
+        assertEquals(List.of("b"), expired);
+
+        wheel.advance(3_000, expired::add);
+        assertEquals(List.of("b", "a"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testDeadlinesBeyondOneRevolutionWaitForTheirRound() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 4, 0);
+        // Same bucket as tick 1, two revolutions later
+        wheel.schedule("late", 9_000);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(8_000, expired::add);
+        assertTrue(expired.isEmpty());
+        assertEquals(1, wheel.size());
+
+        wheel.advance(9_000, expired::add);
+        assertEquals(List.of("late"), expired);
+    }
+
+    @Test
+    void testCancelledEntriesNeverExpire() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        TimingWheel.Timeout<String> timeout = wheel.schedule("gone", 2_000);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(10_000, expired::add);
+        assertTrue(expired.isEmpty());
+    }
+
+    @Test
+    void testPastDeadlineExpiresOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 5_000);
+        wheel.schedule("overdue", 1_000);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(5_000, expired::add);
+        assertEquals(List.of("overdue"), expired);
+    }
+}